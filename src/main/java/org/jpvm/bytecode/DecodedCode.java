@@ -0,0 +1,169 @@
+package org.jpvm.bytecode;
+
+import java.util.Arrays;
+import org.jpvm.objects.PyBytesObject;
+import org.jpvm.pycParser.PyCodeObject;
+
+/**
+ * co_code of a {@link PyCodeObject} decoded once into primitive arrays. EXTENDED_ARG prefixes are
+ * folded into the oparg of the instruction they belong to and jump targets are resolved into
+ * instruction indexes, so the evaluation loop can run with a plain int program counter and
+ * without allocating an {@link Instruction} per step.
+ *
+ * <p>The opcode array is also the target of quickening: adaptive instructions count their
+ * executions in {@link DecodedCode#counters} and, once warmed up, are rewritten in place into a
+ * type specialized instruction (see the specialized opcodes in {@link OpMap}). A specialized
+ * instruction whose guard fails is rewritten back to its base instruction by
+ * {@link DecodedCode#deoptimize(int)}.
+ */
+public class DecodedCode {
+
+  /** executions of an adaptive instruction before trying to specialize it */
+  public static final int ADAPTIVE_WARMUP = 8;
+  /** executions to wait before specializing again after a failed attempt or a deoptimization */
+  public static final int ADAPTIVE_BACKOFF = 64;
+
+  /** opcode of each instruction */
+  private final int[] opcodes;
+  /** oparg of each instruction, 0 if the instruction has no argument */
+  private final int[] opargs;
+  /** index of the jump target of each instruction, -1 if the instruction is not a jump */
+  private final int[] targets;
+  /** byte offset in co_code of each instruction, including its EXTENDED_ARG prefixes */
+  private final int[] positions;
+  /** countdown of each adaptive instruction until it tries to specialize */
+  private final int[] counters;
+  /** inline cache of each instruction, filled and read by the evaluation loop */
+  private final Object[] inlineCaches;
+
+  public DecodedCode(PyCodeObject pyCodeObject) {
+    byte[] codeBuf = ((PyBytesObject) pyCodeObject.getCoCode()).getData();
+    int units = codeBuf.length / Instruction.sizeofByteCode;
+    int[] ops = new int[units];
+    int[] args = new int[units];
+    int[] pos = new int[units];
+    // maps every code unit to the index of the instruction which contains it
+    int[] unitToIndex = new int[units + 1];
+    int size = 0;
+    int cursor = 0;
+    while (cursor < codeBuf.length) {
+      int start = cursor;
+      int opcode;
+      int oparg = 0;
+      int extendedArg = 0;
+      do {
+        unitToIndex[cursor / Instruction.sizeofByteCode] = size;
+        opcode = codeBuf[cursor] & 0xff;
+        if (opcode >= OpMap.HAVE_ARGUMENT) oparg = (codeBuf[cursor + 1] & 0xff) | extendedArg;
+        else oparg = 0;
+        extendedArg = opcode == OpMap.EXTENDED_ARG ? oparg << 8 : 0;
+        cursor += Instruction.sizeofByteCode;
+      } while (opcode == OpMap.EXTENDED_ARG && cursor < codeBuf.length);
+      ops[size] = opcode;
+      args[size] = oparg;
+      pos[size] = start;
+      size++;
+    }
+    unitToIndex[units] = size;
+    opcodes = trim(ops, size);
+    opargs = trim(args, size);
+    positions = trim(pos, size);
+    targets = new int[size];
+    counters = new int[size];
+    Arrays.fill(counters, ADAPTIVE_WARMUP);
+    inlineCaches = new Object[size];
+    for (int i = 0; i < size; i++) {
+      int next = i + 1 < size ? positions[i + 1] : codeBuf.length;
+      targets[i] = switch (kindOf(opcodes[i])) {
+        case RELATIVE -> unitToIndex[(next + opargs[i]) / Instruction.sizeofByteCode];
+        case ABSOLUTE -> unitToIndex[opargs[i] / Instruction.sizeofByteCode];
+        default -> -1;
+      };
+    }
+  }
+
+  /** code decoded before, by a run whose result was stored in the code cache for example */
+  public DecodedCode(int[] opcodes, int[] opargs, int[] targets, int[] positions) {
+    this.opcodes = opcodes;
+    this.opargs = opargs;
+    this.targets = targets;
+    this.positions = positions;
+    counters = new int[opcodes.length];
+    Arrays.fill(counters, ADAPTIVE_WARMUP);
+    inlineCaches = new Object[opcodes.length];
+  }
+
+  private static int[] trim(int[] array, int size) {
+    if (array.length == size) return array;
+    int[] res = new int[size];
+    System.arraycopy(array, 0, res, 0, size);
+    return res;
+  }
+
+  private static JumpKind kindOf(int opcode) {
+    return switch (opcode) {
+      case OpMap.FOR_ITER,
+          OpMap.JUMP_FORWARD,
+          OpMap.SETUP_FINALLY,
+          OpMap.SETUP_WITH,
+          OpMap.SETUP_ASYNC_WITH,
+          OpMap.CALL_FINALLY -> JumpKind.RELATIVE;
+      case OpMap.JUMP_IF_FALSE_OR_POP,
+          OpMap.JUMP_IF_TRUE_OR_POP,
+          OpMap.JUMP_ABSOLUTE,
+          OpMap.POP_JUMP_IF_FALSE,
+          OpMap.POP_JUMP_IF_TRUE -> JumpKind.ABSOLUTE;
+      default -> JumpKind.NONE;
+    };
+  }
+
+  public int size() {
+    return opcodes.length;
+  }
+
+  public int[] getOpcodes() {
+    return opcodes;
+  }
+
+  public int[] getOpargs() {
+    return opargs;
+  }
+
+  public int[] getTargets() {
+    return targets;
+  }
+
+  public int[] getPositions() {
+    return positions;
+  }
+
+  public int[] getCounters() {
+    return counters;
+  }
+
+  public Object[] getInlineCaches() {
+    return inlineCaches;
+  }
+
+  /** rewrite instruction idx into the specialized instruction opcode */
+  public void quicken(int idx, int opcode) {
+    opcodes[idx] = opcode;
+  }
+
+  /** instruction idx can not be specialized right now, try again later */
+  public void backoff(int idx) {
+    counters[idx] = ADAPTIVE_BACKOFF;
+  }
+
+  /** rewrite instruction idx back to its generic form */
+  public void deoptimize(int idx) {
+    opcodes[idx] = OpMap.baseOpcodes[opcodes[idx]];
+    counters[idx] = ADAPTIVE_BACKOFF;
+  }
+
+  private enum JumpKind {
+    NONE,
+    RELATIVE,
+    ABSOLUTE
+  }
+}
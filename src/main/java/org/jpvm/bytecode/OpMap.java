@@ -5,132 +5,296 @@ import java.util.Map;
 
 public class OpMap {
 
-  public static int HAVE_ARGUMENT = 90;
-  public static int EXTENDED_ARG = 144;
+  public static final int HAVE_ARGUMENT = 90;
+  public static final int EXTENDED_ARG = 144;
+  public static final int POP_TOP = 1;
+  public static final int ROT_TWO = 2;
+  public static final int ROT_THREE = 3;
+  public static final int DUP_TOP = 4;
+  public static final int DUP_TOP_TWO = 5;
+  public static final int ROT_FOUR = 6;
+  public static final int NOP = 9;
+  public static final int UNARY_POSITIVE = 10;
+  public static final int UNARY_NEGATIVE = 11;
+  public static final int UNARY_NOT = 12;
+  public static final int UNARY_INVERT = 15;
+  public static final int BINARY_MATRIX_MULTIPLY = 16;
+  public static final int INPLACE_MATRIX_MULTIPLY = 17;
+  public static final int BINARY_POWER = 19;
+  public static final int BINARY_MULTIPLY = 20;
+  public static final int BINARY_MODULO = 22;
+  public static final int BINARY_ADD = 23;
+  public static final int BINARY_SUBTRACT = 24;
+  public static final int BINARY_SUBSCR = 25;
+  public static final int BINARY_FLOOR_DIVIDE = 26;
+  public static final int BINARY_TRUE_DIVIDE = 27;
+  public static final int INPLACE_FLOOR_DIVIDE = 28;
+  public static final int INPLACE_TRUE_DIVIDE = 29;
+  public static final int GET_AITER = 50;
+  public static final int GET_ANEXT = 51;
+  public static final int BEFORE_ASYNC_WITH = 52;
+  public static final int BEGIN_FINALLY = 53;
+  public static final int END_ASYNC_FOR = 54;
+  public static final int INPLACE_ADD = 55;
+  public static final int INPLACE_SUBTRACT = 56;
+  public static final int INPLACE_MULTIPLY = 57;
+  public static final int INPLACE_MODULO = 59;
+  public static final int STORE_SUBSCR = 60;
+  public static final int DELETE_SUBSCR = 61;
+  public static final int BINARY_LSHIFT = 62;
+  public static final int BINARY_RSHIFT = 63;
+  public static final int BINARY_AND = 64;
+  public static final int BINARY_XOR = 65;
+  public static final int BINARY_OR = 66;
+  public static final int INPLACE_POWER = 67;
+  public static final int GET_ITER = 68;
+  public static final int GET_YIELD_FROM_ITER = 69;
+  public static final int PRINT_EXPR = 70;
+  public static final int LOAD_BUILD_CLASS = 71;
+  public static final int YIELD_FROM = 72;
+  public static final int GET_AWAITABLE = 73;
+  public static final int INPLACE_LSHIFT = 75;
+  public static final int INPLACE_RSHIFT = 76;
+  public static final int INPLACE_AND = 77;
+  public static final int INPLACE_XOR = 78;
+  public static final int INPLACE_OR = 79;
+  public static final int WITH_CLEANUP_START = 81;
+  public static final int WITH_CLEANUP_FINISH = 82;
+  public static final int RETURN_VALUE = 83;
+  public static final int IMPORT_STAR = 84;
+  public static final int SETUP_ANNOTATIONS = 85;
+  public static final int YIELD_VALUE = 86;
+  public static final int POP_BLOCK = 87;
+  public static final int END_FINALLY = 88;
+  public static final int POP_EXCEPT = 89;
+  public static final int STORE_NAME = 90;
+  public static final int DELETE_NAME = 91;
+  public static final int UNPACK_SEQUENCE = 92;
+  public static final int FOR_ITER = 93;
+  public static final int UNPACK_EX = 94;
+  public static final int STORE_ATTR = 95;
+  public static final int DELETE_ATTR = 96;
+  public static final int STORE_GLOBAL = 97;
+  public static final int DELETE_GLOBAL = 98;
+  public static final int LOAD_CONST = 100;
+  public static final int LOAD_NAME = 101;
+  public static final int BUILD_TUPLE = 102;
+  public static final int BUILD_LIST = 103;
+  public static final int BUILD_SET = 104;
+  public static final int BUILD_MAP = 105;
+  public static final int LOAD_ATTR = 106;
+  public static final int COMPARE_OP = 107;
+  public static final int IMPORT_NAME = 108;
+  public static final int IMPORT_FROM = 109;
+  public static final int JUMP_FORWARD = 110;
+  public static final int JUMP_IF_FALSE_OR_POP = 111;
+  public static final int JUMP_IF_TRUE_OR_POP = 112;
+  public static final int JUMP_ABSOLUTE = 113;
+  public static final int POP_JUMP_IF_FALSE = 114;
+  public static final int POP_JUMP_IF_TRUE = 115;
+  public static final int LOAD_GLOBAL = 116;
+  public static final int SETUP_FINALLY = 122;
+  public static final int LOAD_FAST = 124;
+  public static final int STORE_FAST = 125;
+  public static final int DELETE_FAST = 126;
+  public static final int RAISE_VARARGS = 130;
+  public static final int CALL_FUNCTION = 131;
+  public static final int MAKE_FUNCTION = 132;
+  public static final int BUILD_SLICE = 133;
+  public static final int LOAD_CLOSURE = 135;
+  public static final int LOAD_DEREF = 136;
+  public static final int STORE_DEREF = 137;
+  public static final int DELETE_DEREF = 138;
+  public static final int CALL_FUNCTION_KW = 141;
+  public static final int CALL_FUNCTION_EX = 142;
+  public static final int SETUP_WITH = 143;
+  public static final int LIST_APPEND = 145;
+  public static final int SET_ADD = 146;
+  public static final int MAP_ADD = 147;
+  public static final int LOAD_CLASSDEREF = 148;
+  public static final int BUILD_LIST_UNPACK = 149;
+  public static final int BUILD_MAP_UNPACK = 150;
+  public static final int BUILD_MAP_UNPACK_WITH_CALL = 151;
+  public static final int BUILD_TUPLE_UNPACK = 152;
+  public static final int BUILD_SET_UNPACK = 153;
+  public static final int SETUP_ASYNC_WITH = 154;
+  public static final int FORMAT_VALUE = 155;
+  public static final int BUILD_CONST_KEY_MAP = 156;
+  public static final int BUILD_STRING = 157;
+  public static final int BUILD_TUPLE_UNPACK_WITH_CALL = 158;
+  public static final int LOAD_METHOD = 160;
+  public static final int CALL_METHOD = 161;
+  public static final int CALL_FINALLY = 162;
+  public static final int POP_FINALLY = 163;
+  /*
+   * specialized instructions, they never appear in co_code and are only written into
+   * a DecodedCode by quickening, each of them falls back to its base instruction when
+   * the type guard fails
+   */
+  public static final int BINARY_ADD_LONG = 200;
+  public static final int BINARY_ADD_FLOAT = 201;
+  public static final int BINARY_ADD_UNICODE = 202;
+  public static final int BINARY_SUBTRACT_LONG = 203;
+  public static final int BINARY_SUBTRACT_FLOAT = 204;
+  public static final int BINARY_MULTIPLY_LONG = 205;
+  public static final int BINARY_MULTIPLY_FLOAT = 206;
+  public static final int INPLACE_ADD_LONG = 207;
+  public static final int INPLACE_SUBTRACT_LONG = 208;
+  public static final int COMPARE_OP_LONG = 209;
+  public static final int BINARY_SUBSCR_LIST_LONG = 210;
   public static Map<Integer, OpName> instructions = new HashMap<>();
+  /**
+   * same content as {@link OpMap#instructions} but indexed by opcode directly, which avoids boxing
+   * in the evaluation loop
+   */
+  public static OpName[] opNames = new OpName[256];
+  /**
+   * generic instruction of each opcode, which is the opcode itself except for specialized
+   * instructions
+   */
+  public static int[] baseOpcodes = new int[256];
 
   static {
-    instructions.put(1, OpName.POP_TOP);
-    instructions.put(2, OpName.ROT_TWO);
-    instructions.put(3, OpName.ROT_THREE);
-    instructions.put(4, OpName.DUP_TOP);
-    instructions.put(5, OpName.DUP_TOP_TWO);
-    instructions.put(6, OpName.ROT_FOUR);
-    instructions.put(9, OpName.NOP);
-    instructions.put(10, OpName.UNARY_POSITIVE);
-    instructions.put(11, OpName.UNARY_NEGATIVE);
-    instructions.put(12, OpName.UNARY_NOT);
-    instructions.put(15, OpName.UNARY_INVERT);
-    instructions.put(16, OpName.BINARY_MATRIX_MULTIPLY);
-    instructions.put(17, OpName.INPLACE_MATRIX_MULTIPLY);
-    instructions.put(19, OpName.BINARY_POWER);
-    instructions.put(20, OpName.BINARY_MULTIPLY);
-    instructions.put(22, OpName.BINARY_MODULO);
-    instructions.put(23, OpName.BINARY_ADD);
-    instructions.put(24, OpName.BINARY_SUBTRACT);
-    instructions.put(25, OpName.BINARY_SUBSCR);
-    instructions.put(26, OpName.BINARY_FLOOR_DIVIDE);
-    instructions.put(27, OpName.BINARY_TRUE_DIVIDE);
-    instructions.put(28, OpName.INPLACE_FLOOR_DIVIDE);
-    instructions.put(29, OpName.INPLACE_TRUE_DIVIDE);
-    instructions.put(50, OpName.GET_AITER);
-    instructions.put(51, OpName.GET_ANEXT);
-    instructions.put(52, OpName.BEFORE_ASYNC_WITH);
-    instructions.put(53, OpName.BEGIN_FINALLY);
-    instructions.put(54, OpName.END_ASYNC_FOR);
-    instructions.put(55, OpName.INPLACE_ADD);
-    instructions.put(56, OpName.INPLACE_SUBTRACT);
-    instructions.put(57, OpName.INPLACE_MULTIPLY);
-    instructions.put(59, OpName.INPLACE_MODULO);
-    instructions.put(60, OpName.STORE_SUBSCR);
-    instructions.put(61, OpName.DELETE_SUBSCR);
-    instructions.put(62, OpName.BINARY_LSHIFT);
-    instructions.put(63, OpName.BINARY_RSHIFT);
-    instructions.put(64, OpName.BINARY_AND);
-    instructions.put(65, OpName.BINARY_XOR);
-    instructions.put(66, OpName.BINARY_OR);
-    instructions.put(67, OpName.INPLACE_POWER);
-    instructions.put(68, OpName.GET_ITER);
-    instructions.put(69, OpName.GET_YIELD_FROM_ITER);
-    instructions.put(70, OpName.PRINT_EXPR);
-    instructions.put(71, OpName.LOAD_BUILD_CLASS);
-    instructions.put(72, OpName.YIELD_FROM);
-    instructions.put(73, OpName.GET_AWAITABLE);
-    instructions.put(75, OpName.INPLACE_LSHIFT);
-    instructions.put(76, OpName.INPLACE_RSHIFT);
-    instructions.put(77, OpName.INPLACE_AND);
-    instructions.put(78, OpName.INPLACE_XOR);
-    instructions.put(79, OpName.INPLACE_OR);
-    instructions.put(81, OpName.WITH_CLEANUP_START);
-    instructions.put(82, OpName.WITH_CLEANUP_FINISH);
-    instructions.put(83, OpName.RETURN_VALUE);
-    instructions.put(84, OpName.IMPORT_STAR);
-    instructions.put(85, OpName.SETUP_ANNOTATIONS);
-    instructions.put(86, OpName.YIELD_VALUE);
-    instructions.put(87, OpName.POP_BLOCK);
-    instructions.put(88, OpName.END_FINALLY);
-    instructions.put(89, OpName.POP_EXCEPT);
-    instructions.put(90, OpName.STORE_NAME);
-    instructions.put(91, OpName.DELETE_NAME);
-    instructions.put(92, OpName.UNPACK_SEQUENCE);
-    instructions.put(93, OpName.FOR_ITER);
-    instructions.put(94, OpName.UNPACK_EX);
-    instructions.put(95, OpName.STORE_ATTR);
-    instructions.put(96, OpName.DELETE_ATTR);
-    instructions.put(97, OpName.STORE_GLOBAL);
-    instructions.put(98, OpName.DELETE_GLOBAL);
-    instructions.put(100, OpName.LOAD_CONST);
-    instructions.put(101, OpName.LOAD_NAME);
-    instructions.put(102, OpName.BUILD_TUPLE);
-    instructions.put(103, OpName.BUILD_LIST);
-    instructions.put(104, OpName.BUILD_SET);
-    instructions.put(105, OpName.BUILD_MAP);
-    instructions.put(106, OpName.LOAD_ATTR);
-    instructions.put(107, OpName.COMPARE_OP);
-    instructions.put(108, OpName.IMPORT_NAME);
-    instructions.put(109, OpName.IMPORT_FROM);
-    instructions.put(110, OpName.JUMP_FORWARD);
-    instructions.put(111, OpName.JUMP_IF_FALSE_OR_POP);
-    instructions.put(112, OpName.JUMP_IF_TRUE_OR_POP);
-    instructions.put(113, OpName.JUMP_ABSOLUTE);
-    instructions.put(114, OpName.POP_JUMP_IF_FALSE);
-    instructions.put(115, OpName.POP_JUMP_IF_TRUE);
-    instructions.put(116, OpName.LOAD_GLOBAL);
-    instructions.put(122, OpName.SETUP_FINALLY);
-    instructions.put(124, OpName.LOAD_FAST);
-    instructions.put(125, OpName.STORE_FAST);
-    instructions.put(126, OpName.DELETE_FAST);
-    instructions.put(130, OpName.RAISE_VARARGS);
-    instructions.put(131, OpName.CALL_FUNCTION);
-    instructions.put(132, OpName.MAKE_FUNCTION);
-    instructions.put(133, OpName.BUILD_SLICE);
-    instructions.put(135, OpName.LOAD_CLOSURE);
-    instructions.put(136, OpName.LOAD_DEREF);
-    instructions.put(137, OpName.STORE_DEREF);
-    instructions.put(138, OpName.DELETE_DEREF);
-    instructions.put(141, OpName.CALL_FUNCTION_KW);
-    instructions.put(142, OpName.CALL_FUNCTION_EX);
-    instructions.put(143, OpName.SETUP_WITH);
-    instructions.put(144, OpName.EXTENDED_ARG);
-    instructions.put(145, OpName.LIST_APPEND);
-    instructions.put(146, OpName.SET_ADD);
-    instructions.put(147, OpName.MAP_ADD);
-    instructions.put(148, OpName.LOAD_CLASSDEREF);
-    instructions.put(149, OpName.BUILD_LIST_UNPACK);
-    instructions.put(150, OpName.BUILD_MAP_UNPACK);
-    instructions.put(151, OpName.BUILD_MAP_UNPACK_WITH_CALL);
-    instructions.put(152, OpName.BUILD_TUPLE_UNPACK);
-    instructions.put(153, OpName.BUILD_SET_UNPACK);
-    instructions.put(154, OpName.SETUP_ASYNC_WITH);
-    instructions.put(155, OpName.FORMAT_VALUE);
-    instructions.put(156, OpName.BUILD_CONST_KEY_MAP);
-    instructions.put(157, OpName.BUILD_STRING);
-    instructions.put(158, OpName.BUILD_TUPLE_UNPACK_WITH_CALL);
-    instructions.put(160, OpName.LOAD_METHOD);
-    instructions.put(161, OpName.CALL_METHOD);
-    instructions.put(162, OpName.CALL_FINALLY);
-    instructions.put(163, OpName.POP_FINALLY);
+    instructions.put(POP_TOP, OpName.POP_TOP);
+    instructions.put(ROT_TWO, OpName.ROT_TWO);
+    instructions.put(ROT_THREE, OpName.ROT_THREE);
+    instructions.put(DUP_TOP, OpName.DUP_TOP);
+    instructions.put(DUP_TOP_TWO, OpName.DUP_TOP_TWO);
+    instructions.put(ROT_FOUR, OpName.ROT_FOUR);
+    instructions.put(NOP, OpName.NOP);
+    instructions.put(UNARY_POSITIVE, OpName.UNARY_POSITIVE);
+    instructions.put(UNARY_NEGATIVE, OpName.UNARY_NEGATIVE);
+    instructions.put(UNARY_NOT, OpName.UNARY_NOT);
+    instructions.put(UNARY_INVERT, OpName.UNARY_INVERT);
+    instructions.put(BINARY_MATRIX_MULTIPLY, OpName.BINARY_MATRIX_MULTIPLY);
+    instructions.put(INPLACE_MATRIX_MULTIPLY, OpName.INPLACE_MATRIX_MULTIPLY);
+    instructions.put(BINARY_POWER, OpName.BINARY_POWER);
+    instructions.put(BINARY_MULTIPLY, OpName.BINARY_MULTIPLY);
+    instructions.put(BINARY_MODULO, OpName.BINARY_MODULO);
+    instructions.put(BINARY_ADD, OpName.BINARY_ADD);
+    instructions.put(BINARY_SUBTRACT, OpName.BINARY_SUBTRACT);
+    instructions.put(BINARY_SUBSCR, OpName.BINARY_SUBSCR);
+    instructions.put(BINARY_FLOOR_DIVIDE, OpName.BINARY_FLOOR_DIVIDE);
+    instructions.put(BINARY_TRUE_DIVIDE, OpName.BINARY_TRUE_DIVIDE);
+    instructions.put(INPLACE_FLOOR_DIVIDE, OpName.INPLACE_FLOOR_DIVIDE);
+    instructions.put(INPLACE_TRUE_DIVIDE, OpName.INPLACE_TRUE_DIVIDE);
+    instructions.put(GET_AITER, OpName.GET_AITER);
+    instructions.put(GET_ANEXT, OpName.GET_ANEXT);
+    instructions.put(BEFORE_ASYNC_WITH, OpName.BEFORE_ASYNC_WITH);
+    instructions.put(BEGIN_FINALLY, OpName.BEGIN_FINALLY);
+    instructions.put(END_ASYNC_FOR, OpName.END_ASYNC_FOR);
+    instructions.put(INPLACE_ADD, OpName.INPLACE_ADD);
+    instructions.put(INPLACE_SUBTRACT, OpName.INPLACE_SUBTRACT);
+    instructions.put(INPLACE_MULTIPLY, OpName.INPLACE_MULTIPLY);
+    instructions.put(INPLACE_MODULO, OpName.INPLACE_MODULO);
+    instructions.put(STORE_SUBSCR, OpName.STORE_SUBSCR);
+    instructions.put(DELETE_SUBSCR, OpName.DELETE_SUBSCR);
+    instructions.put(BINARY_LSHIFT, OpName.BINARY_LSHIFT);
+    instructions.put(BINARY_RSHIFT, OpName.BINARY_RSHIFT);
+    instructions.put(BINARY_AND, OpName.BINARY_AND);
+    instructions.put(BINARY_XOR, OpName.BINARY_XOR);
+    instructions.put(BINARY_OR, OpName.BINARY_OR);
+    instructions.put(INPLACE_POWER, OpName.INPLACE_POWER);
+    instructions.put(GET_ITER, OpName.GET_ITER);
+    instructions.put(GET_YIELD_FROM_ITER, OpName.GET_YIELD_FROM_ITER);
+    instructions.put(PRINT_EXPR, OpName.PRINT_EXPR);
+    instructions.put(LOAD_BUILD_CLASS, OpName.LOAD_BUILD_CLASS);
+    instructions.put(YIELD_FROM, OpName.YIELD_FROM);
+    instructions.put(GET_AWAITABLE, OpName.GET_AWAITABLE);
+    instructions.put(INPLACE_LSHIFT, OpName.INPLACE_LSHIFT);
+    instructions.put(INPLACE_RSHIFT, OpName.INPLACE_RSHIFT);
+    instructions.put(INPLACE_AND, OpName.INPLACE_AND);
+    instructions.put(INPLACE_XOR, OpName.INPLACE_XOR);
+    instructions.put(INPLACE_OR, OpName.INPLACE_OR);
+    instructions.put(WITH_CLEANUP_START, OpName.WITH_CLEANUP_START);
+    instructions.put(WITH_CLEANUP_FINISH, OpName.WITH_CLEANUP_FINISH);
+    instructions.put(RETURN_VALUE, OpName.RETURN_VALUE);
+    instructions.put(IMPORT_STAR, OpName.IMPORT_STAR);
+    instructions.put(SETUP_ANNOTATIONS, OpName.SETUP_ANNOTATIONS);
+    instructions.put(YIELD_VALUE, OpName.YIELD_VALUE);
+    instructions.put(POP_BLOCK, OpName.POP_BLOCK);
+    instructions.put(END_FINALLY, OpName.END_FINALLY);
+    instructions.put(POP_EXCEPT, OpName.POP_EXCEPT);
+    instructions.put(STORE_NAME, OpName.STORE_NAME);
+    instructions.put(DELETE_NAME, OpName.DELETE_NAME);
+    instructions.put(UNPACK_SEQUENCE, OpName.UNPACK_SEQUENCE);
+    instructions.put(FOR_ITER, OpName.FOR_ITER);
+    instructions.put(UNPACK_EX, OpName.UNPACK_EX);
+    instructions.put(STORE_ATTR, OpName.STORE_ATTR);
+    instructions.put(DELETE_ATTR, OpName.DELETE_ATTR);
+    instructions.put(STORE_GLOBAL, OpName.STORE_GLOBAL);
+    instructions.put(DELETE_GLOBAL, OpName.DELETE_GLOBAL);
+    instructions.put(LOAD_CONST, OpName.LOAD_CONST);
+    instructions.put(LOAD_NAME, OpName.LOAD_NAME);
+    instructions.put(BUILD_TUPLE, OpName.BUILD_TUPLE);
+    instructions.put(BUILD_LIST, OpName.BUILD_LIST);
+    instructions.put(BUILD_SET, OpName.BUILD_SET);
+    instructions.put(BUILD_MAP, OpName.BUILD_MAP);
+    instructions.put(LOAD_ATTR, OpName.LOAD_ATTR);
+    instructions.put(COMPARE_OP, OpName.COMPARE_OP);
+    instructions.put(IMPORT_NAME, OpName.IMPORT_NAME);
+    instructions.put(IMPORT_FROM, OpName.IMPORT_FROM);
+    instructions.put(JUMP_FORWARD, OpName.JUMP_FORWARD);
+    instructions.put(JUMP_IF_FALSE_OR_POP, OpName.JUMP_IF_FALSE_OR_POP);
+    instructions.put(JUMP_IF_TRUE_OR_POP, OpName.JUMP_IF_TRUE_OR_POP);
+    instructions.put(JUMP_ABSOLUTE, OpName.JUMP_ABSOLUTE);
+    instructions.put(POP_JUMP_IF_FALSE, OpName.POP_JUMP_IF_FALSE);
+    instructions.put(POP_JUMP_IF_TRUE, OpName.POP_JUMP_IF_TRUE);
+    instructions.put(LOAD_GLOBAL, OpName.LOAD_GLOBAL);
+    instructions.put(SETUP_FINALLY, OpName.SETUP_FINALLY);
+    instructions.put(LOAD_FAST, OpName.LOAD_FAST);
+    instructions.put(STORE_FAST, OpName.STORE_FAST);
+    instructions.put(DELETE_FAST, OpName.DELETE_FAST);
+    instructions.put(RAISE_VARARGS, OpName.RAISE_VARARGS);
+    instructions.put(CALL_FUNCTION, OpName.CALL_FUNCTION);
+    instructions.put(MAKE_FUNCTION, OpName.MAKE_FUNCTION);
+    instructions.put(BUILD_SLICE, OpName.BUILD_SLICE);
+    instructions.put(LOAD_CLOSURE, OpName.LOAD_CLOSURE);
+    instructions.put(LOAD_DEREF, OpName.LOAD_DEREF);
+    instructions.put(STORE_DEREF, OpName.STORE_DEREF);
+    instructions.put(DELETE_DEREF, OpName.DELETE_DEREF);
+    instructions.put(CALL_FUNCTION_KW, OpName.CALL_FUNCTION_KW);
+    instructions.put(CALL_FUNCTION_EX, OpName.CALL_FUNCTION_EX);
+    instructions.put(SETUP_WITH, OpName.SETUP_WITH);
+    instructions.put(EXTENDED_ARG, OpName.EXTENDED_ARG);
+    instructions.put(LIST_APPEND, OpName.LIST_APPEND);
+    instructions.put(SET_ADD, OpName.SET_ADD);
+    instructions.put(MAP_ADD, OpName.MAP_ADD);
+    instructions.put(LOAD_CLASSDEREF, OpName.LOAD_CLASSDEREF);
+    instructions.put(BUILD_LIST_UNPACK, OpName.BUILD_LIST_UNPACK);
+    instructions.put(BUILD_MAP_UNPACK, OpName.BUILD_MAP_UNPACK);
+    instructions.put(BUILD_MAP_UNPACK_WITH_CALL, OpName.BUILD_MAP_UNPACK_WITH_CALL);
+    instructions.put(BUILD_TUPLE_UNPACK, OpName.BUILD_TUPLE_UNPACK);
+    instructions.put(BUILD_SET_UNPACK, OpName.BUILD_SET_UNPACK);
+    instructions.put(SETUP_ASYNC_WITH, OpName.SETUP_ASYNC_WITH);
+    instructions.put(FORMAT_VALUE, OpName.FORMAT_VALUE);
+    instructions.put(BUILD_CONST_KEY_MAP, OpName.BUILD_CONST_KEY_MAP);
+    instructions.put(BUILD_STRING, OpName.BUILD_STRING);
+    instructions.put(BUILD_TUPLE_UNPACK_WITH_CALL, OpName.BUILD_TUPLE_UNPACK_WITH_CALL);
+    instructions.put(LOAD_METHOD, OpName.LOAD_METHOD);
+    instructions.put(CALL_METHOD, OpName.CALL_METHOD);
+    instructions.put(CALL_FINALLY, OpName.CALL_FINALLY);
+    instructions.put(POP_FINALLY, OpName.POP_FINALLY);
 
+    instructions.forEach((k, v) -> opNames[k] = v);
+    for (int i = 0; i < baseOpcodes.length; i++) baseOpcodes[i] = i;
+    registerSpecialized(BINARY_ADD_LONG, BINARY_ADD);
+    registerSpecialized(BINARY_ADD_FLOAT, BINARY_ADD);
+    registerSpecialized(BINARY_ADD_UNICODE, BINARY_ADD);
+    registerSpecialized(BINARY_SUBTRACT_LONG, BINARY_SUBTRACT);
+    registerSpecialized(BINARY_SUBTRACT_FLOAT, BINARY_SUBTRACT);
+    registerSpecialized(BINARY_MULTIPLY_LONG, BINARY_MULTIPLY);
+    registerSpecialized(BINARY_MULTIPLY_FLOAT, BINARY_MULTIPLY);
+    registerSpecialized(INPLACE_ADD_LONG, INPLACE_ADD);
+    registerSpecialized(INPLACE_SUBTRACT_LONG, INPLACE_SUBTRACT);
+    registerSpecialized(COMPARE_OP_LONG, COMPARE_OP);
+    registerSpecialized(BINARY_SUBSCR_LIST_LONG, BINARY_SUBSCR);
+  }
+
+  private static void registerSpecialized(int opcode, int base) {
+    baseOpcodes[opcode] = base;
+    // report errors with the name of the generic instruction
+    opNames[opcode] = opNames[base];
   }
 
   public enum OpName {
@@ -4,6 +4,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import org.jpvm.errors.PyException;
 import org.jpvm.objects.*;
 import org.jpvm.pycParser.PyCodeObject;
@@ -16,6 +21,10 @@ import org.jpvm.python.BuiltIn;
  * between PyObjects.
  * Your code must follow the order of calling above function, cause there is recursive call in
  * {@link Marshal#loadPyObject(ByteBuffer)}. If you do not follow the order, will cause some unexpected errors.
+ *
+ * <p>A lazy marshal only reads the names of nested code objects, the bytecode and the constants of
+ * a function are skipped over and unmarshalled on its first call, see {@link LazyBody}. References
+ * to objects of a skipped range are unmarshalled on demand from the offset recorded for them.
  */
 public class Marshal {
 
@@ -28,14 +37,36 @@ public class Marshal {
   public static int CO_VARKEYWORDS = 0x0008;
   public static int CO_NESTED = 0x0010;
   public static int CO_GENERATOR = 0x0020;
-  private final PyListObject refs;
+  /** files with at least this many bytes left are mapped instead of read */
+  private static final int MAP_THRESHOLD = 64 * 1024;
+  /** slots of objects flagged with {@link TYPE#FLAG_REF}, null while their range is skipped */
+  private final ArrayList<PyObject> refs;
+  /** buffer offset of the object of each slot of refs */
+  private int[] refOffsets = new int[64];
+  /** the next slot, below refs.size() when a skipped range is unmarshalled again */
+  private int cursor;
+  /** buffer offset of the object being unmarshalled */
+  private int objectStart;
+  private final boolean lazy;
+  /** number of co_consts being unmarshalled, nested code objects are found at depth above 0 */
+  private int depth;
+  /** strings of a mapped buffer are copied here before they are decoded */
+  private byte[] scratch = new byte[256];
   /**
    * flag of being parsed {@link PyObject}
    */
   private int flag;
 
   public Marshal() {
-    refs = new PyListObject();
+    this(false);
+  }
+
+  /**
+   * @param lazy unmarshal the bytecode and the constants of nested code objects on their first use
+   */
+  public Marshal(boolean lazy) {
+    refs = new ArrayList<>();
+    this.lazy = lazy;
   }
 
   public PyObject RREF(PyObject o) {
@@ -43,37 +74,78 @@ public class Marshal {
       assert (flag & TYPE.FLAG_REF) != 0;
       if (o == null)
         return BuiltIn.NULL;
-      refs.app1(o);
+      reserve(o, objectStart);
     }
     return o;
   }
 
+  /** @return the slot to pass to {@link Marshal#RREFInsert(int, PyObject)}, -1 for no slot */
   public int RREFReserve() {
     if (flag != 0) {
-      int size = refs.size();
-      refs.app1(BuiltIn.None);
-      return size;
+      return reserve(null, objectStart);
     }
-    return 0;
+    return -1;
   }
 
   public void RREFInsert(int idx, PyObject o) {
-    if (flag != 0) {
+    // the flag of the object of idx was overwritten by its children
+    if (idx >= 0) {
+      refs.set(idx, o);
+    }
+  }
+
+  /** take the slot at cursor, existing slots are only filled when o is not null */
+  private int reserve(PyObject o, int start) {
+    int idx = cursor++;
+    if (idx == refs.size()) {
+      refs.add(o);
+      if (idx == refOffsets.length) refOffsets = Arrays.copyOf(refOffsets, idx * 2);
+      refOffsets[idx] = start;
+    } else if (o != null) {
       refs.set(idx, o);
     }
+    return idx;
   }
 
   public PyObject loadPyObject(FileInputStream stream) throws IOException, PyException {
-    int size = stream.available();
-    byte[] bytes = new byte[size];
-    var s = stream.read(bytes);
-    return loadPyObject(ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN));
+    return loadPyObject(remaining(stream));
+  }
+
+  /**
+   * the bytes of stream from its position to the end of the file, mapped for large files and read
+   * into the heap for small ones where mapping costs more than it saves. The stream is left at the
+   * end of the file.
+   */
+  private static ByteBuffer remaining(FileInputStream stream) throws IOException {
+    FileChannel channel = stream.getChannel();
+    long position = channel.position();
+    long size = channel.size() - position;
+    ByteBuffer buffer;
+    if (size >= MAP_THRESHOLD) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+      channel.position(position + size);
+    } else {
+      buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+      buffer.flip();
+    }
+    return buffer.order(ByteOrder.LITTLE_ENDIAN);
   }
 
   public PyObject loadPyObject(ByteBuffer buffer) throws PyException {
+    int start = buffer.position();
     int code = (buffer.get() & 0xff);
     int type = code & (~TYPE.FLAG_REF);
     flag = code & TYPE.FLAG_REF;
+    objectStart = start;
+    if (flag != 0 && cursor < refs.size() && hasSlot(type)) {
+      // unmarshalled on demand before its skipped range
+      PyObject done = refs.get(cursor);
+      if (done != null) {
+        skipBody(buffer, type, flag, start);
+        return done;
+      }
+    }
     return switch (type) {
       case TYPE.TYPE_NULL -> BuiltIn.NULL;
       case TYPE.TYPE_NONE -> BuiltIn.None;
@@ -111,13 +183,38 @@ public class Marshal {
       size = (buffer.get() & 0xff);
     else
       size = buffer.getInt();
-    byte[] bytes = new byte[size];
-    buffer.get(bytes);
-    PyUnicodeObject o = new PyUnicodeObject(bytes);
+    String s = decode(buffer, size, isShort ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    PyUnicodeObject o;
+    if (interned) {
+      // names are looked up far more often than they are new, get does not lock
+      o = PyUnicodeObject.internStr.get(s);
+      if (o == null) {
+        PyUnicodeObject created = new PyUnicodeObject(s);
+        o = PyUnicodeObject.internStr.putIfAbsent(s, created);
+        if (o == null) o = created;
+      }
+    } else {
+      o = new PyUnicodeObject(s);
+    }
     RREF(o);
     return o;
   }
 
+  /** decode size bytes at the position of buffer, straight from the backing array of heap buffers */
+  private String decode(ByteBuffer buffer, int size, Charset charset) {
+    int position = buffer.position();
+    String s;
+    if (buffer.hasArray()) {
+      s = new String(buffer.array(), buffer.arrayOffset() + position, size, charset);
+      buffer.position(position + size);
+    } else {
+      if (scratch.length < size) scratch = new byte[Math.max(size, scratch.length * 2)];
+      buffer.get(scratch, 0, size);
+      s = new String(scratch, 0, size, charset);
+    }
+    return s;
+  }
+
   /**
    * see cpython(3.8.16)/Python/marshal.c:953 r_object(RFILE *p)
    *
@@ -130,11 +227,7 @@ public class Marshal {
   }
 
   public PyCodeObject loadCodeObject(FileInputStream stream) throws IOException, PyException {
-    var size = stream.available();
-    byte[] bytes = new byte[size];
-    var s = stream.read(bytes);
-    ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
-    return (PyCodeObject) loadPyObject(buffer);
+    return (PyCodeObject) loadPyObject(remaining(stream));
   }
 
   public PyCodeObject loadCodeObject(ByteBuffer buffer) throws PyException {
@@ -147,8 +240,19 @@ public class Marshal {
     pyCodeObject.setCoStackSize(buffer.getInt());
     pyCodeObject.setCoFlags(buffer.getInt());
 
-    pyCodeObject.setCoCode(loadPyObject(buffer));
-    pyCodeObject.setCoConsts(loadPyObject(buffer));
+    if (lazy && depth > 0) {
+      pyCodeObject.setLazyBody(new LazyBody(buffer, buffer.position(), cursor));
+      skip(buffer);
+      skip(buffer);
+    } else {
+      pyCodeObject.setCoCode(loadPyObject(buffer));
+      depth++;
+      try {
+        pyCodeObject.setCoConsts(loadPyObject(buffer));
+      } finally {
+        depth--;
+      }
+    }
     pyCodeObject.setCoNames(loadPyObject(buffer));
     pyCodeObject.setCoVarNames(loadPyObject(buffer));
     pyCodeObject.setCoFreeVars(loadPyObject(buffer));
@@ -167,9 +271,87 @@ public class Marshal {
     return floatObject;
   }
 
-  private PyObject loadReference(ByteBuffer buffer) {
+  private PyObject loadReference(ByteBuffer buffer) throws PyException {
     int i = buffer.getInt();
-    return refs.get(i);
+    PyObject o = refs.get(i);
+    if (o == null) {
+      // the object is in a skipped range
+      int position = buffer.position();
+      int savedCursor = cursor;
+      int savedFlag = flag;
+      int savedDepth = depth;
+      buffer.position(refOffsets[i]);
+      cursor = i;
+      depth = 1;
+      try {
+        o = loadPyObject(buffer);
+      } finally {
+        buffer.position(position);
+        cursor = savedCursor;
+        flag = savedFlag;
+        depth = savedDepth;
+      }
+    }
+    return o;
+  }
+
+  /** skip the next object, its slots are reserved in the order they are taken by loadPyObject */
+  private int skip(ByteBuffer buffer) {
+    int start = buffer.position();
+    int code = (buffer.get() & 0xff);
+    int type = code & (~TYPE.FLAG_REF);
+    skipBody(buffer, type, code & TYPE.FLAG_REF, start);
+    return type;
+  }
+
+  private void skipBody(ByteBuffer buffer, int type, int ref, int start) {
+    if (ref != 0 && hasSlot(type)) reserve(null, start);
+    switch (type) {
+      case TYPE.TYPE_NULL, TYPE.TYPE_NONE, TYPE.TYPE_STOPITER, TYPE.TYPE_ELLIPSIS,
+          TYPE.TYPE_FALSE, TYPE.TYPE_TRUE -> {}
+      case TYPE.TYPE_INT, TYPE.TYPE_REF -> advance(buffer, 4);
+      case TYPE.TYPE_INT64, TYPE.TYPE_BINARY_FLOAT -> advance(buffer, 8);
+      case TYPE.TYPE_BINARY_COMPLEX -> advance(buffer, 16);
+      case TYPE.TYPE_FLOAT, TYPE.TYPE_COMPLEX -> {
+        advance(buffer, buffer.get() & 0xff);
+        if (type == TYPE.TYPE_COMPLEX) advance(buffer, buffer.get() & 0xff);
+      }
+      case TYPE.TYPE_LONG -> advance(buffer, 2 * Math.abs(buffer.getInt()));
+      case TYPE.TYPE_STRING, TYPE.TYPE_ASCII_INTERNED, TYPE.TYPE_INTERNED, TYPE.TYPE_ASCII,
+          TYPE.TYPE_UNICODE -> advance(buffer, buffer.getInt());
+      case TYPE.TYPE_SHORT_ASCII, TYPE.TYPE_SHORT_ASCII_INTERNED ->
+          advance(buffer, buffer.get() & 0xff);
+      case TYPE.TYPE_SMALL_TUPLE -> skip(buffer, buffer.get() & 0xff);
+      case TYPE.TYPE_TUPLE, TYPE.TYPE_LIST, TYPE.TYPE_SET, TYPE.TYPE_FROZENSET ->
+          skip(buffer, buffer.getInt());
+      case TYPE.TYPE_DICT -> {
+        while (skip(buffer) != TYPE.TYPE_NULL && skip(buffer) != TYPE.TYPE_NULL) {}
+      }
+      case TYPE.TYPE_CODE -> {
+        advance(buffer, 6 * 4);
+        skip(buffer, 8);
+        advance(buffer, 4);
+        skip(buffer);
+      }
+      default -> throw new IllegalStateException("Unexpected value: " + type);
+    }
+  }
+
+  /** whether loadPyObject takes a slot for a flagged object of type */
+  private static boolean hasSlot(int type) {
+    return switch (type) {
+      case TYPE.TYPE_NULL, TYPE.TYPE_NONE, TYPE.TYPE_STOPITER, TYPE.TYPE_ELLIPSIS,
+          TYPE.TYPE_FALSE, TYPE.TYPE_TRUE, TYPE.TYPE_REF -> false;
+      default -> true;
+    };
+  }
+
+  private void skip(ByteBuffer buffer, int n) {
+    for (int i = 0; i < n; i++) skip(buffer);
+  }
+
+  private static void advance(ByteBuffer buffer, int n) {
+    buffer.position(buffer.position() + n);
   }
 
   private PySetObject loadSet(ByteBuffer buffer, boolean isFrozen) throws PyException {
@@ -218,7 +400,10 @@ public class Marshal {
   }
 
   private PyComplexObject loadComplex(ByteBuffer buffer) {
-    PyComplexObject object = new PyComplexObject(loadBinaryFloat(buffer), loadBinaryFloat(buffer));
+    // the parts do not take slots of their own
+    PyComplexObject object =
+        new PyComplexObject(
+            new PyFloatObject(buffer.getDouble()), new PyFloatObject(buffer.getDouble()));
     RREF(object);
     return object;
   }
@@ -282,6 +467,50 @@ public class Marshal {
     return o;
   }
 
+  /**
+   * the skipped bytecode and constants of a nested code object, like the lazy parsing of v8 they
+   * are only unmarshalled when the function is first called. The marshal and its buffer are kept
+   * until then.
+   */
+  public final class LazyBody {
+    private final ByteBuffer buffer;
+    private final int position;
+    private final int ref;
+
+    private LazyBody(ByteBuffer buffer, int position, int ref) {
+      this.buffer = buffer;
+      this.position = position;
+      this.ref = ref;
+    }
+
+    /** set co_code and co_consts of code, the marshal is shared by all code objects of a file */
+    public void load(PyCodeObject code) {
+      synchronized (Marshal.this) {
+        if (code.getLazyBody() != this) return;
+        int savedCursor = cursor;
+        int savedDepth = depth;
+        int savedPosition = buffer.position();
+        buffer.position(position);
+        cursor = ref;
+        depth = 0;
+        try {
+          PyObject coCode = loadPyObject(buffer);
+          depth = 1;
+          code.setCoCode(coCode);
+          code.setCoConsts(loadPyObject(buffer));
+        } catch (PyException e) {
+          // the range was walked once already, it only fails for types we can not unmarshal
+          throw new IllegalStateException("can not unmarshal code object " + code.getCoName(), e);
+        } finally {
+          buffer.position(savedPosition);
+          cursor = savedCursor;
+          depth = savedDepth;
+        }
+        code.setLazyBody(null);
+      }
+    }
+  }
+
   public static class TYPE {
     public static final byte FLAG_REF = (byte) 0x80;
     public static final byte TYPE_NULL = '0';
@@ -0,0 +1,19 @@
+package org.jpvm.objects;
+
+/**
+ * a java method {@code PyObject name(PyTupleObject, PyDictObject)} linked once into a functional
+ * interface instance, see {@link Utils#linkNativeCall(java.lang.reflect.Method)}. Calling it costs
+ * an interface call instead of a reflective {@link java.lang.reflect.Method#invoke}.
+ */
+@FunctionalInterface
+public interface NativeCall {
+
+  /** self is ignored for static methods */
+  PyObject call(Object self, PyTupleObject args, PyDictObject kwArgs) throws Throwable;
+
+  /** shape of static methods, only used while linking */
+  @FunctionalInterface
+  interface Static {
+    PyObject call(PyTupleObject args, PyDictObject kwArgs) throws Throwable;
+  }
+}
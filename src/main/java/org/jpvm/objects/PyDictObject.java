@@ -1,6 +1,8 @@
 package org.jpvm.objects;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jpvm.errors.*;
 import org.jpvm.objects.annotation.PyClassMethod;
 import org.jpvm.objects.pyinterface.TypeDoIterate;
@@ -10,6 +12,7 @@ import org.jpvm.objects.types.PyTypeType;
 import org.jpvm.protocols.PyMappingMethods;
 import org.jpvm.protocols.PyNumberMethods;
 import org.jpvm.protocols.PySequenceMethods;
+import org.jpvm.pvm.FreeThreading;
 import org.jpvm.python.BuiltIn;
 
 public class PyDictObject extends PyObject
@@ -17,15 +20,31 @@ public class PyDictObject extends PyObject
 
   public static PyObject type = new PyDictType();
 
+  /** source of version tags, shared by all dicts so that a tag identifies one state of one dict */
+  private static final AtomicLong versionCounter = new AtomicLong();
+
   private final Map<PyObject, PyObject> map;
 
+  /**
+   * version tag of this dict like ma_version_tag in cpython, it changes on every mutation done
+   * through the methods of this class. Mutations done directly on {@link #getMap()} are not
+   * tracked.
+   */
+  private long version = versionCounter.incrementAndGet();
+
+  /** the type whose namespace this dict is, its version tag is dropped on every mutation */
+  private volatile PyTypeType owner;
+
   public PyDictObject() {
-    this.map = new HashMap<>();
+    // without the gil a dict may be read and written by several threads at once
+    this.map = FreeThreading.ENABLED ? new ConcurrentHashMap<>() : new HashMap<>();
   }
 
   public PyObject put(PyObject key, PyObject val) throws PyException {
     try {
-      return map.put(key, val);
+      PyObject old = map.put(key, val);
+      bumpVersion();
+      return old;
     } catch (ConcurrentModificationException e) {
       throw new PyException("can not put new items while iterating");
     }
@@ -44,13 +63,31 @@ public class PyDictObject extends PyObject
   }
 
   public void addAll(PyDictObject dict) {
-    if (dict != null) map.putAll(dict.getMap());
+    if (dict != null) {
+      map.putAll(dict.getMap());
+      bumpVersion();
+    }
   }
 
   public Map<PyObject, PyObject> getMap() {
     return map;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  private void bumpVersion() {
+    version = versionCounter.incrementAndGet();
+    PyTypeType type = owner;
+    if (type != null) type.modified();
+  }
+
+  /** see {@link PyTypeType#getVersionTag()} */
+  public void setOwner(PyTypeType owner) {
+    this.owner = owner;
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -136,6 +173,7 @@ public class PyDictObject extends PyObject
     if (args.size() == 1) {
       PyObject remove = map.remove(args.get(0));
       if (remove == null) return BuiltIn.None;
+      bumpVersion();
       return remove;
     }
     throw new PyException("dict pop method only require one argument");
@@ -144,6 +182,7 @@ public class PyDictObject extends PyObject
   @PyClassMethod
   public PyObject clear(PyTupleObject args, PyDictObject kwArgs) throws PyException {
     map.clear();
+    bumpVersion();
     return BuiltIn.None;
   }
 
@@ -186,6 +225,7 @@ public class PyDictObject extends PyObject
   public PyObject mpAssSubscript(PyObject key, PyObject val) throws PyKeyError, PyNotImplemented {
     if (null == val) map.remove(key);
     else map.put(key, val);
+    bumpVersion();
     return BuiltIn.None;
   }
 
@@ -2,11 +2,15 @@ package org.jpvm.objects;
 
 import java.util.Arrays;
 import org.jpvm.objects.types.PyFrameType;
+import org.jpvm.pvm.ThreadState;
 import org.jpvm.pycParser.PyCodeObject;
 
 public class PyFrameObject extends PyObject {
 
   public static PyObject type = new PyFrameType();
+  /** frames kept by the freelist of a code object */
+  public static final int FREELIST_SIZE = 16;
+  private static final PyObject[] NO_CELLS = new PyObject[0];
   private final PyCodeObject code;
   /**
    * value stack
@@ -15,6 +19,10 @@ public class PyFrameObject extends PyObject {
   private final PyObject[] localPlus;
   private PyDictObject builtins;
   private PyDictObject globals;
+  /**
+   * created on first use, frames of optimized functions keep their variables in localPlus and never
+   * need it
+   */
   private PyDictObject locals;
   /**
    * shows how many slots of stack have been used
@@ -22,6 +30,10 @@ public class PyFrameObject extends PyObject {
   private int used;
   private boolean isExecuting;
   private PyFrameObject back;
+  /**
+   * index of the instruction which called into the next frame, the caller resumes right after it
+   */
+  private int lastI;
 
   private PyFunctionObject func;
   private PyObject[] cells;
@@ -33,7 +45,6 @@ public class PyFrameObject extends PyObject {
     this.code = code;
     this.builtins = builtins;
     this.globals = globals;
-    this.locals = new PyDictObject();
     stack = new PyObject[code.getCoStackSize()];
     this.back = back;
     localPlus = new PyObject[code.getCoNLocals()];
@@ -47,15 +58,10 @@ public class PyFrameObject extends PyObject {
     this.code = code;
     this.builtins = builtins;
     this.globals = globals;
-    this.locals = new PyDictObject();
     stack = new PyObject[code.getCoStackSize()];
     this.back = back;
     localPlus = new PyObject[code.getCoNLocals()];
-    cells = new PyObject[func.getFreeVarsSize()];
-    var funcClosure = (PyTupleObject)func.getFuncClosure();
-    for (int i = 0; i < func.getFreeVarsSize(); i++) {
-      cells[i] = funcClosure.get(i);
-    }
+    bindCells(func);
   }
 
 
@@ -87,18 +93,13 @@ public class PyFrameObject extends PyObject {
     stack = new PyObject[code.getCoStackSize()];
     this.back = back;
     localPlus = new PyObject[code.getCoNLocals()];
-    cells = new PyObject[func.getFreeVarsSize()];
-    var funcClosure = (PyTupleObject)func.getFuncClosure();
-    for (int i = 0; i < func.getFreeVarsSize(); i++) {
-      cells[i] = funcClosure.get(i);
-    }
+    bindCells(func);
   }
 
   @Deprecated
   public PyFrameObject(PyCodeObject code, PyDictObject builtins, PyFrameObject back) {
     this.code = code;
     this.builtins = builtins;
-    this.locals = new PyDictObject();
     this.globals = new PyDictObject();
     stack = new PyObject[code.getCoStackSize()];
     this.back = back;
@@ -114,6 +115,62 @@ public class PyFrameObject extends PyObject {
     localPlus = new PyObject[code.getCoNLocals()];
   }
 
+  /**
+   * a frame of a call of func, taken from the freelist of code in the thread state ts when it has
+   * one, see {@link #release(ThreadState)}
+   */
+  public static PyFrameObject newFrame(ThreadState ts, PyFunctionObject func, PyCodeObject code,
+                                       PyDictObject builtins,
+                                       PyDictObject globals, PyDictObject locals,
+                                       PyFrameObject back) {
+    Freelist freelist = ts.getFrameFreelist(code);
+    if (freelist.size == 0)
+      return new PyFrameObject(func, code, builtins, globals, locals, back);
+    PyFrameObject f = freelist.frames[--freelist.size];
+    freelist.frames[freelist.size] = null;
+    f.func = func;
+    f.builtins = builtins;
+    f.globals = globals;
+    f.locals = locals;
+    f.back = back;
+    f.bindCells(func);
+    return f;
+  }
+
+  private void bindCells(PyFunctionObject func) {
+    int size = func.getFreeVarsSize();
+    if (size == 0) {
+      cells = NO_CELLS;
+      return;
+    }
+    cells = new PyObject[size];
+    var funcClosure = (PyTupleObject)func.getFuncClosure();
+    for (int i = 0; i < size; i++) {
+      cells[i] = funcClosure.get(i);
+    }
+  }
+
+  /**
+   * give a frame which has returned back to the freelist of its code object in the thread state
+   * ts, nothing may use the frame afterwards. Generator frames and frames which raised are never
+   * released.
+   */
+  public void release(ThreadState ts) {
+    Freelist freelist = ts.getFrameFreelist(code);
+    if (freelist.size == FREELIST_SIZE) return;
+    Arrays.fill(stack, null);
+    Arrays.fill(localPlus, null);
+    used = 0;
+    lastI = 0;
+    func = null;
+    builtins = null;
+    globals = null;
+    locals = null;
+    back = null;
+    cells = null;
+    freelist.frames[freelist.size++] = this;
+  }
+
   public PyFunctionObject getFunc() {
     return func;
   }
@@ -160,6 +217,7 @@ public class PyFrameObject extends PyObject {
   }
 
   public PyDictObject getLocals() {
+    if (locals == null) locals = new PyDictObject();
     return locals;
   }
 
@@ -179,6 +237,14 @@ public class PyFrameObject extends PyObject {
     this.back = back;
   }
 
+  public int getLastI() {
+    return lastI;
+  }
+
+  public void setLastI(int lastI) {
+    this.lastI = lastI;
+  }
+
   public boolean isExecuting() {
     return isExecuting;
   }
@@ -223,6 +289,11 @@ public class PyFrameObject extends PyObject {
     return stack[idx];
   }
 
+  /** the value stack itself, used to pass arguments to vectorcall without copying them */
+  public PyObject[] getStack() {
+    return stack;
+  }
+
   public void decreaseStackPointer(int delta) {
     used -= delta;
   }
@@ -239,6 +310,11 @@ public class PyFrameObject extends PyObject {
     localPlus[idx] = o;
   }
 
+  /** copy count values of src starting at srcPos into the first local slots */
+  public void setLocals(PyObject[] src, int srcPos, int count) {
+    System.arraycopy(src, srcPos, localPlus, 0, count);
+  }
+
   public PyUnicodeObject getModuleName() {
     if (func != null) {
       return (PyUnicodeObject)func.getFuncModule();
@@ -246,6 +322,22 @@ public class PyFrameObject extends PyObject {
     return null;
   }
 
+  /**
+   * frames of one code object which have returned, like co_zombieframe of cpython but holding up to
+   * {@link #FREELIST_SIZE} frames so that recursive calls reuse them too. Every thread has its own
+   * freelist of a code object, see {@link ThreadState#getFrameFreelist(PyCodeObject)}, so it needs
+   * no synchronization.
+   */
+  public static final class Freelist {
+    private final PyFrameObject[] frames = new PyFrameObject[FREELIST_SIZE];
+    private int size;
+
+    /** frames ready to be reused */
+    public int size() {
+      return size;
+    }
+  }
+
   @Override
   public String toString() {
     return "PyFrameObject{" +
@@ -1,13 +1,17 @@
 package org.jpvm.objects;
 
+import org.jpvm.errors.PyException;
 import org.jpvm.errors.PyNotImplemented;
 import org.jpvm.objects.pyinterface.TypeDescriptorGet;
+import org.jpvm.objects.pyinterface.TypeVectorCall;
 import org.jpvm.objects.types.PyFunctionType;
+import org.jpvm.pvm.Abstract;
+import org.jpvm.pvm.ThreadState;
 import org.jpvm.pycParser.PyCodeObject;
 import org.jpvm.python.BuiltIn;
 
 public class PyFunctionObject extends PyObject
-        implements TypeDescriptorGet {
+        implements TypeDescriptorGet, TypeVectorCall {
 
   public static PyObject type = new PyFunctionType();
   public static PyDictObject zero = new PyDictObject();
@@ -233,6 +237,13 @@ public class PyFunctionObject extends PyObject
     return ((PyCodeObject)funcCode).freeVarsSize();
   }
 
+  @Override
+  public PyObject vectorCall(
+      ThreadState ts, PyObject[] args, int offset, int nargs, PyFrameObject back)
+      throws PyException {
+    return Abstract.vectorCallFunction(ts, this, args, offset, nargs, back);
+  }
+
   @Override
   public PyObject descrGet(PyObject obj, PyObject cls) throws PyNotImplemented {
     return new PyMethodObject(obj, this, ((PyUnicodeObject)funcName).getData());
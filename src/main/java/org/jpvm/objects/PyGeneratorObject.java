@@ -87,7 +87,7 @@ public class PyGeneratorObject extends PyObject implements TypeDoIterate,
       }
     }
     PyObject res = evalLoop.pyEvalFrame();
-    if (!evalLoop.getIterator().hasNext())
+    if (evalLoop.isFinished())
       return BuiltIn.PyExcStopIteration;
     else
       return res;
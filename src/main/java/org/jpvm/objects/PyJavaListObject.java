@@ -0,0 +1,287 @@
+package org.jpvm.objects;
+
+import java.util.List;
+import org.jpvm.errors.PyException;
+import org.jpvm.errors.PyIndexOutOfBound;
+import org.jpvm.errors.PyTypeNotMatch;
+import org.jpvm.internal.NumberHelper;
+import org.jpvm.objects.annotation.PyClassMethod;
+import org.jpvm.objects.pyinterface.TypeDoIterate;
+import org.jpvm.objects.pyinterface.TypeIterable;
+import org.jpvm.objects.types.PyTypeType;
+import org.jpvm.protocols.PyMappingMethods;
+import org.jpvm.protocols.PySequenceMethods;
+import org.jpvm.python.BuiltIn;
+
+/**
+ * a java list seen as a python sequence without copying it, elements are converted when they are
+ * read and written, so python code and java code share the same list. Primitive arrays are wrapped
+ * through a fixed size list. Views are only created by {@link Utils#transformToPyView(Object)}.
+ */
+public class PyJavaListObject extends PyObject
+    implements TypeIterable, PySequenceMethods, PyMappingMethods {
+
+  public static PyObject type = new PyJavaListType();
+
+  @SuppressWarnings("rawtypes")
+  private final List list;
+
+  public PyJavaListObject(List<?> list) {
+    this.list = list;
+  }
+
+  public int size() {
+    return list.size();
+  }
+
+  private int index(PyObject o) throws PyException {
+    Long n = NumberHelper.transformPyObject2Long(o);
+    if (n == null) throw new PyTypeNotMatch("list indices must be integers");
+    long idx = n < 0 ? n + list.size() : n;
+    if (idx < 0 || idx >= list.size())
+      throw new PyIndexOutOfBound("index " + n + " out of bound");
+    return (int) idx;
+  }
+
+  @Override
+  public PyObject sqLength(PyObject o) {
+    return new PyLongObject(list.size());
+  }
+
+  @Override
+  public PyObject mpLength(PyObject o) {
+    return sqLength(o);
+  }
+
+  @Override
+  public PyObject mpSubscript(PyObject o) throws PyIndexOutOfBound, PyTypeNotMatch {
+    try {
+      if (o instanceof PySliceObject slice) {
+        PyListObject idx = slice.unpacked(this);
+        PyListObject result = new PyListObject(idx.size());
+        for (int i = 0; i < idx.size(); i++) {
+          int index = (int) ((PyLongObject) idx.get(i)).getData();
+          result.append(Utils.elementToPyObject(list.get(index)));
+        }
+        return result;
+      }
+      return Utils.elementToPyObject(list.get(index(o)));
+    } catch (PyIndexOutOfBound | PyTypeNotMatch e) {
+      throw e;
+    } catch (PyException e) {
+      throw new PyTypeNotMatch(e.getMessage());
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public PyObject sqAssItem(PyObject key, PyObject val) throws PyException {
+    try {
+      if (key instanceof PySliceObject slice) {
+        // the size of a java list view only changes through its methods
+        PyListObject idx = slice.unpacked(this);
+        if (!(val instanceof TypeIterable iterable))
+          throw new PyTypeNotMatch("can only assign an iterable");
+        TypeDoIterate values = iterable.getIterator();
+        if (values.size() != idx.size())
+          throw new PyException(
+              "can not assign " + values.size() + " items to a slice of " + idx.size());
+        for (int i = 0; i < idx.size(); i++) {
+          int index = (int) ((PyLongObject) idx.get(i)).getData();
+          list.set(index, Utils.elementFromPyObject(values.next(), list.get(index)));
+        }
+        return BuiltIn.None;
+      }
+      int idx = index(key);
+      list.set(idx, Utils.elementFromPyObject(val, list.get(idx)));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  private static PyException readOnly() {
+    return new PyException("can not modify an unmodifiable or fixed size java list");
+  }
+
+  private Object sample() {
+    return list.isEmpty() ? null : list.get(0);
+  }
+
+  @Override
+  public PyObject sqContain(PyObject o) throws PyException {
+    TypeDoIterate iterator = getIterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().richCompare(o, Operator.Py_EQ).isTrue()) return BuiltIn.True;
+    }
+    return BuiltIn.False;
+  }
+
+  @PyClassMethod
+  @SuppressWarnings("unchecked")
+  public PyObject append(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1) throw new PyException("append() takes exactly one argument");
+    try {
+      list.add(Utils.elementFromPyObject(args.get(0), sample()));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  @SuppressWarnings("unchecked")
+  public PyObject extend(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1 || !(args.get(0) instanceof TypeIterable iterable))
+      throw new PyException("extend() takes exactly one iterable argument");
+    Object like = sample();
+    TypeDoIterate iterator = iterable.getIterator();
+    try {
+      while (iterator.hasNext()) list.add(Utils.elementFromPyObject(iterator.next(), like));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  @SuppressWarnings("unchecked")
+  public PyObject insert(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 2) throw new PyException("insert() takes exactly two arguments");
+    Long n = NumberHelper.transformPyObject2Long(args.get(0));
+    if (n == null) throw new PyTypeNotMatch("list indices must be integers");
+    // out of range positions are clamped as by list.insert
+    long idx = n < 0 ? Math.max(0, n + list.size()) : Math.min(n, list.size());
+    try {
+      list.add((int) idx, Utils.elementFromPyObject(args.get(1), sample()));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  public PyObject pop(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() > 1) throw new PyException("pop() takes at most one argument");
+    if (list.isEmpty()) throw new PyIndexOutOfBound("pop from empty list");
+    int idx = args.size() == 0 ? list.size() - 1 : index(args.get(0));
+    try {
+      return Utils.elementToPyObject(list.remove(idx));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+  }
+
+  @PyClassMethod
+  public PyObject index(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1) throw new PyException("index() takes exactly one argument");
+    TypeDoIterate iterator = getIterator();
+    for (int i = 0; iterator.hasNext(); i++) {
+      if (iterator.next().richCompare(args.get(0), Operator.Py_EQ).isTrue())
+        return new PyLongObject(i);
+    }
+    throw new PyException(args.get(0).repr() + " is not in list");
+  }
+
+  @PyClassMethod
+  public PyObject count(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1) throw new PyException("count() takes exactly one argument");
+    long res = 0;
+    TypeDoIterate iterator = getIterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().richCompare(args.get(0), Operator.Py_EQ).isTrue()) res++;
+    }
+    return new PyLongObject(res);
+  }
+
+  @PyClassMethod
+  public PyObject clear(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    try {
+      list.clear();
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  @Override
+  public TypeDoIterate getIterator() {
+    return new PyJavaListItrObject();
+  }
+
+  @Override
+  public Object toJavaType() {
+    return list;
+  }
+
+  @Override
+  public PyObject getType() {
+    return type;
+  }
+
+  @Override
+  public PyUnicodeObject getTypeName() {
+    return type.getTypeName();
+  }
+
+  @Override
+  public PyUnicodeObject str() {
+    return new PyUnicodeObject(toString());
+  }
+
+  @Override
+  public PyUnicodeObject repr() {
+    return str();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("[");
+    for (Object o : list) {
+      builder.append(Utils.elementRepr(o));
+      builder.append(", ");
+    }
+    if (builder.length() > 2) builder.delete(builder.length() - 2, builder.length());
+    builder.append("]");
+    return builder.toString();
+  }
+
+  public static class PyJavaListType extends PyTypeType {
+    public PyJavaListType() {
+      super(PyJavaListObject.class);
+      name = "java_list";
+    }
+  }
+
+  private class PyJavaListItrObject extends PyObject implements TypeDoIterate {
+
+    private int idx;
+
+    @Override
+    public PyObject next() throws PyException {
+      if (hasNext()) return Utils.elementToPyObject(list.get(idx++));
+      return BuiltIn.PyExcStopIteration;
+    }
+
+    @Override
+    public PyObject get(int idx) throws PyIndexOutOfBound {
+      if (idx >= size()) throw new PyIndexOutOfBound("index " + idx + " out of bound");
+      try {
+        return Utils.elementToPyObject(list.get(idx));
+      } catch (PyException e) {
+        throw new PyIndexOutOfBound(e.getMessage());
+      }
+    }
+
+    @Override
+    public int size() {
+      return list.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return idx < list.size();
+    }
+  }
+}
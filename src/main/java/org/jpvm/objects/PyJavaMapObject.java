@@ -0,0 +1,247 @@
+package org.jpvm.objects;
+
+import java.util.Iterator;
+import java.util.Map;
+import org.jpvm.errors.PyException;
+import org.jpvm.errors.PyIndexOutOfBound;
+import org.jpvm.errors.PyKeyError;
+import org.jpvm.errors.PyTypeNotMatch;
+import org.jpvm.objects.annotation.PyClassMethod;
+import org.jpvm.objects.pyinterface.TypeDoIterate;
+import org.jpvm.objects.pyinterface.TypeIterable;
+import org.jpvm.objects.types.PyTypeType;
+import org.jpvm.protocols.PyMappingMethods;
+import org.jpvm.protocols.PySequenceMethods;
+import org.jpvm.python.BuiltIn;
+
+/**
+ * a java map seen as a python dict without copying it, keys and values are converted when they are
+ * read and written, see {@link PyJavaListObject}. Iterating it yields the keys.
+ */
+public class PyJavaMapObject extends PyObject
+    implements TypeIterable, PyMappingMethods, PySequenceMethods {
+
+  public static PyObject type = new PyJavaMapType();
+
+  @SuppressWarnings("rawtypes")
+  private final Map map;
+
+  public PyJavaMapObject(Map<?, ?> map) {
+    this.map = map;
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  /** key of map for a python key, narrowed to the class of the stored keys */
+  private Object key(PyObject key) throws PyException {
+    Object like = map.isEmpty() ? null : map.keySet().iterator().next();
+    return Utils.elementFromPyObject(key, like);
+  }
+
+  @Override
+  public PyObject mpLength(PyObject o) {
+    return new PyLongObject(map.size());
+  }
+
+  @Override
+  public PyObject sqLength(PyObject o) {
+    return mpLength(o);
+  }
+
+  @Override
+  public PyObject mpSubscript(PyObject o) throws PyIndexOutOfBound, PyKeyError, PyTypeNotMatch {
+    try {
+      Object key = key(o);
+      Object value = map.get(key);
+      if (value == null && !map.containsKey(key)) throw new PyKeyError(o.repr() + " not found");
+      return Utils.elementToPyObject(value);
+    } catch (PyKeyError | PyTypeNotMatch e) {
+      throw e;
+    } catch (PyException e) {
+      throw new PyTypeNotMatch(e.getMessage());
+    }
+  }
+
+  @Override
+  public PyObject mpAssSubscript(PyObject key, PyObject val) throws PyKeyError {
+    try {
+      if (val == null) map.remove(key(key));
+      else put(key, val);
+    } catch (PyException e) {
+      throw new PyKeyError(e.getMessage());
+    } catch (UnsupportedOperationException e) {
+      throw new PyKeyError(readOnly().getMessage());
+    }
+    return BuiltIn.None;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void put(PyObject key, PyObject val) throws PyException {
+    Object k = key(key);
+    Object old = map.get(k);
+    if (old == null && !map.isEmpty()) old = map.values().iterator().next();
+    try {
+      map.put(k, Utils.elementFromPyObject(val, old));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+  }
+
+  @Override
+  public PyObject sqContain(PyObject o) throws PyException {
+    return map.containsKey(key(o)) ? BuiltIn.True : BuiltIn.False;
+  }
+
+  @PyClassMethod
+  public PyObject get(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() == 0 || args.size() > 2)
+      throw new PyException("get() takes one or two arguments");
+    Object key = key(args.get(0));
+    if (!map.containsKey(key)) return args.size() == 2 ? args.get(1) : BuiltIn.None;
+    return Utils.elementToPyObject(map.get(key));
+  }
+
+  @PyClassMethod
+  public PyObject values(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    PyListObject res = new PyListObject(map.size());
+    for (Object value : map.values()) res.append(Utils.elementToPyObject(value));
+    return res;
+  }
+
+  @PyClassMethod
+  public PyObject pop(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() == 0 || args.size() > 2)
+      throw new PyException("pop() takes one or two arguments");
+    Object key = key(args.get(0));
+    if (!map.containsKey(key)) {
+      if (args.size() == 2) return args.get(1);
+      throw new PyKeyError(args.get(0).repr() + " not found");
+    }
+    try {
+      return Utils.elementToPyObject(map.remove(key));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+  }
+
+  @PyClassMethod
+  public PyObject update(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1 || !(args.get(0) instanceof PyDictObject dict))
+      throw new PyException("update() takes exactly one dict argument");
+    PyDictObject.PyDictItemsObject items = (PyDictObject.PyDictItemsObject) dict.items();
+    TypeDoIterate iterator = items.getIterator();
+    while (iterator.hasNext()) {
+      PyTupleObject item = (PyTupleObject) iterator.next();
+      put(item.get(0), item.get(1));
+    }
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  public PyObject clear(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    try {
+      map.clear();
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  private static PyException readOnly() {
+    return new PyException("can not modify an unmodifiable java map");
+  }
+
+  @PyClassMethod
+  public PyObject keys(PyTupleObject args, PyDictObject kwArgs) {
+    return new PyJavaSetObject(map.keySet());
+  }
+
+  @PyClassMethod
+  public PyObject items(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    PyListObject res = new PyListObject(map.size());
+    for (Object o : map.entrySet()) {
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+      PyTupleObject item = new PyTupleObject(2);
+      item.set(0, Utils.elementToPyObject(entry.getKey()));
+      item.set(1, Utils.elementToPyObject(entry.getValue()));
+      res.append(item);
+    }
+    return res;
+  }
+
+  @Override
+  public TypeDoIterate getIterator() {
+    return new PyJavaMapItrObject();
+  }
+
+  @Override
+  public Object toJavaType() {
+    return map;
+  }
+
+  @Override
+  public PyObject getType() {
+    return type;
+  }
+
+  @Override
+  public PyUnicodeObject getTypeName() {
+    return type.getTypeName();
+  }
+
+  @Override
+  public PyUnicodeObject str() {
+    return new PyUnicodeObject(toString());
+  }
+
+  @Override
+  public PyUnicodeObject repr() {
+    return str();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{");
+    for (Object o : map.entrySet()) {
+      var entry = (Map.Entry<?, ?>) o;
+      builder.append(Utils.elementRepr(entry.getKey()));
+      builder.append(": ");
+      builder.append(Utils.elementRepr(entry.getValue()));
+      builder.append(", ");
+    }
+    if (builder.length() > 2) builder.delete(builder.length() - 2, builder.length());
+    builder.append("}");
+    return builder.toString();
+  }
+
+  public static class PyJavaMapType extends PyTypeType {
+    public PyJavaMapType() {
+      super(PyJavaMapObject.class);
+      name = "java_map";
+    }
+  }
+
+  private class PyJavaMapItrObject extends PyObject implements TypeDoIterate {
+
+    private final Iterator<?> iterator = map.keySet().iterator();
+
+    @Override
+    public PyObject next() throws PyException {
+      if (iterator.hasNext()) return Utils.elementToPyObject(iterator.next());
+      return BuiltIn.PyExcStopIteration;
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package org.jpvm.objects;
+
+import java.util.Iterator;
+import java.util.Set;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.annotation.PyClassMethod;
+import org.jpvm.objects.pyinterface.TypeDoIterate;
+import org.jpvm.objects.pyinterface.TypeIterable;
+import org.jpvm.objects.types.PyTypeType;
+import org.jpvm.protocols.PySequenceMethods;
+import org.jpvm.python.BuiltIn;
+
+/**
+ * a java set seen as a python set without copying it, elements are converted when they are read and
+ * written, see {@link PyJavaListObject}
+ */
+public class PyJavaSetObject extends PyObject implements TypeIterable, PySequenceMethods {
+
+  public static PyObject type = new PyJavaSetType();
+
+  @SuppressWarnings("rawtypes")
+  private final Set set;
+
+  public PyJavaSetObject(Set<?> set) {
+    this.set = set;
+  }
+
+  public int size() {
+    return set.size();
+  }
+
+  /** an element of the set, used to narrow the numbers given by python */
+  private Object sample() {
+    return set.isEmpty() ? null : set.iterator().next();
+  }
+
+  @Override
+  public PyObject sqLength(PyObject o) {
+    return new PyLongObject(set.size());
+  }
+
+  @Override
+  public PyObject sqContain(PyObject o) throws PyException {
+    return set.contains(Utils.elementFromPyObject(o, sample())) ? BuiltIn.True : BuiltIn.False;
+  }
+
+  @PyClassMethod
+  @SuppressWarnings("unchecked")
+  public PyObject add(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1) throw new PyException("add() takes exactly one argument");
+    try {
+      set.add(Utils.elementFromPyObject(args.get(0), sample()));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  public PyObject remove(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1) throw new PyException("remove() takes exactly one argument");
+    if (!discard(args.get(0))) throw new PyException(args.get(0).repr() + " not in set");
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  public PyObject discard(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    if (args.size() != 1) throw new PyException("discard() takes exactly one argument");
+    discard(args.get(0));
+    return BuiltIn.None;
+  }
+
+  @PyClassMethod
+  public PyObject clear(PyTupleObject args, PyDictObject kwArgs) throws PyException {
+    try {
+      set.clear();
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+    return BuiltIn.None;
+  }
+
+  private boolean discard(PyObject o) throws PyException {
+    try {
+      return set.remove(Utils.elementFromPyObject(o, sample()));
+    } catch (UnsupportedOperationException e) {
+      throw readOnly();
+    }
+  }
+
+  private static PyException readOnly() {
+    return new PyException("can not modify an unmodifiable java set");
+  }
+
+  @Override
+  public TypeDoIterate getIterator() {
+    return new PyJavaSetItrObject();
+  }
+
+  @Override
+  public Object toJavaType() {
+    return set;
+  }
+
+  @Override
+  public PyObject getType() {
+    return type;
+  }
+
+  @Override
+  public PyUnicodeObject getTypeName() {
+    return type.getTypeName();
+  }
+
+  @Override
+  public PyUnicodeObject str() {
+    return new PyUnicodeObject(toString());
+  }
+
+  @Override
+  public PyUnicodeObject repr() {
+    return str();
+  }
+
+  @Override
+  public String toString() {
+    // {} is an empty dict in python
+    if (set.isEmpty()) return "set()";
+    StringBuilder builder = new StringBuilder();
+    builder.append("{");
+    for (Object o : set) {
+      builder.append(Utils.elementRepr(o));
+      builder.append(", ");
+    }
+    builder.delete(builder.length() - 2, builder.length());
+    builder.append("}");
+    return builder.toString();
+  }
+
+  public static class PyJavaSetType extends PyTypeType {
+    public PyJavaSetType() {
+      super(PyJavaSetObject.class);
+      name = "java_set";
+    }
+  }
+
+  private class PyJavaSetItrObject extends PyObject implements TypeDoIterate {
+
+    private final Iterator<?> iterator = set.iterator();
+
+    @Override
+    public PyObject next() throws PyException {
+      if (iterator.hasNext()) return Utils.elementToPyObject(iterator.next());
+      return BuiltIn.PyExcStopIteration;
+    }
+
+    @Override
+    public int size() {
+      return set.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package org.jpvm.objects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import org.jpvm.errors.*;
@@ -15,6 +16,7 @@ import org.jpvm.protocols.PyMappingMethods;
 import org.jpvm.protocols.PyNumberMethods;
 import org.jpvm.protocols.PySequenceMethods;
 import org.jpvm.pvm.Abstract;
+import org.jpvm.pvm.FreeThreading;
 import org.jpvm.python.BuiltIn;
 
 public class PyListObject extends PyObject
@@ -29,7 +31,27 @@ public class PyListObject extends PyObject
   }
 
   public PyListObject(int size) {
-    obItem = new ArrayList<>(size);
+    obItem =
+        FreeThreading.ENABLED
+            ? Collections.synchronizedList(new ArrayList<>(size))
+            : new ArrayList<>(size);
+  }
+
+  /**
+   * the items to loop over. A synchronized list only locks single operations, so in free-threaded
+   * mode this is a copy taken under its lock, other threads may then append or remove items while
+   * the copy is iterated
+   */
+  private List<PyObject> items() {
+    return FreeThreading.ENABLED ? Arrays.asList(obItem.toArray(new PyObject[0])) : obItem;
+  }
+
+  /** item idx, null if the list has no such item any more */
+  private PyObject itemOrNull(int idx) {
+    if (!FreeThreading.ENABLED) return idx < obItem.size() ? obItem.get(idx) : null;
+    synchronized (obItem) {
+      return idx < obItem.size() ? obItem.get(idx) : null;
+    }
   }
 
   public static PyBoolObject check(PyObject o) {
@@ -84,7 +106,7 @@ public class PyListObject extends PyObject
   public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("[");
-    for (PyObject object : obItem) {
+    for (PyObject object : items()) {
       builder.append(object.toString());
       builder.append(", ");
     }
@@ -117,7 +139,7 @@ public class PyListObject extends PyObject
   public PyUnicodeObject str() {
     StringBuilder builder = new StringBuilder();
     builder.append("[");
-    for (PyObject object : obItem) {
+    for (PyObject object : items()) {
       builder.append(object.repr());
       builder.append(", ");
     }
@@ -135,10 +157,12 @@ public class PyListObject extends PyObject
   public PyBoolObject richCompare(PyObject o, Operator op) throws PyException {
     if (op == Operator.Py_EQ) {
       if (!(o instanceof PyListObject list)) return BuiltIn.False;
-      int s = size();
-      if (s != list.size()) return BuiltIn.False;
+      List<PyObject> self = items();
+      List<PyObject> other = list.items();
+      int s = self.size();
+      if (s != other.size()) return BuiltIn.False;
       for (int i = 0; i < s; i++) {
-        if (get(i).richCompare(list.get(i), Operator.Py_EQ).isFalse()) return BuiltIn.False;
+        if (self.get(i).richCompare(other.get(i), Operator.Py_EQ).isFalse()) return BuiltIn.False;
       }
       return BuiltIn.True;
     }
@@ -150,10 +174,9 @@ public class PyListObject extends PyObject
     if (!(o instanceof PyLongObject data)) {
       throw new PyTypeNotMatch("require type int");
     }
-    int s = size();
-    for (int i = 0; i < data.getData(); i++) {
-      for (int j = 0; j < s; ++j) append(get(j));
-    }
+    // a copy, as the list grows while the items are added
+    List<PyObject> items = new ArrayList<>(obItem);
+    for (int i = 0; i < data.getData(); i++) obItem.addAll(items);
     return this;
   }
 
@@ -235,10 +258,8 @@ public class PyListObject extends PyObject
     if (!(o instanceof PyListObject l))
       throw new PyTypeNotMatch("list concat require data type list");
     PyListObject list = new PyListObject();
-    for (PyObject object : obItem) {
-      list.append(object);
-    }
-    for (int i = 0; i < l.size(); ++i) list.append(l.get(i));
+    list.obItem.addAll(items());
+    list.obItem.addAll(l.items());
     return list;
   }
 
@@ -247,11 +268,8 @@ public class PyListObject extends PyObject
     PyListObject list = new PyListObject();
     Long n = NumberHelper.transformPyObject2Long(o);
     if (n == null) throw new PyTypeNotMatch("require PyNumberMethods type");
-    for (int i = 0; i < n.intValue(); ++i) {
-      for (PyObject object : obItem) {
-        list.append(object);
-      }
-    }
+    List<PyObject> items = items();
+    for (int i = 0; i < n.intValue(); ++i) list.obItem.addAll(items);
     return list;
   }
 
@@ -332,7 +350,7 @@ public class PyListObject extends PyObject
 
   @Override
   public PyObject sqContain(PyObject o) throws PyException {
-    for (PyObject object : obItem) {
+    for (PyObject object : items()) {
       if (object.richCompare(o, Operator.Py_EQ).isTrue()) return BuiltIn.True;
     }
     return BuiltIn.False;
@@ -342,10 +360,8 @@ public class PyListObject extends PyObject
   public PyObject sqInplaceRepeat(PyObject o) throws PyTypeNotMatch {
     Long n = NumberHelper.transformPyObject2Long(o);
     if (n == null) throw new PyTypeNotMatch("require PyNumberMethods type");
-    int size = size();
-    for (int i = 0; i < n.intValue(); ++i) {
-      for (int j = 0; j < size; ++j) obItem.add(obItem.get(j));
-    }
+    List<PyObject> items = new ArrayList<>(obItem);
+    for (int i = 0; i < n.intValue(); ++i) obItem.addAll(items);
     return this;
   }
 
@@ -402,8 +418,9 @@ public class PyListObject extends PyObject
   public PyObject index(PyTupleObject args, PyDictObject kwArgs) throws PyException {
     if (args.size() == 1) {
       PyObject o = args.get(0);
-      for (int i = 0; i < obItem.size(); i++) {
-        if (o.richCompare(obItem.get(i), Operator.Py_EQ).isTrue())
+      List<PyObject> items = items();
+      for (int i = 0; i < items.size(); i++) {
+        if (o.richCompare(items.get(i), Operator.Py_EQ).isTrue())
           return PyLongObject.getLongObject(i);
       }
       return PyLongObject.getLongObject(-1);
@@ -435,7 +452,7 @@ public class PyListObject extends PyObject
     int cnt = 0;
     if (args.size() == 1) {
       PyObject o = args.get(0);
-      for (PyObject object : obItem) {
+      for (PyObject object : items()) {
         if (object.richCompare(o, Operator.Py_EQ).isTrue()) {
           cnt++;
         }
@@ -504,7 +521,7 @@ public class PyListObject extends PyObject
   }
 
   public void addAll(PyListObject o) {
-    for (int i = 0; i < o.size(); i++) append(o.get(i));
+    obItem.addAll(o.items());
   }
 
   public static class PyListItrType extends PyTypeType implements TypeName {
@@ -525,8 +542,10 @@ public class PyListObject extends PyObject
 
     @Override
     public PyObject next() {
-      if (idx < obItem.size()) {
-        return obItem.get(idx++);
+      PyObject item = itemOrNull(idx);
+      if (item != null) {
+        idx++;
+        return item;
       }
       return BuiltIn.PyExcStopIteration;
     }
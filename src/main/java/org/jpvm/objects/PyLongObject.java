@@ -15,7 +15,14 @@ public class PyLongObject extends PyObject
 
     public static PyObject type = new PyLongType();
 
-    public static PyLongObject[] miniPool = new PyLongObject[256 + 5];
+    /** filled once when the class is initialized, so threads never race on creating the small ints */
+    public static final PyLongObject[] miniPool = new PyLongObject[256 + 5];
+
+    static {
+        for (int i = 0; i < miniPool.length; i++) {
+            miniPool[i] = new PyLongObject(i - 5);
+        }
+    }
 
     private long data;
 
@@ -38,9 +45,6 @@ public class PyLongObject extends PyObject
     public static PyLongObject getLongObject(long num) {
         int idx = (int) num + 5;
         if (num <= 255 && num >= -5) {
-            if (miniPool[idx] == null) {
-                miniPool[idx] = new PyLongObject(num);
-            }
             return miniPool[idx];
         } else {
             return new PyLongObject(num);
@@ -1,29 +1,33 @@
 package org.jpvm.objects;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import org.jpvm.errors.PyException;
+import org.jpvm.objects.pyinterface.TypeVectorCall;
 import org.jpvm.objects.types.PyMethodType;
 import org.jpvm.pvm.Abstract;
+import org.jpvm.pvm.ThreadState;
 
-public class PyMethodObject extends PyObject {
+public class PyMethodObject extends PyObject implements TypeVectorCall {
 
   public static PyObject type = new PyMethodType();
 
   private PyObject self;
   private final String methodName;
   private Method method;
+  private NativeCall nativeCall;
   private PyFunctionObject functionObject;
 
   public PyMethodObject(PyObject self, Method method, String methodName) {
     this.self = self;
     this.method = method;
     this.methodName = methodName;
+    nativeCall = Utils.linkNativeCall(method);
   }
 
   public PyMethodObject(Method method, String methodName) {
     this.method = method;
     this.methodName = methodName;
+    nativeCall = Utils.linkNativeCall(method);
   }
 
   public PyMethodObject(PyObject self, PyFunctionObject functionObject, String methodName) {
@@ -67,24 +71,54 @@ public class PyMethodObject extends PyObject {
 
   @Override
   public PyObject call(PyObject self, PyTupleObject args, PyDictObject kwArgs) throws PyException {
-    try {
-      if (method != null) {
-        if (null != this.self) return (PyObject) method.invoke(this.self, args, kwArgs);
-        else {
-          self = args.get(0);
-          PyTupleObject eliArgs = new PyTupleObject(args.size() - 1);
-          for (int i = 1; i < args.size(); i++) {
-            eliArgs.set(i - 1, args.get(i));
-          }
-          return (PyObject) method.invoke(self, eliArgs, kwArgs);
+    if (method != null) {
+      if (null == this.self) {
+        self = args.get(0);
+        PyTupleObject eliArgs = new PyTupleObject(args.size() - 1);
+        for (int i = 1; i < args.size(); i++) {
+          eliArgs.set(i - 1, args.get(i));
         }
-      } else {
-        // pass self to class function
-        args = Utils.packSelfAsTuple(this.self, args);
-        return Abstract.abstractCall(functionObject, null, args, kwArgs);
+        args = eliArgs;
+      } else self = this.self;
+      try {
+        return nativeCall.call(self, args, kwArgs);
+      } catch (Throwable e) {
+        throw new PyException(e.getMessage());
       }
-    } catch (IllegalAccessException | InvocationTargetException e) {
-      throw new PyException(e.getCause().getMessage());
     }
+    // pass self to class function
+    args = Utils.packSelfAsTuple(this.self, args);
+    return Abstract.abstractCall(functionObject, null, args, kwArgs);
+  }
+
+  /**
+   * a bound python method puts self in args[offset - 1] and calls the function without copying
+   * the arguments, java methods copy them once into the tuple they require
+   */
+  @Override
+  public PyObject vectorCall(
+      ThreadState ts, PyObject[] args, int offset, int nargs, PyFrameObject back)
+      throws PyException {
+    if (method != null) {
+      PyObject receiver = self;
+      PyTupleObject tuple;
+      if (receiver == null) {
+        receiver = args[offset];
+        tuple = Abstract.packArgs(args, offset + 1, nargs - 1);
+      } else tuple = Abstract.packArgs(args, offset, nargs);
+      try {
+        return nativeCall.call(receiver, tuple, null);
+      } catch (Throwable e) {
+        throw new PyException(e.getMessage());
+      }
+    }
+    if (offset > 0) {
+      args[offset - 1] = self;
+      return Abstract.vectorCall(ts, functionObject, args, offset - 1, nargs + 1, back);
+    }
+    PyObject[] packed = new PyObject[nargs + 1];
+    packed[0] = self;
+    System.arraycopy(args, offset, packed, 1, nargs);
+    return Abstract.vectorCall(ts, functionObject, packed, 0, nargs + 1, back);
   }
 }
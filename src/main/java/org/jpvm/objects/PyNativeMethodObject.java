@@ -1,32 +1,43 @@
 package org.jpvm.objects;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import org.jpvm.errors.PyException;
+import org.jpvm.objects.pyinterface.TypeVectorCall;
 import org.jpvm.objects.types.PyNativeMethodType;
+import org.jpvm.pvm.Abstract;
+import org.jpvm.pvm.ThreadState;
 
-public class PyNativeMethodObject extends PyObject {
+public class PyNativeMethodObject extends PyObject implements TypeVectorCall {
 
   public static PyObject type = new PyNativeMethodType();
 
   private final Method method;
+  private final NativeCall nativeCall;
 
   private final boolean isStatic;
 
   public PyNativeMethodObject(Method method, boolean isStatic) {
     this.method = method;
     this.isStatic = isStatic;
+    nativeCall = Utils.linkNativeCall(method);
   }
 
   @Override
   public PyObject call(PyObject self, PyTupleObject args, PyDictObject kwArgs) throws PyException {
     try {
-      return (PyObject) method.invoke(self, args, kwArgs);
-    } catch (IllegalAccessException | InvocationTargetException e) {
-      throw new PyException(e.getCause().getMessage());
+      return nativeCall.call(self, args, kwArgs);
+    } catch (Throwable e) {
+      throw new PyException(e.getMessage());
     }
   }
 
+  @Override
+  public PyObject vectorCall(
+      ThreadState ts, PyObject[] args, int offset, int nargs, PyFrameObject back)
+      throws PyException {
+    return call(null, Abstract.packArgs(args, offset, nargs), null);
+  }
+
   public boolean isStatic() {
     return isStatic;
   }
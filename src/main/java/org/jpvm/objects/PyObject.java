@@ -5,6 +5,7 @@ import org.jpvm.errors.PyMissMethod;
 import org.jpvm.errors.PyUnsupportedOperator;
 import org.jpvm.objects.annotation.PyClassMethod;
 import org.jpvm.objects.pyinterface.*;
+import org.jpvm.objects.types.MethodCache;
 import org.jpvm.objects.types.PyBaseObjectType;
 import org.jpvm.objects.types.PyTypeType;
 import org.jpvm.protocols.PyTypeMethods;
@@ -148,17 +149,7 @@ public class PyObject
 
   /** be careful with call stack overflow if t == PyTypeType.type */
   protected PyObject lookUpType(PyObject key) throws PyException {
-    PyTypeType t = (PyTypeType) getType();
-    PyObject res;
-    PyTupleObject mro = t.getMro();
-    for (int i = 0; i < mro.size(); i++) {
-      PyObject object = mro.get(i);
-      if (object != PyTypeType.type) {
-        res = object.getAttr(key);
-        if (res != null) return res;
-      }
-    }
-    return null;
+    return MethodCache.lookup((PyTypeType) getType(), key);
   }
 
   @Override
@@ -173,12 +164,8 @@ public class PyObject
       object = Utils.loadFiled(this, name);
     }
     if (object == null) {
-      try {
-        Method method = this.getClass().getMethod(name.getData(), PyObject.parameterTypes);
-        if (method.isAnnotationPresent(PyClassMethod.class))
-          object = new PyMethodObject(this, method, name.getData());
-      } catch (NoSuchMethodException ignore) {
-      }
+      Method method = Utils.lookupClassMethod(this.getClass(), name.getData());
+      if (method != null) object = new PyMethodObject(this, method, name.getData());
     }
     // PyFunctionObject take priority over PyMethodObject
     if (descr instanceof PyFunctionObject func && object instanceof PyMethodObject) {
@@ -4,6 +4,7 @@ import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jpvm.errors.PyException;
 import org.jpvm.errors.PyNotImplemented;
 import org.jpvm.errors.PyTypeNotMatch;
@@ -16,6 +17,7 @@ import org.jpvm.objects.types.PySetType;
 import org.jpvm.objects.types.PyTypeType;
 import org.jpvm.protocols.PyNumberMethods;
 import org.jpvm.protocols.PySequenceMethods;
+import org.jpvm.pvm.FreeThreading;
 import org.jpvm.python.BuiltIn;
 
 public class PySetObject extends PyObject
@@ -28,7 +30,7 @@ public class PySetObject extends PyObject
   private boolean isFrozen;
 
   public PySetObject() {
-    this.set = new HashSet<>();
+    this.set = FreeThreading.ENABLED ? ConcurrentHashMap.newKeySet() : new HashSet<>();
   }
 
   public PySetObject(boolean isFrozen) {
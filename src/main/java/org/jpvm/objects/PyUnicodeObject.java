@@ -2,8 +2,8 @@ package org.jpvm.objects;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jpvm.errors.*;
 import org.jpvm.internal.NumberHelper;
 import org.jpvm.objects.annotation.PyClassMethod;
@@ -22,8 +22,10 @@ public class PyUnicodeObject extends PyObject
 
   public static PyObject type = new PyUnicodeType();
 
-  public static Map<String, PyUnicodeObject> internStr = new HashMap<>();
+  /** interned strings, shared by all interpreters */
+  public static Map<String, PyUnicodeObject> internStr = new ConcurrentHashMap<>();
   private final String s;
+  /** utf-8 encoding of s, computed on first use */
   private byte[] data;
 
   public PyUnicodeObject(byte[] data) {
@@ -33,7 +35,6 @@ public class PyUnicodeObject extends PyObject
 
   public PyUnicodeObject(String data) {
     s = data;
-    this.data = data.getBytes(StandardCharsets.UTF_8);
   }
 
   public static PyBoolObject check(PyObject o) {
@@ -43,12 +44,7 @@ public class PyUnicodeObject extends PyObject
   public static PyUnicodeObject getOrCreateFromInternStringPool(String s, boolean intern) {
     if (internStr == null) return new PyUnicodeObject(s);
     if (intern) {
-      if (internStr.containsKey(s)) return internStr.get(s);
-      else {
-        PyUnicodeObject object = new PyUnicodeObject(s);
-        internStr.put(s, object);
-        return object;
-      }
+      return internStr.computeIfAbsent(s, PyUnicodeObject::new);
     } else {
       return internStr.getOrDefault(s, new PyUnicodeObject(s));
     }
@@ -206,11 +202,23 @@ public class PyUnicodeObject extends PyObject
   }
 
   public String getData() {
-    return new String(data, StandardCharsets.UTF_8);
+    return new String(bytes(), StandardCharsets.UTF_8);
+  }
+
+  private byte[] bytes() {
+    // racing threads encode the same bytes, there is no need to lock
+    byte[] res = data;
+    if (res == null) {
+      res = s.getBytes(StandardCharsets.UTF_8);
+      data = res;
+    }
+    return res;
   }
 
   public void setData(String s) {
     this.data = s.getBytes(StandardCharsets.UTF_8);
+    hashCode = null;
+    hashDone = false;
   }
 
   @Override
@@ -220,23 +228,29 @@ public class PyUnicodeObject extends PyObject
 
   @Override
   public Object toJavaType() {
-    return new String(data, StandardCharsets.UTF_8);
+    return new String(bytes(), StandardCharsets.UTF_8);
   }
 
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
     if (!(o instanceof PyUnicodeObject that)) return false;
-    return Arrays.equals(data, that.data);
+    return Arrays.equals(bytes(), that.bytes());
   }
 
   @Override
   public PyLongObject hash() {
+    // read once, interned strings are hashed by the threads of several interpreters
+    PyLongObject res = hashCode;
+    if (res != null) return res;
     int h = 0;
-    for (byte v : data) {
+    for (byte v : bytes()) {
       h = 31 * h + (v & 0xff);
     }
-    return new PyLongObject(h);
+    res = new PyLongObject(h);
+    hashCode = res;
+    hashDone = true;
+    return res;
   }
 
   @Override
@@ -264,7 +278,7 @@ public class PyUnicodeObject extends PyObject
     switch (op) {
       case Py_EQ -> {
         if (!(o instanceof PyUnicodeObject d)) return BuiltIn.False;
-        if (new String(data, StandardCharsets.UTF_8).equals(d.toJavaType())) return BuiltIn.True;
+        if (new String(bytes(), StandardCharsets.UTF_8).equals(d.toJavaType())) return BuiltIn.True;
         return BuiltIn.False;
       }
       case Py_LT -> {
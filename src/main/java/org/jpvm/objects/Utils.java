@@ -1,10 +1,18 @@
 package org.jpvm.objects;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
 import org.jpvm.errors.PyException;
 import org.jpvm.objects.annotation.PyClassAttribute;
 import org.jpvm.objects.annotation.PyClassMethod;
@@ -13,6 +21,75 @@ import org.jpvm.python.BuiltIn;
 
 public class Utils {
 
+  /** marks a name which has no member in a java class */
+  private static final Object NO_MEMBER = new Object();
+
+  /** {@link PyClassMethod} methods of java classes by name, members of a class never change */
+  private static final ClassValue<Map<String, Object>> classMethods =
+      new ClassValue<>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /** {@link PyClassAttribute} fields of java classes by name */
+  private static final ClassValue<Map<String, Object>> classFields =
+      new ClassValue<>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /** linked calls of java methods, a method is linked once */
+  private static final Map<Method, NativeCall> nativeCalls = new ConcurrentHashMap<>();
+
+  /**
+   * find the public method {@code name(PyTupleObject, PyDictObject)} annotated with {@link
+   * PyClassMethod} in clazz, the result of the reflective lookup is cached per class
+   */
+  public static Method lookupClassMethod(Class<?> clazz, String name) {
+    Object res =
+        classMethods
+            .get(clazz)
+            .computeIfAbsent(
+                name,
+                key -> {
+                  try {
+                    Method method = clazz.getMethod(key, PyObject.parameterTypes);
+                    if (method.isAnnotationPresent(PyClassMethod.class)) return method;
+                  } catch (NoSuchMethodException ignore) {
+                  }
+                  return NO_MEMBER;
+                });
+    return res == NO_MEMBER ? null : (Method) res;
+  }
+
+  /**
+   * find the public field {@code name} annotated with {@link PyClassAttribute} in clazz, the result
+   * of the reflective lookup is cached per class
+   */
+  public static Field lookupClassField(Class<?> clazz, String name) {
+    Object res =
+        classFields
+            .get(clazz)
+            .computeIfAbsent(
+                name,
+                key -> {
+                  try {
+                    Field field = clazz.getField(key);
+                    if (field.isAnnotationPresent(PyClassAttribute.class)) {
+                      field.setAccessible(true);
+                      return field;
+                    }
+                  } catch (NoSuchFieldException ignore) {
+                  }
+                  return NO_MEMBER;
+                });
+    return res == NO_MEMBER ? null : (Field) res;
+  }
+
   public static PyTupleObject packSelfAsTuple(PyObject self, PyTupleObject args) {
     PyTupleObject res = new PyTupleObject(args.size() + 1);
     res.set(0, self);
@@ -36,32 +113,87 @@ public class Utils {
     return res;
   }
 
-  public static PyObject loadFiled(PyObject object, PyUnicodeObject name) {
-    Class<? extends PyObject> clazz = object.getClass();
+  /**
+   * link method {@code PyObject name(PyTupleObject, PyDictObject)} into a {@link NativeCall}. The
+   * call is spun by {@link LambdaMetafactory} so that the JIT can inline it like a direct call,
+   * methods which can not be linked that way, such as methods of non public classes, fall back to a
+   * {@link MethodHandle}.
+   */
+  public static NativeCall linkNativeCall(Method method) {
+    return nativeCalls.computeIfAbsent(method, Utils::spinNativeCall);
+  }
+
+  private static NativeCall spinNativeCall(Method method) {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    boolean isStatic = Modifier.isStatic(method.getModifiers());
     try {
-      Field field = clazz.getField(name.getData());
-      if (field.isAnnotationPresent(PyClassAttribute.class)) {
-        field.setAccessible(true);
-        Object o = field.get(object);
-        return (PyObject) o;
+      MethodHandle target = lookup.unreflect(method);
+      if (isStatic) {
+        CallSite site =
+            LambdaMetafactory.metafactory(
+                lookup,
+                "call",
+                MethodType.methodType(NativeCall.Static.class),
+                MethodType.methodType(PyObject.class, PyTupleObject.class, PyDictObject.class),
+                target,
+                target.type());
+        var call = (NativeCall.Static) site.getTarget().invokeExact();
+        return (self, args, kwArgs) -> call.call(args, kwArgs);
       }
-    } catch (NoSuchFieldException | IllegalAccessException ignore) {
+      CallSite site =
+          LambdaMetafactory.metafactory(
+              lookup,
+              "call",
+              MethodType.methodType(NativeCall.class),
+              MethodType.methodType(
+                  PyObject.class, Object.class, PyTupleObject.class, PyDictObject.class),
+              target,
+              target.type());
+      return (NativeCall) site.getTarget().invokeExact();
+    } catch (LambdaConversionException | IllegalAccessException e) {
+      // not linkable by the metafactory, use a method handle below
+    } catch (Error | RuntimeException e) {
+      throw e;
+    } catch (Throwable e) {
+      // invokeExact of the factory only allocates the call, it throws no checked exception
+      throw new IllegalStateException("can not link " + method, e);
+    }
+    try {
+      method.setAccessible(true);
+      MethodHandle target = lookup.unreflect(method);
+      if (isStatic) target = MethodHandles.dropArguments(target, 0, Object.class);
+      MethodHandle handle =
+          target.asType(
+              MethodType.methodType(
+                  PyObject.class, Object.class, PyTupleObject.class, PyDictObject.class));
+      return (self, args, kwArgs) -> (PyObject) handle.invokeExact(self, args, kwArgs);
+    } catch (IllegalAccessException | RuntimeException e) {
+      // keep the reflective path, the error shows up when the method is called
+      return (self, args, kwArgs) -> (PyObject) method.invoke(self, args, kwArgs);
     }
-    return null;
   }
 
-  public static PyObject loadClassMethod(PyObject object, PyUnicodeObject name) {
-    Class<? extends PyObject> clazz = object.getClass();
-    try {
-      Method method = clazz.getMethod(name.getData(), PyObject.parameterTypes);
-      if (method.isAnnotationPresent(PyClassMethod.class)) {
-        return new PyMethodObject(object, method, name.getData());
+  public static PyObject loadFiled(PyObject object, PyUnicodeObject name) {
+    Field field = lookupClassField(object.getClass(), name.getData());
+    if (field != null) {
+      try {
+        return (PyObject) field.get(object);
+      } catch (IllegalAccessException ignore) {
       }
-    } catch (NoSuchMethodException ignore) {
     }
     return null;
   }
 
+  public static PyObject loadClassMethod(PyObject object, PyUnicodeObject name) {
+    Method method = lookupClassMethod(object.getClass(), name.getData());
+    if (method != null) return new PyMethodObject(object, method, name.getData());
+    return null;
+  }
+
+  /**
+   * java object as python object, lists, sets, maps and primitive arrays are copied into a list, set
+   * or dict, see {@link #transformToPyView(Object)} to share them with python instead
+   */
   public static PyObject transformToPyObject(Object o) throws PyException {
     if (o instanceof Integer i) {
       return PyLongObject.getLongObject(i);
@@ -90,24 +222,51 @@ public class Utils {
         res.set(i, transformToPyObject(array[i]));
       }
       return res;
-    } else if (o instanceof Set set) {
+    } else if (o instanceof Set<?> set) {
       PySetObject res = new PySetObject();
       for (Object obj : set) {
-        res.add(transformToPyObject(obj));
+        res.put(transformToPyObject(obj));
       }
       return res;
-    } else if (o instanceof Map map) {
+    } else if (o instanceof Map<?, ?> map) {
       PyDictObject res = new PyDictObject();
-      for (Object obj : map.keySet()) {
-        res.put(transformToPyObject(obj), transformToPyObject(map.get(obj)));
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        res.put(transformToPyObject(entry.getKey()), transformToPyObject(entry.getValue()));
       }
       return res;
+    } else if (o != null && o.getClass().isArray()) {
+      return transformToPyObject(primitiveArrayAsList(o));
     }
     throw new PyException("can't transform" + o + " to PyObject");
   }
 
+  /**
+   * java object as python object, lists, sets, maps and primitive arrays are wrapped without copying
+   * them, so python code and java code share them. The views only offer the common methods of list,
+   * set and dict and are not instances of those types, other objects are transformed by {@link
+   * #transformToPyObject(Object)}.
+   */
+  public static PyObject transformToPyView(Object o) throws PyException {
+    if (o instanceof List<?> list) {
+      return new PyJavaListObject(list);
+    } else if (o instanceof Set<?> set) {
+      return new PyJavaSetObject(set);
+    } else if (o instanceof Map<?, ?> map) {
+      return new PyJavaMapObject(map);
+    } else if (o != null && !(o instanceof Object[]) && o.getClass().isArray()) {
+      return new PyJavaListObject(primitiveArrayAsList(o));
+    }
+    return transformToPyObject(o);
+  }
+
   public static Object transformFromPyObject(PyObject o) throws PyException {
-    if (o instanceof PyLongObject l) {
+    if (o instanceof PyJavaListObject l) {
+      return l.toJavaType();
+    } else if (o instanceof PyJavaSetObject s) {
+      return s.toJavaType();
+    } else if (o instanceof PyJavaMapObject m) {
+      return m.toJavaType();
+    } else if (o instanceof PyLongObject l) {
       return l.getData();
     } else if (o instanceof PyUnicodeObject u) {
       return u.getData();
@@ -148,4 +307,62 @@ public class Utils {
     }
     throw new PyException("can't transform" + o.repr() + " to Object");
   }
+
+  /** element of a java collection view as python object, null is seen as None */
+  static PyObject elementToPyObject(Object o) throws PyException {
+    if (o == null) return BuiltIn.None;
+    return transformToPyObject(o);
+  }
+
+  /** repr of an element of a java collection view, its java string if it has no python form */
+  static String elementRepr(Object o) {
+    try {
+      return elementToPyObject(o).repr().toString();
+    } catch (PyException e) {
+      return String.valueOf(o);
+    }
+  }
+
+  /**
+   * python object stored into a java collection view, None is stored as null. Generic collections
+   * are erased, so the boxed number is narrowed to the class of like, an element already stored,
+   * to keep e.g. a {@code List<Integer>} free of longs.
+   */
+  static Object elementFromPyObject(PyObject o, Object like) throws PyException {
+    if (o == BuiltIn.None) return null;
+    Object res = transformFromPyObject(o);
+    if (res instanceof Number n && like instanceof Number && res.getClass() != like.getClass()) {
+      if (like instanceof Integer) return n.intValue();
+      if (like instanceof Long) return n.longValue();
+      if (like instanceof Double) return n.doubleValue();
+      if (like instanceof Float) return n.floatValue();
+      if (like instanceof Short) return n.shortValue();
+      if (like instanceof Byte) return n.byteValue();
+    }
+    return res;
+  }
+
+  /** fixed size list reading and writing through to array, an array of a primitive type */
+  static List<Object> primitiveArrayAsList(Object array) {
+    return new AbstractList<>() {
+      private final int size = Array.getLength(array);
+
+      @Override
+      public Object get(int index) {
+        return Array.get(array, index);
+      }
+
+      @Override
+      public Object set(int index, Object element) {
+        Object old = get(index);
+        Array.set(array, index, element);
+        return old;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
 }
@@ -0,0 +1,26 @@
+package org.jpvm.objects.pyinterface;
+
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyFrameObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.pvm.ThreadState;
+
+/**
+ * implementation of corresponding cpython vectorcall, positional arguments are passed as a slice of
+ * an array, usually the value stack of the caller, instead of a packed {@code PyTupleObject}.
+ * Callables which do not implement it are called through {@link TypeCall#call}.
+ */
+public interface TypeVectorCall {
+
+  /**
+   * call with the nargs positional arguments args[offset, offset + nargs). The arguments must not
+   * be modified, but when offset > 0 the slot args[offset - 1] belongs to the caller's callable
+   * and may be overwritten by the callee, a bound method puts its self there, like
+   * PY_VECTORCALL_ARGUMENTS_OFFSET in cpython.
+   *
+   * @param ts state of the calling thread, so that calls need not look it up
+   * @param back frame of the caller, may be null
+   */
+  PyObject vectorCall(ThreadState ts, PyObject[] args, int offset, int nargs, PyFrameObject back)
+      throws PyException;
+}
@@ -0,0 +1,58 @@
+package org.jpvm.objects.types;
+
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyTupleObject;
+
+/**
+ * global cache of attribute lookups along the mro of a type, keyed by (version tag, name) like the
+ * method cache in typeobject.c of cpython. A type gets a new version tag when the result of a
+ * lookup may change (see {@link PyTypeType#getVersionTag()}), so entries are never invalidated
+ * explicitly, a stale entry just never hits again. Lookups which find nothing are cached too.
+ */
+public class MethodCache {
+
+  private static final int SIZE_EXP = 12;
+  private static final int MASK = (1 << SIZE_EXP) - 1;
+
+  private static final Entry[] entries = new Entry[1 << SIZE_EXP];
+
+  /** the same as walking the mro of type and calling getAttr on each type but itself */
+  public static PyObject lookup(PyTypeType type, PyObject name) throws PyException {
+    long tag = type.getVersionTag();
+    int index = (int) (tag ^ (tag >>> 32) ^ name.hashCode()) & MASK;
+    Entry entry = entries[index];
+    if (entry != null && entry.tag == tag && (entry.name == name || entry.name.equals(name)))
+      return entry.value;
+    PyObject value = findInMro(type, name);
+    entries[index] = new Entry(tag, name, value);
+    return value;
+  }
+
+  /** be careful with call stack overflow if t == PyTypeType.type */
+  private static PyObject findInMro(PyTypeType type, PyObject key) throws PyException {
+    PyObject res;
+    PyTupleObject mro = type.getMro();
+    for (int i = 0; i < mro.size(); i++) {
+      PyObject object = mro.get(i);
+      if (object != PyTypeType.type) {
+        res = object.getAttr(key);
+        if (res != null) return res;
+      }
+    }
+    return null;
+  }
+
+  /** entries are immutable, a miss replaces the whole entry */
+  private static final class Entry {
+    final long tag;
+    final PyObject name;
+    final PyObject value;
+
+    Entry(long tag, PyObject name, PyObject value) {
+      this.tag = tag;
+      this.name = name;
+      this.value = value;
+    }
+  }
+}
@@ -1,12 +1,13 @@
 package org.jpvm.objects.types;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jpvm.errors.PyException;
 import org.jpvm.errors.PyUnsupportedOperator;
 import org.jpvm.objects.*;
-import org.jpvm.objects.annotation.PyClassMethod;
 import org.jpvm.objects.pyinterface.TypeDescriptorGet;
 import org.jpvm.objects.pyinterface.TypeDescriptorSet;
 import org.jpvm.objects.pyinterface.TypeIterable;
@@ -40,6 +41,12 @@ public class PyTypeType extends PyObject {
 
   public static PyObject type = new PyTypeType(PyObject.class);
 
+  /** source of version tags, shared by all types so that a tag identifies one state of one type */
+  private static final AtomicLong versionCounter = new AtomicLong();
+
+  /** guards assigning and dropping version tags and {@link #subclasses} */
+  private static final Object versionLock = new Object();
+
   protected List<PyObject> mro;
   protected PyTupleObject _mro;
   protected List<PyObject> bases;
@@ -52,7 +59,14 @@ public class PyTypeType extends PyObject {
   protected Class<?> clazz;
 
   protected String name;
-  private boolean typeReady;
+  /** set once mro and _mro are computed, builtin types are shared by all interpreters */
+  private volatile boolean typeReady;
+
+  /** version tag of this type like tp_version_tag in cpython, 0 if no tag is assigned */
+  private volatile long versionTag;
+
+  /** types with a version tag having this type in their mro, like tp_subclasses in cpython */
+  private final List<WeakReference<PyTypeType>> subclasses = new ArrayList<>();
 
   public PyTypeType(Class<?> clazz) {
     this.clazz = clazz;
@@ -82,6 +96,68 @@ public class PyTypeType extends PyObject {
       if (basis == base) return;
     }
     bases.add(base);
+    modified();
+  }
+
+  /**
+   * version tag of this type. The tag stays the same as long as attribute lookups through this
+   * type give the same results, it is dropped by {@link #modified()} when the dict of a type in
+   * mro is mutated or replaced, or bases or mro of such a type change. Tags are never reused, so
+   * (tag, name) is enough to key a cached lookup.
+   */
+  public long getVersionTag() throws PyException {
+    long tag = versionTag;
+    return tag != 0 ? tag : assignVersionTag();
+  }
+
+  /**
+   * the types of mro get a tag first, so that a type without a tag has no subclass with one and
+   * {@link #modified()} can stop there, as in cpython
+   */
+  private long assignVersionTag() throws PyException {
+    PyTupleObject mro = getMro();
+    synchronized (versionLock) {
+      if (versionTag != 0) return versionTag;
+      for (int i = 0; i < mro.size(); i++) {
+        if (!(mro.get(i) instanceof PyTypeType t)) continue;
+        if (t.dict != null) t.dict.setOwner(t);
+        if (t != this) {
+          t.getVersionTag();
+          t.addSubclass(this);
+        }
+      }
+      versionTag = versionCounter.incrementAndGet();
+      return versionTag;
+    }
+  }
+
+  private void addSubclass(PyTypeType sub) {
+    subclasses.removeIf(ref -> ref.get() == null);
+    for (WeakReference<PyTypeType> ref : subclasses) {
+      if (ref.get() == sub) return;
+    }
+    subclasses.add(new WeakReference<>(sub));
+  }
+
+  /**
+   * the dict, bases or mro of this type changed, drop the version tag of this type and of its
+   * subclasses like PyType_Modified of cpython
+   */
+  public void modified() {
+    synchronized (versionLock) {
+      if (versionTag == 0) return;
+      versionTag = 0;
+      for (WeakReference<PyTypeType> ref : subclasses) {
+        PyTypeType sub = ref.get();
+        if (sub != null) sub.modified();
+      }
+    }
+  }
+
+  @Override
+  public void setDict(PyDictObject dict) {
+    super.setDict(dict);
+    modified();
   }
 
   /** this object is subtype of r or not */
@@ -97,19 +173,21 @@ public class PyTypeType extends PyObject {
   public PyTupleObject getMro() throws PyException {
     if (!typeReady) {
       if (_mro != null) return _mro;
-      typeReady = true;
-      mro = MRO.mro(this);
-      PyTupleObject object = new PyTupleObject(mro.size());
-      for (int i = 0; i < mro.size(); i++) {
-        object.set(i, mro.get(i));
+      List<PyObject> res = MRO.mro(this);
+      PyTupleObject object = new PyTupleObject(res.size());
+      for (int i = 0; i < res.size(); i++) {
+        object.set(i, res.get(i));
       }
+      mro = res;
       _mro = object;
+      typeReady = true;
       return object;
     } else return _mro;
   }
 
   public void setMro(List<PyObject> mro) {
     this.mro = mro;
+    modified();
   }
 
   public List<PyObject> getBases() {
@@ -118,6 +196,7 @@ public class PyTypeType extends PyObject {
 
   public void setBases(List<PyObject> bases) {
     this.bases = bases;
+    modified();
   }
 
   public PyTupleObject getBasesClass() {
@@ -134,10 +213,12 @@ public class PyTypeType extends PyObject {
 
   public void set_mro(PyTupleObject _mro) {
     this._mro = _mro;
+    modified();
   }
 
   public void set_bases(PyTupleObject _bases) {
     this._bases = _bases;
+    modified();
   }
 
   @Override
@@ -231,23 +312,15 @@ public class PyTypeType extends PyObject {
     }
     var name = (PyUnicodeObject) key;
     if (object == null) {
-      try {
-        Method method = this.getClass().getMethod(name.getData(), PyObject.parameterTypes);
-        if (method.isAnnotationPresent(PyClassMethod.class))
-          object = new PyMethodObject(this, method, name.getData());
-      } catch (NoSuchMethodException ignore) {
-      }
+      Method method = Utils.lookupClassMethod(this.getClass(), name.getData());
+      if (method != null) object = new PyMethodObject(this, method, name.getData());
     }
     if (object == null) {
       object = Utils.loadFiled(this, name);
     }
     if (object == null) {
-      try {
-        Method method = clazz.getMethod(name.getData(), PyObject.parameterTypes);
-        if (method.isAnnotationPresent(PyClassMethod.class))
-          object = new PyMethodObject(method, name.getData());
-      } catch (NoSuchMethodException ignore) {
-      }
+      Method method = Utils.lookupClassMethod(clazz, name.getData());
+      if (method != null) object = new PyMethodObject(method, name.getData());
     }
     // PyFunctionObject take priority over PyMethodObject
     if (descr instanceof PyFunctionObject func && object instanceof PyMethodObject) {
@@ -1,14 +1,15 @@
 package org.jpvm.pvm;
 
-import java.util.HashMap;
 import java.util.Map;
 import org.jpvm.errors.*;
 import org.jpvm.objects.*;
 import org.jpvm.objects.pyinterface.TypeRichCompare;
+import org.jpvm.objects.pyinterface.TypeVectorCall;
 import org.jpvm.objects.types.PyTypeType;
 import org.jpvm.protocols.PyMappingMethods;
 import org.jpvm.protocols.PyNumberMethods;
 import org.jpvm.protocols.PySequenceMethods;
+import org.jpvm.pycParser.ArgBinding;
 import org.jpvm.pycParser.PyCodeObject;
 import org.jpvm.python.BuiltIn;
 
@@ -361,23 +362,30 @@ public class Abstract {
     throw new PyTypeNotMatch("can not apply inplaceXor on " + v.repr() + " and " + w.repr());
   }
 
+  /**
+   * call from java code which has no thread state at hand, the state of the calling thread is
+   * looked up once
+   */
   public static PyObject abstractCall(
       PyObject callable, PyObject self, PyTupleObject args, PyDictObject kwArgs)
       throws PyException {
-    return abstractCall(callable, self, args, kwArgs, null);
+    return abstractCall(PVM.getThreadState(), callable, self, args, kwArgs, null, null);
   }
 
+  /** call by a thread whose current state is ts, with frameObject as the frame of the caller */
   public static PyObject abstractCall(
+      ThreadState ts,
       PyObject callable,
       PyObject self,
       PyTupleObject args,
       PyDictObject kwArgs,
       PyFrameObject frameObject)
       throws PyException {
-    return abstractCall(callable, self, args, kwArgs, frameObject, null);
+    return abstractCall(ts, callable, self, args, kwArgs, frameObject, null);
   }
 
   public static PyObject abstractCall(
+      ThreadState ts,
       PyObject callable,
       PyObject self,
       PyTupleObject args,
@@ -393,52 +401,158 @@ public class Abstract {
       return callable.call(self, args, kwArgs);
     } else {
       if (callable instanceof PyFunctionObject func) {
-        if (kwArgs == null) kwArgs = new PyDictObject();
-        if (args == null) args = PyTupleObject.zero;
         PyCodeObject code = (PyCodeObject) func.getFuncCode();
-        var defaults = (PyTupleObject) func.getFuncDefaults();
-        var kwDefaults = (PyDictObject) func.getFuncKwDefaults();
-        var coVarNames = (PyTupleObject) code.getCoVarNames();
+        ArgBinding binding = code.getArgBinding();
         PyDictObject globals = (PyDictObject) func.getFuncGlobals();
-        int argSize = code.getCoKwOnlyArCnt() + code.getCoPosOnlyArCnt() + code.getCoArgument();
-        if (locals == null) locals = new PyDictObject();
-        PyFrameObject f = new PyFrameObject(func, code, BuiltIn.dict, globals, locals, frameObject);
-        Map<PyObject, Integer> map = new HashMap<>();
-        for (int i = 0; i < coVarNames.size(); i++) {
-          map.put(coVarNames.get(i), i);
-        }
-        kwDefaults.getMap().forEach((x, y) -> f.setLocal(map.get(x), y));
-        for (int i = 0; i < defaults.size(); i++) {
-          f.setLocal(argSize - defaults.size() + i - kwDefaults.size(), defaults.get(i));
-        }
-        // start initialize parameters
-        for (int i = 0; i < args.size(); i++) {
-          f.setLocal(i, args.get(i));
-        }
-        // final update passed arguments
-        kwArgs.getMap().forEach((x, y) -> f.setLocal(map.get(x), y));
-        for (int i = 0; i < argSize; i++) {
-          if (f.getLocal(i) == null)
-            throw new PyParametersError("please pass argument " + coVarNames.get(i).repr(), false);
-        }
-        if (((PyCodeObject) (func.getFuncCode())).isGenerator()) return new PyGeneratorObject(f);
-        EvaluationLoop eval = new EvaluationLoop(f);
-        PVM.getThreadState().increaseRecursionDepth();
-        ThreadState ts = PVM.getThreadState();
-        // store current frame
-        PyFrameObject cf = ts.getCurrentFrame();
-        ts.setCurrentFrame(f);
-        if (ts.isOverFlow()) throw new PyException("recursion depth exceeded");
-        PyObject res = eval.pyEvalFrame();
-        PVM.getThreadState().decreaseRecursionDepth();
-        // restore current frame
-        ts.setCurrentFrame(cf);
-        return res;
+        PyFrameObject f =
+            PyFrameObject.newFrame(
+                ts, func, code, builtinsOf(ts, frameObject), globals, locals, frameObject);
+        bindArguments(func, binding, f, args, kwArgs);
+        return evalFunctionFrame(ts, binding, f);
       }
     }
     throw new PyException("abstract call error occurred");
   }
 
+  /**
+   * call callable with the positional arguments args[offset, offset + nargs), see {@link
+   * TypeVectorCall}. Callables which do not support vectorcall get the arguments packed into a
+   * tuple.
+   */
+  public static PyObject vectorCall(
+      ThreadState ts,
+      PyObject callable,
+      PyObject[] args,
+      int offset,
+      int nargs,
+      PyFrameObject back)
+      throws PyException {
+    if (callable instanceof TypeVectorCall vc) return vc.vectorCall(ts, args, offset, nargs, back);
+    return abstractCall(ts, callable, null, packArgs(args, offset, nargs), null, back);
+  }
+
+  /** vectorcall of a python function, arguments are copied straight into the local slots */
+  public static PyObject vectorCallFunction(
+      ThreadState ts,
+      PyFunctionObject func,
+      PyObject[] args,
+      int offset,
+      int nargs,
+      PyFrameObject back)
+      throws PyException {
+    PyCodeObject code = (PyCodeObject) func.getFuncCode();
+    PyFrameObject f = newFunctionFrame(ts, func, args, offset, nargs, back);
+    return evalFunctionFrame(ts, code.getArgBinding(), f);
+  }
+
+  /**
+   * create the frame of a call of func with the positional arguments args[offset, offset + nargs),
+   * the frame is ready to be evaluated but is not entered
+   */
+  public static PyFrameObject newFunctionFrame(
+      ThreadState ts,
+      PyFunctionObject func,
+      PyObject[] args,
+      int offset,
+      int nargs,
+      PyFrameObject back)
+      throws PyException {
+    PyCodeObject code = (PyCodeObject) func.getFuncCode();
+    ArgBinding binding = code.getArgBinding();
+    PyDictObject globals = (PyDictObject) func.getFuncGlobals();
+    PyFrameObject f =
+        PyFrameObject.newFrame(ts, func, code, builtinsOf(ts, back), globals, null, back);
+    var kwDefaults = (PyDictObject) func.getFuncKwDefaults();
+    if (nargs == binding.getArgSize() && kwDefaults.size() == 0) f.setLocals(args, offset, nargs);
+    else bindArguments(func, binding, f, packArgs(args, offset, nargs), null);
+    return f;
+  }
+
+  /** builtins of a frame called from back, those of the interpreter running the call */
+  private static PyDictObject builtinsOf(ThreadState ts, PyFrameObject back) {
+    if (back != null && back.getBuiltins() != null) return back.getBuiltins();
+    PyDictObject builtins = ts.getIs().getBuiltins();
+    return builtins != null ? builtins : BuiltIn.dict;
+  }
+
+  public static PyTupleObject packArgs(PyObject[] args, int offset, int nargs) {
+    if (nargs == 0) return PyTupleObject.zero;
+    PyObject[] items = new PyObject[nargs];
+    System.arraycopy(args, offset, items, 0, nargs);
+    return new PyTupleObject(items);
+  }
+
+  private static PyObject evalFunctionFrame(ThreadState ts, ArgBinding binding, PyFrameObject f)
+      throws PyException {
+    if (binding.isGenerator()) return new PyGeneratorObject(f);
+    EvaluationLoop eval = new EvaluationLoop(ts, f);
+    ts.increaseRecursionDepth();
+    // store current frame
+    PyFrameObject cf = ts.getCurrentFrame();
+    ts.setCurrentFrame(f);
+    try {
+      if (ts.isOverFlow()) throw new PyException("recursion depth exceeded");
+      PyObject res = eval.pyEvalFrame();
+      f.release(ts);
+      return res;
+    } catch (StackOverflowError e) {
+      // calls which are not stackless, native code calling back into python for example, still
+      // consume the java stack
+      throw new PyException("recursion depth exceeded, java stack overflow");
+    } finally {
+      ts.decreaseRecursionDepth();
+      // restore current frame
+      ts.setCurrentFrame(cf);
+    }
+  }
+
+  /** store args, kwArgs and the defaults of func into the local slots of frame f */
+  private static void bindArguments(
+      PyFunctionObject func,
+      ArgBinding binding,
+      PyFrameObject f,
+      PyTupleObject args,
+      PyDictObject kwArgs)
+      throws PyException {
+    if (args == null) args = PyTupleObject.zero;
+    var kwDefaults = (PyDictObject) func.getFuncKwDefaults();
+    int argSize = binding.getArgSize();
+    boolean noKwArgs = kwArgs == null || kwArgs.size() == 0;
+    // fast path, every parameter is passed by position
+    if (noKwArgs && kwDefaults.size() == 0 && args.size() == argSize) {
+      f.setLocals((PyObject[]) args.toJavaType(), 0, argSize);
+      return;
+    }
+    for (Map.Entry<PyObject, PyObject> entry : kwDefaults.getMap().entrySet()) {
+      f.setLocal(slotOf(binding, entry.getKey()), entry.getValue());
+    }
+    var defaults = (PyTupleObject) func.getFuncDefaults();
+    for (int i = 0; i < defaults.size(); i++) {
+      f.setLocal(argSize - defaults.size() + i - kwDefaults.size(), defaults.get(i));
+    }
+    // start initialize parameters
+    for (int i = 0; i < args.size(); i++) {
+      f.setLocal(i, args.get(i));
+    }
+    // final update passed arguments
+    if (!noKwArgs) {
+      for (Map.Entry<PyObject, PyObject> entry : kwArgs.getMap().entrySet()) {
+        f.setLocal(slotOf(binding, entry.getKey()), entry.getValue());
+      }
+    }
+    for (int i = 0; i < argSize; i++) {
+      if (f.getLocal(i) == null)
+        throw new PyParametersError(
+            "please pass argument " + binding.getVarNames().get(i).repr(), false);
+    }
+  }
+
+  private static int slotOf(ArgBinding binding, PyObject name) throws PyParametersError {
+    int slot = binding.slotOf(name);
+    if (slot < 0) throw new PyParametersError("unexpected keyword argument " + name.repr(), false);
+    return slot;
+  }
+
   public static PyObject compare(PyObject w, PyObject v, TypeRichCompare.Operator op)
       throws PyException {
     return w.richCompare(v, op);
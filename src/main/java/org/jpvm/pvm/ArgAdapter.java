@@ -0,0 +1,30 @@
+package org.jpvm.pvm;
+
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyFloatObject;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.objects.Utils;
+import org.jpvm.python.BuiltIn;
+
+/**
+ * converts an argument of a known java type to a python object, given to {@link
+ * PyCallable#withAdapters} so that calls skip the type tests of {@link
+ * Utils#transformToPyObject(Object)}.
+ */
+@FunctionalInterface
+public interface ArgAdapter<T> {
+
+  ArgAdapter<Long> LONG = PyLongObject::getLongObject;
+  ArgAdapter<Integer> INT = PyLongObject::getLongObject;
+  ArgAdapter<Double> DOUBLE = PyFloatObject::new;
+  ArgAdapter<String> STRING = PyUnicodeObject::new;
+  ArgAdapter<Boolean> BOOLEAN = b -> b ? BuiltIn.True : BuiltIn.False;
+  ArgAdapter<PyObject> IDENTITY = o -> o;
+  ArgAdapter<Object> GENERIC = Utils::transformToPyObject;
+  /** shares java lists, sets, maps and primitive arrays with python instead of copying them */
+  ArgAdapter<Object> VIEW = Utils::transformToPyView;
+
+  PyObject adapt(T value) throws PyException;
+}
@@ -0,0 +1,130 @@
+package org.jpvm.pvm;
+
+import java.lang.reflect.Method;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyDictObject;
+import org.jpvm.objects.PyFunctionObject;
+import org.jpvm.objects.PyMethodObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.objects.Utils;
+import org.jpvm.objects.pyinterface.TypeDescriptorGet;
+import org.jpvm.objects.pyinterface.TypeDescriptorSet;
+import org.jpvm.objects.types.MethodCache;
+import org.jpvm.objects.types.PyTypeType;
+
+/**
+ * inline cache entry of a LOAD_ATTR or LOAD_METHOD instruction. It records how {@link
+ * PyObject#getAttr(PyObject)} resolved the attribute for objects of one java class and one type
+ * version, so that objects passing the same guards get the same result without walking the mro.
+ * Entries are immutable, a miss replaces the whole entry.
+ */
+final class AttrCache {
+
+  /** the result is {@link #value} itself */
+  static final int VALUE = 0;
+  /**
+   * the result is {@link #value}, a python function, bound to the object. The method is named
+   * {@link #methodName}, or after the function at the time of binding if it is null
+   */
+  static final int BIND_FUNCTION = 1;
+  /** the result is {@link #method}, a java method, bound to the object */
+  static final int BIND_JAVA = 2;
+
+  private static final ClassValue<Boolean> genericGetAttr =
+      new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          if (PyTypeType.class.isAssignableFrom(type)) return false;
+          try {
+            return type.getMethod("getAttr", PyObject.class).getDeclaringClass() == PyObject.class
+                && type.getMethod("getMethod", PyUnicodeObject.class).getDeclaringClass()
+                    == PyObject.class;
+          } catch (NoSuchMethodException e) {
+            return false;
+          }
+        }
+      };
+
+  final Class<?> clazz;
+  final PyTypeType type;
+  final long versionTag;
+  final int kind;
+  final PyObject value;
+  final Method method;
+  final String methodName;
+  /** {@link #method} not bound to any object, pushed by LOAD_METHOD together with self */
+  final PyMethodObject unboundMethod;
+
+  private AttrCache(
+      Class<?> clazz,
+      PyTypeType type,
+      long versionTag,
+      int kind,
+      PyObject value,
+      Method method,
+      String methodName) {
+    this.clazz = clazz;
+    this.type = type;
+    this.versionTag = versionTag;
+    this.kind = kind;
+    this.value = value;
+    this.method = method;
+    this.methodName = methodName;
+    unboundMethod = kind == BIND_JAVA ? new PyMethodObject(method, methodName) : null;
+  }
+
+  /** whether obj resolves name the same way as the object this entry was created for */
+  boolean check(PyObject obj, PyUnicodeObject name) throws PyException {
+    if (obj.getClass() != clazz || obj.getType() != type || type.getVersionTag() != versionTag)
+      return false;
+    PyDictObject dict = obj.getDict();
+    return dict == null || !dict.containKey(name);
+  }
+
+  /** result of the cached lookup for an object which passed {@link #check} */
+  PyObject load(PyObject obj) {
+    return switch (kind) {
+      case BIND_FUNCTION -> {
+        var func = (PyFunctionObject) value;
+        String name =
+            methodName != null ? methodName : ((PyUnicodeObject) func.getFuncName()).getData();
+        yield new PyMethodObject(obj, func, name);
+      }
+      case BIND_JAVA -> new PyMethodObject(obj, method, methodName);
+      default -> value;
+    };
+  }
+
+  /**
+   * an entry reproducing obj.getAttr(name) for LOAD_ATTR, or obj.getMethod(name) for LOAD_METHOD,
+   * null if the result depends on more than the guards of an entry
+   */
+  static AttrCache create(PyObject obj, PyUnicodeObject name, boolean forMethod)
+      throws PyException {
+    if (!genericGetAttr.get(obj.getClass()) || !(obj.getType() instanceof PyTypeType type))
+      return null;
+    PyDictObject dict = obj.getDict();
+    if (dict != null && dict.containKey(name)) return null;
+    if (Utils.lookupClassField(obj.getClass(), name.getData()) != null) return null;
+    long tag = type.getVersionTag();
+    PyObject descr = MethodCache.lookup(type, name);
+    if (descr instanceof TypeDescriptorGet && descr instanceof TypeDescriptorSet) return null;
+    Method method = Utils.lookupClassMethod(obj.getClass(), name.getData());
+    Class<?> clazz = obj.getClass();
+    if (method != null) {
+      // PyFunctionObject take priority over PyMethodObject
+      if (descr instanceof PyFunctionObject func) {
+        if (forMethod)
+          return new AttrCache(clazz, type, tag, BIND_FUNCTION, func, null, name.getData());
+        return new AttrCache(clazz, type, tag, VALUE, func, null, null);
+      }
+      return new AttrCache(clazz, type, tag, BIND_JAVA, null, method, name.getData());
+    }
+    if (descr instanceof PyFunctionObject func)
+      return new AttrCache(clazz, type, tag, BIND_FUNCTION, func, null, null);
+    if (descr == null || descr instanceof TypeDescriptorGet) return null;
+    if (forMethod && !(descr instanceof PyMethodObject)) return null;
+    return new AttrCache(clazz, type, tag, VALUE, descr, null, null);
+  }
+}
@@ -0,0 +1,34 @@
+package org.jpvm.pvm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * every asynchronous event which must interrupt the evaluation loop sets a bit here, just like
+ * eval_breaker of cpython. The loop only tests {@link EvalBreaker#isTripped()} on backward jumps
+ * and calls, and handles the set bits in {@link EvaluationLoop} when it is tripped.
+ */
+public class EvalBreaker {
+
+  /** another thread waits for the global interpreter lock */
+  public static final int GIL_DROP_REQUEST = 1;
+  /** calls added by {@link InterpreterState#addPendingCall(Runnable)} wait to be run */
+  public static final int PENDING_CALLS = 1 << 1;
+
+  private final AtomicInteger bits = new AtomicInteger();
+
+  public boolean isTripped() {
+    return bits.get() != 0;
+  }
+
+  public int getBits() {
+    return bits.get();
+  }
+
+  public void set(int bit) {
+    bits.getAndUpdate(b -> b | bit);
+  }
+
+  public void clear(int bit) {
+    bits.getAndUpdate(b -> b & ~bit);
+  }
+}
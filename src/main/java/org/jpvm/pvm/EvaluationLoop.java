@@ -1,11 +1,8 @@
 package org.jpvm.pvm;
 
-import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.Iterator;
-import org.jpvm.bytecode.ByteCodeBuffer;
-import org.jpvm.bytecode.Instruction;
+import org.jpvm.bytecode.DecodedCode;
 import org.jpvm.bytecode.OpMap;
 import org.jpvm.errors.PyException;
 import org.jpvm.errors.PyNameError;
@@ -13,14 +10,12 @@ import org.jpvm.errors.PyTypeError;
 import org.jpvm.errors.PyTypeNotMatch;
 import org.jpvm.module.Marshal;
 import org.jpvm.objects.*;
-import org.jpvm.objects.annotation.PyClassMethod;
 import org.jpvm.objects.pyinterface.TypeDoIterate;
 import org.jpvm.objects.pyinterface.TypeIterable;
 import org.jpvm.objects.pyinterface.TypeRichCompare;
 import org.jpvm.objects.types.PyTypeType;
 import org.jpvm.protocols.PyNumberMethods;
 import org.jpvm.pycParser.PyCodeObject;
-import org.jpvm.pycParser.PycReader;
 import org.jpvm.python.BuiltIn;
 
 public class EvaluationLoop {
@@ -32,24 +27,52 @@ public class EvaluationLoop {
   public static final int FVC_ASCII = 0x3;
   public static final int FVS_MASK = 0x4;
   public static final int FVS_HAVE_SPEC = 0x4;
-  private final PyFrameObject frame;
-  private final Iterator<Instruction> iterator;
-  private final PyTupleObject coNames;
-  private final PyDictObject globals;
-  private final PyDictObject locals;
-  private final PyDictObject builtins;
-  private final PyTupleObject consts;
-  private final ByteCodeBuffer byteCodeBuffer;
+  /** state of the thread running this loop */
+  private final ThreadState ts;
+  /** tested on backward jumps and calls, see {@link #handleEvalBreaker()} */
+  private final EvalBreaker evalBreaker;
+  /** whether python to python calls are evaluated by this loop, see {@link #enterFrame} */
+  private final boolean stackless;
+  /** the frame being evaluated, frames entered by calls are chained to it through back */
+  private PyFrameObject frame;
+  private PyTupleObject coNames;
+  private PyDictObject globals;
+  private PyDictObject builtins;
+  private PyTupleObject consts;
+  private DecodedCode decodedCode;
+  private int[] opcodes;
+  private int[] opargs;
+  private int[] targets;
+  private int[] counters;
+  private Object[] inlineCaches;
+  /** index of the next instruction to be executed in {@link EvaluationLoop#decodedCode} */
+  private int pc;
   private PyException error;
 
   public EvaluationLoop(PyFrameObject frame) {
+    this(PVM.getThreadState(), frame);
+  }
+
+  public EvaluationLoop(ThreadState ts, PyFrameObject frame) {
+    this.ts = ts;
+    InterpreterState is = ts.getIs();
+    evalBreaker = is.getEvalBreaker();
+    stackless = is.isStackless();
+    load(frame);
+  }
+
+  /** make frame the frame being evaluated, pc is left to the caller */
+  private void load(PyFrameObject frame) {
     this.frame = frame;
     PyCodeObject code = frame.getCode();
-    byteCodeBuffer = new ByteCodeBuffer(code);
-    iterator = byteCodeBuffer.iterator();
+    decodedCode = code.getDecodedCode();
+    opcodes = decodedCode.getOpcodes();
+    opargs = decodedCode.getOpargs();
+    targets = decodedCode.getTargets();
+    counters = decodedCode.getCounters();
+    inlineCaches = decodedCode.getInlineCaches();
     coNames = (PyTupleObject) code.getCoNames();
     globals = frame.getGlobals();
-    locals = frame.getLocals();
     builtins = frame.getBuiltins();
     consts = (PyTupleObject) code.getCoConsts();
   }
@@ -61,8 +84,7 @@ public class EvaluationLoop {
     new EvaluationLoop(frameObject).pyEvalFrame();
   }
 
-  public PyTupleObject getArgs(Instruction ins) {
-    int size = ins.getOparg();
+  public PyTupleObject getArgs(int size) {
     PyTupleObject args = new PyTupleObject(size);
     for (int i = 0; i < size; i++) {
       args.set(size - i - 1, frame.pop());
@@ -78,8 +100,9 @@ public class EvaluationLoop {
     return error;
   }
 
-  public Iterator<Instruction> getIterator() {
-    return iterator;
+  /** whether all instructions of the frame have been executed or not */
+  public boolean isFinished() {
+    return pc >= opcodes.length;
   }
 
   public PyTupleObject getCoNames() {
@@ -91,7 +114,7 @@ public class EvaluationLoop {
   }
 
   public PyDictObject getLocals() {
-    return locals;
+    return frame.getLocals();
   }
 
   public PyDictObject getBuiltins() {
@@ -102,871 +125,1333 @@ public class EvaluationLoop {
     return consts;
   }
 
-  public ByteCodeBuffer getByteCodeBuffer() {
-    return byteCodeBuffer;
+  public DecodedCode getDecodedCode() {
+    return decodedCode;
   }
 
   public PyObject getClassMethod(PyUnicodeObject name) {
     PyObject obj = frame.top();
-    Class<? extends PyObject> clazz = obj.getClass();
-    try {
-      Method meth = clazz.getMethod(name.getData(), PyObject.parameterTypes);
-      PyClassMethod annotation = meth.getAnnotation(PyClassMethod.class);
-      if (annotation != null) {
-        return new PyMethodObject(obj, meth, name.getData());
-      }
-    } catch (NoSuchMethodException e) {
-      error = new PyException("object " + obj.repr() + " not have method " + name.repr());
-    }
+    Method meth = Utils.lookupClassMethod(obj.getClass(), name.getData());
+    if (meth != null) return new PyMethodObject(obj, meth, name.getData());
     error = new PyException("object " + obj.repr() + " not have method " + name.repr());
     return null;
   }
 
+  /**
+   * evaluate the frame of this loop and return its result. Calls of python functions do not recurse
+   * into a new loop, the loop enters the frame of the callee and returns to its caller on
+   * RETURN_VALUE (see {@link #enterFrame}), so python recursion only consumes heap.
+   */
   public PyObject pyEvalFrame() throws PyException {
+    final PyFrameObject entry = frame;
+    try {
+      return evalFrames(entry);
+    } catch (PyException e) {
+      // the frames entered by this loop report the error like nested loops did
+      PyException err = e;
+      while (frame != entry) {
+        leaveFrame();
+        error = err;
+        err = new PyException(errorMessageTip(pc - 1));
+      }
+      throw err;
+    }
+  }
 
+  /**
+   * The dispatch loop is kept small on purpose, every opcode body lives in its own handler method
+   * below so that the JIT is able to compile this method and inline the hot handlers into it.
+   */
+  private PyObject evalFrames(PyFrameObject entry) throws PyException {
+    int[] opcodes = this.opcodes;
+    int[] opargs = this.opargs;
     // evaluation loop
-    while (iterator.hasNext()) {
-      InterpreterState is = PVM.getThreadState().getIs();
-      if (is.isDropGILRequest()) {
-        // release global interpreter lock
-        is.dropGIL();
-        // require  global interpreter lock
-        is.takeGIL();
+    while (true) {
+      if (pc >= opcodes.length) {
+        PyObject res = frame.hasArgs() ? frame.pop() : null;
+        if (frame == entry) return res;
+        leaveFrame().release(ts);
+        frame.push(res == null ? BuiltIn.None : res);
+        opcodes = this.opcodes;
+        opargs = this.opargs;
+        continue;
       }
-      Instruction ins = iterator.next();
-      switch (ins.getOpname()) {
-        case IMPORT_NAME -> {
-          frame.pop();
-          frame.pop();
-          PyObject name = coNames.get(ins.getOparg());
-          PyObject module = PVM.getThreadState().getIs().getModule((PyUnicodeObject) name);
-          if (module != null) {
-            frame.push(module);
-            continue;
-          }
-          String moduleName = ((PyUnicodeObject) name).getData();
-          PyListObject searchPath = PVM.getThreadState().getIs().getSearchPath();
-          boolean found = false;
-          for (int i = 0; i < searchPath.size(); i++) {
-            var path = ((PyUnicodeObject) searchPath.get(i)).getData();
-            if (path.endsWith("__pycache__")) {
-              File pyDir = new File(path);
-              File[] files = pyDir.listFiles();
-              if (files == null) continue;
-              for (File file : files) {
-                if (file.getName().startsWith(moduleName) && file.getName().endsWith(".pyc")) {
-                  PycReader reader = new PycReader(file.getAbsolutePath());
-                  try {
-                    reader.doParse();
-                    PyCodeObject code = reader.getCodeObject();
-                    PyModuleObject newModule = new PyModuleObject((PyUnicodeObject) name);
-                    evalModule(code, newModule.getDict());
-                    frame.push(newModule);
-                    PVM.getThreadState().getIs().addModule((PyUnicodeObject) name, newModule);
-                    found = true;
-                    break;
-                  } catch (IOException ignore) {
-                  }
-                }
-              }
-            } else {
-              path = path.replace("/", ".");
-              PyModuleObject res = Utils.loadClass(path + "." + moduleName, (PyUnicodeObject) name);
-              if (res != null) {
-                found = true;
-                PVM.getThreadState().getIs().addModule((PyUnicodeObject) name, res);
-                frame.push(res);
-                break;
-              }
-              res =
-                  Utils.loadClass(
-                      path + "." + moduleName + ".PyModuleMain", (PyUnicodeObject) name);
-              if (res != null) {
-                found = true;
-                PVM.getThreadState().getIs().addModule((PyUnicodeObject) name, res);
-                frame.push(res);
-                break;
-              }
-            }
-          }
-          if (!found) error = new PyException("can not find a module named " + moduleName);
-        }
-        case IMPORT_FROM -> {
-          var name = coNames.get(ins.getOparg());
-          PyObject top = frame.top();
-          PyObject res = Utils.loadFiled(top, (PyUnicodeObject) name);
-          if (res != null) {
-            frame.push(res);
-            continue;
-          }
-          res = Utils.loadClassMethod(top, (PyUnicodeObject) name);
-          if (res != null) {
-            frame.push(res);
-            continue;
-          }
-          res = top.getAttr(name);
-          if (res != null) {
-            frame.push(res);
-            continue;
-          }
-          error = new PyException("can not import " + name.repr() + " from " + top.repr());
-        }
-        case LOAD_CONST -> frame.push(consts.get(ins.getOparg()));
-        case STORE_NAME -> {
-          PyObject top = frame.pop();
-          PyObject o = coNames.get(ins.getOparg());
-          locals.put(o, top);
-        }
-        case STORE_GLOBAL -> {
-          PyObject top = frame.pop();
-          PyObject o = coNames.get(ins.getOparg());
-          globals.put(o, top);
-        }
-        case LOAD_NAME -> {
-          PyObject name = coNames.get(ins.getOparg());
-          PyObject v = locals.get(name);
-          if (null == v) {
-            loadFromGlobal(frame, globals, builtins, name);
-          } else {
-            frame.push(v);
-          }
-        }
-        case LOAD_GLOBAL -> {
-          PyObject name = coNames.get(ins.getOparg());
-          loadFromGlobal(frame, globals, builtins, name);
-        }
-        case LOAD_ATTR -> {
-          PyObject top = frame.top();
-          var name = (PyUnicodeObject) coNames.get(ins.getOparg());
-          PyObject attr = top.getAttr(name);
-          if (null != attr) {
-            frame.pop();
-            frame.push(attr);
-            continue;
-          }
-          PyObject res = getClassMethod(name);
-          if (res != null) {
-            frame.pop();
-            frame.push(res);
-            continue;
-          }
-          error = null;
-          PyObject object = Utils.loadFiled(top, name);
-          if (object != null) {
-            frame.pop();
-            frame.push(object);
-            continue;
-          }
-          error = new PyException("can not find attribute " + name.repr() + " in " + top.repr());
-        }
-        case STORE_ATTR -> {
-          var name = (PyUnicodeObject) coNames.get(ins.getOparg());
-          PyObject object = frame.pop();
-          object.setAttr(name, frame.pop());
-        }
-        case STORE_FAST -> frame.setLocal(ins.getOparg(), frame.pop());
-        case LOAD_FAST -> frame.push(frame.getLocal(ins.getOparg()));
-        case DELETE_FAST -> {
-          int arg = ins.getOparg();
-          frame.setLocal(arg, null);
-        }
-        case LOAD_DEREF -> {
-          PyObject cell = frame.getFreeVars(ins.getOparg());
-          frame.push(cell);
-        }
-        case STORE_DEREF -> {
-          PyObject cell = frame.pop();
-          frame.setFreeVars(ins.getOparg(), cell);
-        }
-        case LOAD_CLOSURE -> {
-          PyObject cell = frame.getFreeVarsCell(ins.getOparg());
-          frame.push(cell);
-        }
-        case LOAD_METHOD -> {
-          var name = (PyUnicodeObject) coNames.get(ins.getOparg());
-          PyObject obj = frame.pop();
-          PyObject method = obj.getMethod(name);
-          if (method != null && method != BuiltIn.None) {
-            frame.push(method);
-            continue;
-          }
-          error = new PyException("object + " + obj.repr() + " not have method " + name.repr());
-        }
-        case CALL_METHOD -> {
-          PyTupleObject args = getArgs(ins);
-          PyObject method = frame.pop();
-          if (method instanceof PyMethodObject) {
-            try {
-              frame.push(Abstract.abstractCall(method, null, args, null, frame));
-            } catch (PyException e) {
-              error = e;
-            }
-          } else if (method instanceof PyTypeType type) {
-            type.call(null, args, null);
-          } else error = new PyException("object " + method.repr() + " can not be called");
-        }
-        case CALL_FUNCTION -> {
-          PyTupleObject args = getArgs(ins);
-          PyObject pop = frame.pop();
-          try {
-            PyObject object = Abstract.abstractCall(pop, null, args, null, frame);
-            assert object != null;
-            frame.push(object);
-          } catch (PyException e) {
-            e.printStackTrace();
-            error = e;
-          }
-          // other callable object to be implemented
-        }
-        case CALL_FUNCTION_KW -> {
-          PyObject pop = frame.pop();
-          if (!(pop instanceof PyTupleObject tuple)) {
-            error = new PyTypeNotMatch("CALL_FUNCTION_KW stack top requires PyTupleObject");
-            break;
-          }
-          PyDictObject kwArgs = new PyDictObject();
-          for (int i = tuple.size() - 1; i >= 0; i--) {
-            kwArgs.put(tuple.get(i), frame.pop());
-          }
-          PyTupleObject args = new PyTupleObject(ins.getOparg() - tuple.size());
-          for (int i = args.size() - 1; i >= 0; i--) args.set(i, frame.pop());
-          PyObject callable = frame.pop();
-          try {
-            PyObject object = Abstract.abstractCall(callable, null, args, kwArgs, frame);
-            frame.push(object);
-          } catch (PyException e) {
-            error = e;
-          } catch (Exception e) {
-            e.printStackTrace();
-            error = new PyException("Java native exception occurred : " + e.getMessage(), false);
-          }
-          // other callable object to be implemented
-        }
-        case BUILD_CONST_KEY_MAP -> {
-          var keys = (PyTupleObject) frame.pop();
-          PyDictObject dict = new PyDictObject();
-          int size = keys.size();
-          for (int i = 0; i < size; i++) {
-            dict.put(keys.get(size - 1 - i), frame.pop());
-          }
-          frame.push(dict);
-        }
-        case UNPACK_SEQUENCE -> {
-          int size = ins.getOparg();
-          PyObject top = frame.pop();
-          if (top instanceof PyTupleObject tuple) {
-            if (tuple.size() == size) {
-              for (int i = 0; i < tuple.size(); i++)
-                // push argument from right to left
-                frame.push(tuple.get(size - 1 - i));
-              continue;
-            }
-          } else if (top instanceof PyListObject list) {
-            if (list.size() == size) {
-              for (int i = 0; i < list.size(); i++)
-                // push argument from right to left
-                frame.push(list.get(size - 1 - i));
-              continue;
-            }
-          } else if (top instanceof TypeDoIterate itr) {
-            if (itr.size() == size) {
-              frame.increaseStackPointer(size);
-              for (int i = 0; i < size; i++) {
-                frame.setTop(i + 1, itr.next());
-              }
-              continue;
-            }
-          }
-          throw new PyException(top.repr() + " can not be unpacked into " + size + " objects");
-        }
-        case LIST_APPEND -> {
-          PyObject top = frame.pop();
-          PyListObject list = (PyListObject) frame.top(ins.getOparg());
-          list.append(top);
-        }
-        case POP_TOP -> frame.pop();
-        case RETURN_VALUE -> {
-          return frame.pop();
-        }
-        case FORMAT_VALUE -> {
-          int oparg = ins.getOparg();
-          boolean have_fmt_spec = (oparg & FVS_MASK) == FVS_HAVE_SPEC;
-          PyObject spec = have_fmt_spec ? frame.pop() : null;
-          PyObject val = frame.pop();
-          switch (oparg & FVC_MASK) {
-            case FVC_NONE -> frame.push(val);
-            case FVC_STR -> frame.push(val.str());
-            case FVC_REPR -> frame.push(val.repr());
-            case FVC_ASCII -> frame.push(new PyUnicodeObject(val.toString()));
-          }
-        }
-        case JUMP_ABSOLUTE -> byteCodeBuffer.reset(ins.getOparg());
-        case BUILD_STRING -> {
-          int size = ins.getOparg();
-          StringBuilder builder = new StringBuilder();
-          for (int i = 0; i < size; i++) {
-            PyObject object = frame.get(frame.getUsed() - size + i);
-            builder.append(object.str().getData());
-          }
-          frame.decreaseStackPointer(size);
-          frame.push(new PyUnicodeObject(builder.toString()));
-        }
-        case FOR_ITER -> {
-          PyObject top = frame.top();
-          if (top instanceof TypeDoIterate itr) {
-            PyObject next = itr.next();
-            if (next != BuiltIn.PyExcStopIteration) {
-              frame.push(next);
-            } else {
-              frame.pop();
-              byteCodeBuffer.increase(ins.getOparg());
-            }
-          } else {
-            error = new PyTypeNotMatch("require an iterator on stack top");
-            error.setInternalError(true);
-          }
-        }
-        case GET_ITER -> {
-          PyObject pop = frame.pop();
-          if (pop instanceof TypeIterable itr) {
-            frame.push((PyObject) itr.getIterator());
-          } else error = new PyException(pop.repr() + " is not a iterable object");
-        }
-        case BINARY_MULTIPLY -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.multiply(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException(
-                    "can not apply multiply on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_ADD -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.add(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_SUBTRACT -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.sub(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_ADD -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceAdd(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_AND -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceAnd(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_LSHIFT -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceLshift(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_MULTIPLY -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceMul(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_OR -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceOr(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_SUBTRACT -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceSub(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_POWER -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplacePow(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_FLOOR_DIVIDE -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceFloorDiv(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_RSHIFT -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceRshift(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_TRUE_DIVIDE -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceTrueDiv(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_MATRIX_MULTIPLY -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceMatrixMul(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_MODULO -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceMod(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case ROT_TWO -> {
-          PyObject o1 = frame.pop();
-          PyObject o2 = frame.pop();
-          frame.push(o1);
-          frame.push(o2);
-        }
-        case ROT_THREE -> {
-          PyObject o1 = frame.pop();
-          PyObject o2 = frame.pop();
-          PyObject o3 = frame.pop();
-          frame.push(o1);
-          frame.push(o2);
-          frame.push(o3);
-        }
-        case ROT_FOUR -> {
-          PyObject o1 = frame.pop();
-          PyObject o2 = frame.pop();
-          PyObject o3 = frame.pop();
-          PyObject o4 = frame.pop();
-          frame.push(o1);
-          frame.push(o2);
-          frame.push(o3);
-          frame.push(o4);
-        }
-        case DUP_TOP -> {
-          PyObject top = frame.top();
-          frame.push(top);
-        }
-        case DUP_TOP_TWO -> {
-          PyObject o1 = frame.top(1);
-          PyObject o2 = frame.top(2);
-          frame.push(o2);
-          frame.push(o1);
-        }
-        case UNARY_POSITIVE -> {
-          PyObject top = frame.pop();
-          if (top instanceof PyNumberMethods num) {
-            try {
-              frame.push(num.pos());
-            } catch (PyException e) {
-              error = e;
-            }
-          } else error = new PyTypeError(top.repr() + " not support operator +");
-        }
-        case UNARY_NEGATIVE -> {
-          PyObject top = frame.pop();
-          if (top instanceof PyNumberMethods num) {
-            try {
-              frame.push(num.neg());
-            } catch (PyException e) {
-              error = e;
-            }
-          } else error = new PyTypeError(top.repr() + " not support operator -");
-        }
-        case UNARY_INVERT -> {
-          PyObject top = frame.pop();
-          if (top instanceof PyNumberMethods num) {
-            try {
-              frame.push(num.invert());
-            } catch (PyException e) {
-              error = e;
-            }
-          } else error = new PyTypeError(top.repr() + " not support operator ~");
-        }
-        case UNARY_NOT -> {
-          PyObject top = frame.pop();
-          if (Abstract.isTrue(top).isTrue()) frame.push(BuiltIn.False);
-          else frame.push(BuiltIn.True);
-        }
-        case BINARY_POWER -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.pow(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply pow on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_MATRIX_MULTIPLY -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.matrixMul(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException(
-                    "can not apply matrixMul on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_TRUE_DIVIDE -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.trueDiv(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException("can not apply trueDiv on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_FLOOR_DIVIDE -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.floorDiv(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException(
-                    "can not apply floorDiv on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_MODULO -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.mod(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply mod on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BUILD_SLICE -> {
-          PyObject t1 = frame.pop();
-          PyObject t2 = frame.pop();
-          if (ins.getOparg() == 2) {
-            PySliceObject sliceObject = new PySliceObject(t2, t1, PyLongObject.getLongObject(1));
-            frame.push(sliceObject);
-          } else if (ins.getOparg() == 3) {
-            PySliceObject sliceObject = new PySliceObject(frame.pop(), t2, t1);
-            frame.push(sliceObject);
-          }
-        }
-        case BINARY_SUBSCR -> {
-          PyObject sub = frame.pop();
-          PyObject container = frame.pop();
-          try {
-            PyObject item = Abstract.getItem(container, sub);
-            if (item == BuiltIn.notImplemented)
-              error =
-                  new PyException(
-                      "can not apply BINARY_SUBSCR on " + container + " and " + sub.repr());
-            else frame.push(item);
-          } catch (PyException e) {
-            error = e;
-          }
-        }
-        case STORE_SUBSCR -> {
-          PyObject key = frame.pop();
-          PyObject obj = frame.pop();
-          PyObject val = frame.pop();
-          Abstract.assignItem(obj, key, val);
-        }
-        case BINARY_LSHIFT -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.lshift(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException("can not apply lshift on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_RSHIFT -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.rshift(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException("can not apply rshift on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_AND -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.and(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply and on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_XOR -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.xor(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply xor on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case INPLACE_XOR -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.inplaceXor(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error =
-                new PyException(
-                    "can not apply inplaceXor on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BINARY_OR -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject res = Abstract.or(left, right);
-          if (res == BuiltIn.notImplemented) {
-            error = new PyException("can not apply or on " + left.repr() + " and " + right.repr());
-          }
-          frame.push(res);
-        }
-        case BUILD_LIST -> {
-          int size = ins.getOparg();
-          PyListObject listObject = new PyListObject();
-          int used = frame.getUsed();
-          for (int i = 0; i < size; ++i) {
-            listObject.append(frame.get(used - size + i));
-          }
-          frame.decreaseStackPointer(size);
-          frame.push(listObject);
-        }
-        case BUILD_SET -> {
-          int size = ins.getOparg();
-          PySetObject setObject = new PySetObject();
-          for (int i = 0; i < size; i++) {
-            setObject.add(frame.pop());
-          }
-          frame.push(setObject);
-        }
-        case BUILD_MAP -> {
-          PyDictObject dictObject = new PyDictObject();
-          int size = ins.getOparg();
-          for (int i = 0; i < size; i++) {
-            PyObject val = frame.pop();
-            PyObject key = frame.pop();
-            dictObject.put(key, val);
-          }
-          frame.push(dictObject);
-        }
-        case JUMP_FORWARD -> {
-          int oparg = ins.getOparg();
-          byteCodeBuffer.increase(oparg);
-        }
-        case POP_JUMP_IF_FALSE -> {
-          PyObject pop = frame.pop();
-          if (pop instanceof PyBoolObject b) {
-            if (b.isFalse()) byteCodeBuffer.reset(ins.getOparg());
-          } else error = new PyException("POP_JUMP_IF_FALSE require boo on stack top");
-        }
-        case POP_JUMP_IF_TRUE -> {
-          PyObject pop = frame.pop();
-          if (pop instanceof PyBoolObject b) {
-            if (b.isTrue()) byteCodeBuffer.reset(ins.getOparg());
-          } else error = new PyException("POP_JUMP_IF_FALSE require boo on stack top");
-        }
-        case COMPARE_OP -> {
-          PyObject right = frame.pop();
-          PyObject left = frame.pop();
-          PyObject result;
-          try {
-            switch (ins.getOparg()) {
-              case TypeRichCompare.Py_LT -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.Py_LT);
-              case TypeRichCompare.Py_LE -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.Py_LE);
-              case TypeRichCompare.Py_EQ -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.Py_EQ);
-              case TypeRichCompare.Py_NE -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.Py_NE);
-              case TypeRichCompare.Py_GT -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.Py_GT);
-              case TypeRichCompare.Py_GE -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.Py_GE);
-              case TypeRichCompare.PyCmp_IN -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_IN);
-              case TypeRichCompare.PyCmp_NOT_IN -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_NOT_IN);
-              case TypeRichCompare.PyCmp_IS -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_IS);
-              case TypeRichCompare.PyCmp_IS_NOT -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_IS_NOT);
-              case TypeRichCompare.PyCmp_EXC_MATCH -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_EXC_MATCH);
-              case TypeRichCompare.PyCmp_BAD -> result =
-                  Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_BAD);
-              default -> throw new PyException("Unknow COMPARE_OP operator" + ins.getOparg());
-            }
-            frame.push(result);
-          } catch (PyException e) {
-            error = e;
-          }
-        }
-        case LOAD_BUILD_CLASS -> {
-          PyObject res =
-              builtins.get(
-                  PyUnicodeObject.getOrCreateFromInternStringPool("__build_class__", true));
+      int idx = pc++;
+      int oparg = opargs[idx];
+      switch (opcodes[idx]) {
+        case OpMap.LOAD_FAST -> frame.push(frame.getLocal(oparg));
+        case OpMap.STORE_FAST -> frame.setLocal(oparg, frame.pop());
+        case OpMap.LOAD_CONST -> frame.push(consts.get(oparg));
+        case OpMap.POP_TOP -> frame.pop();
+        case OpMap.RETURN_VALUE -> {
+          PyObject res = frame.pop();
+          if (frame == entry) return res;
+          leaveFrame().release(ts);
           frame.push(res);
         }
-        case MAKE_FUNCTION -> {
-          PyObject qualname = frame.pop();
-          if (!(qualname instanceof PyUnicodeObject)) {
-            error = new PyException("qualname require PyUnicodeObject", true);
-            break;
-          }
-          PyCodeObject codeObject = (PyCodeObject) frame.pop();
-          // just for debugging to avoid cycle reference, idea will get stuck for toString method
-          //          {
-          //            PyDictObject dict = new PyDictObject();
-          //            dict.addAll(globals);
-          //          }
-          PyFunctionObject function =
-              new PyFunctionObject(codeObject, globals, (PyUnicodeObject) qualname);
-          // Simply for compatibility with previous code
-          PyUnicodeObject module = frame.getModuleName();
-          if (module != null) {
-            function.setFuncModule(module);
-          }
-          int oparg = ins.getOparg();
-          if ((oparg & 0x08) != 0) {
-            function.setFuncClosure(frame.pop());
-          }
-          if ((oparg & 0x04) != 0) {
-            function.setAnnotation(frame.pop());
-          }
-          if ((oparg & 0x02) != 0) {
-            function.setFuncKwDefaults(frame.pop());
-          }
-          if ((oparg & 0x01) != 0) {
-            function.setFuncDefaults(frame.pop());
-          }
-          frame.push(function);
-        }
-        case JUMP_IF_FALSE_OR_POP -> {
-          PyObject top = frame.top();
-          if (top == BuiltIn.False) byteCodeBuffer.reset(ins.getOparg());
-          else frame.pop();
-        }
-        case JUMP_IF_TRUE_OR_POP -> {
-          PyObject top = frame.top();
-          if (top == BuiltIn.True) byteCodeBuffer.reset(ins.getOparg());
-          else frame.pop();
-        }
-        case BUILD_TUPLE -> {
-          int size = ins.getOparg();
-          PyTupleObject tuple = new PyTupleObject(size);
-          int used = frame.getUsed();
-          for (int i = 0; i < size; ++i) {
-            tuple.set(i, frame.get(used - size + i));
-          }
-          frame.decreaseStackPointer(size);
-          frame.push(tuple);
-        }
-        case NOP -> {}
-        case YIELD_VALUE -> {
+        case OpMap.YIELD_VALUE -> {
           PyObject res = frame.top();
           if ((frame.getCode().getCoFlags() & Marshal.CO_GENERATOR) != 0) return res;
           error = new PyException("yield value is not supported", false);
         }
-          /*
-           * GET_YIELD_FROM_ITER If TOS is a generator iterator or
-           * coroutine object it is left as is.
-           * Otherwise, implements TOS = iter(TOS).
-           */
-        case GET_YIELD_FROM_ITER -> {
-          PyObject top = frame.top();
-          if (!(top instanceof PyGeneratorObject)) {
-            if (top instanceof TypeIterable iter) {
-              frame.setTop(1, (PyObject) iter.getIterator());
-              continue;
-            }
-            error = new PyException("require a generator or coroutine or iterable object");
-          }
-        }
-        case YIELD_FROM -> {
-          PyObject top = frame.pop();
-          PyObject gen = frame.top();
-          if (gen instanceof PyGeneratorObject g) {
-            frame.increaseStackPointer(1);
-            PyObject res = g.start(top);
-            if (res == BuiltIn.PyExcStopIteration) continue;
-            byteCodeBuffer.decrease(Instruction.sizeofByteCode);
-            return res;
-          } else error = new PyException("require a generator or coroutine or iterable object");
-        }
+        case OpMap.YIELD_FROM -> {
+          PyObject res = yieldFrom(idx);
+          if (res != null) return res;
+        }
+        case OpMap.JUMP_ABSOLUTE -> {
+          pc = targets[idx];
+          if (evalBreaker.isTripped()) handleEvalBreaker();
+        }
+        case OpMap.JUMP_FORWARD -> pc = targets[idx];
+        case OpMap.POP_JUMP_IF_FALSE -> popJumpIfFalse(idx);
+        case OpMap.POP_JUMP_IF_TRUE -> popJumpIfTrue(idx);
+        case OpMap.JUMP_IF_FALSE_OR_POP -> jumpIfFalseOrPop(idx);
+        case OpMap.JUMP_IF_TRUE_OR_POP -> jumpIfTrueOrPop(idx);
+        case OpMap.FOR_ITER -> forIter(idx);
+        case OpMap.GET_ITER -> getIter();
+        case OpMap.LOAD_NAME -> loadName(idx, oparg);
+        case OpMap.STORE_NAME -> storeName(oparg);
+        case OpMap.LOAD_GLOBAL -> loadGlobal(idx, oparg);
+        case OpMap.STORE_GLOBAL -> storeGlobal(oparg);
+        case OpMap.LOAD_ATTR -> loadAttr(idx, oparg);
+        case OpMap.STORE_ATTR -> storeAttr(oparg);
+        case OpMap.DELETE_FAST -> frame.setLocal(oparg, null);
+        case OpMap.LOAD_DEREF -> frame.push(frame.getFreeVars(oparg));
+        case OpMap.STORE_DEREF -> frame.setFreeVars(oparg, frame.pop());
+        case OpMap.LOAD_CLOSURE -> frame.push(frame.getFreeVarsCell(oparg));
+        case OpMap.LOAD_METHOD -> loadMethod(idx, oparg);
+        case OpMap.CALL_METHOD -> {
+          if (evalBreaker.isTripped()) handleEvalBreaker();
+          callMethod(idx, oparg);
+        }
+        case OpMap.CALL_FUNCTION -> {
+          if (evalBreaker.isTripped()) handleEvalBreaker();
+          callFunction(idx, oparg);
+        }
+        case OpMap.CALL_FUNCTION_KW -> {
+          if (evalBreaker.isTripped()) handleEvalBreaker();
+          callFunctionKw(oparg);
+        }
+        case OpMap.COMPARE_OP -> compareOp(idx, oparg);
+        case OpMap.COMPARE_OP_LONG -> compareOpLong(idx, oparg);
+        case OpMap.BINARY_ADD -> binaryAdd(idx);
+        case OpMap.BINARY_ADD_LONG -> binaryAddLong(idx);
+        case OpMap.BINARY_ADD_FLOAT -> binaryAddFloat(idx);
+        case OpMap.BINARY_ADD_UNICODE -> binaryAddUnicode(idx);
+        case OpMap.BINARY_SUBTRACT -> binarySubtract(idx);
+        case OpMap.BINARY_SUBTRACT_LONG -> binarySubtractLong(idx);
+        case OpMap.BINARY_SUBTRACT_FLOAT -> binarySubtractFloat(idx);
+        case OpMap.BINARY_MULTIPLY -> binaryMultiply(idx);
+        case OpMap.BINARY_MULTIPLY_LONG -> binaryMultiplyLong(idx);
+        case OpMap.BINARY_MULTIPLY_FLOAT -> binaryMultiplyFloat(idx);
+        case OpMap.BINARY_POWER -> binaryPower();
+        case OpMap.BINARY_MATRIX_MULTIPLY -> binaryMatrixMultiply();
+        case OpMap.BINARY_TRUE_DIVIDE -> binaryTrueDivide();
+        case OpMap.BINARY_FLOOR_DIVIDE -> binaryFloorDivide();
+        case OpMap.BINARY_MODULO -> binaryModulo();
+        case OpMap.BINARY_LSHIFT -> binaryLshift();
+        case OpMap.BINARY_RSHIFT -> binaryRshift();
+        case OpMap.BINARY_AND -> binaryAnd();
+        case OpMap.BINARY_XOR -> binaryXor();
+        case OpMap.BINARY_OR -> binaryOr();
+        case OpMap.BINARY_SUBSCR -> binarySubscr(idx);
+        case OpMap.BINARY_SUBSCR_LIST_LONG -> binarySubscrListLong(idx);
+        case OpMap.STORE_SUBSCR -> storeSubscr();
+        case OpMap.INPLACE_ADD -> inplaceAdd(idx);
+        case OpMap.INPLACE_ADD_LONG -> inplaceAddLong(idx);
+        case OpMap.INPLACE_SUBTRACT -> inplaceSubtract(idx);
+        case OpMap.INPLACE_SUBTRACT_LONG -> inplaceSubtractLong(idx);
+        case OpMap.INPLACE_MULTIPLY -> inplaceMultiply();
+        case OpMap.INPLACE_POWER -> inplacePower();
+        case OpMap.INPLACE_MATRIX_MULTIPLY -> inplaceMatrixMultiply();
+        case OpMap.INPLACE_TRUE_DIVIDE -> inplaceTrueDivide();
+        case OpMap.INPLACE_FLOOR_DIVIDE -> inplaceFloorDivide();
+        case OpMap.INPLACE_MODULO -> inplaceModulo();
+        case OpMap.INPLACE_LSHIFT -> inplaceLshift();
+        case OpMap.INPLACE_RSHIFT -> inplaceRshift();
+        case OpMap.INPLACE_AND -> inplaceAnd();
+        case OpMap.INPLACE_XOR -> inplaceXor();
+        case OpMap.INPLACE_OR -> inplaceOr();
+        case OpMap.UNARY_POSITIVE -> unaryPositive();
+        case OpMap.UNARY_NEGATIVE -> unaryNegative();
+        case OpMap.UNARY_INVERT -> unaryInvert();
+        case OpMap.UNARY_NOT -> unaryNot();
+        case OpMap.ROT_TWO -> rotTwo();
+        case OpMap.ROT_THREE -> rotThree();
+        case OpMap.ROT_FOUR -> rotFour();
+        case OpMap.DUP_TOP -> frame.push(frame.top());
+        case OpMap.DUP_TOP_TWO -> dupTopTwo();
+        case OpMap.BUILD_TUPLE -> buildTuple(oparg);
+        case OpMap.BUILD_LIST -> buildList(oparg);
+        case OpMap.BUILD_SET -> buildSet(oparg);
+        case OpMap.BUILD_MAP -> buildMap(oparg);
+        case OpMap.BUILD_CONST_KEY_MAP -> buildConstKeyMap();
+        case OpMap.BUILD_STRING -> buildString(oparg);
+        case OpMap.BUILD_SLICE -> buildSlice(oparg);
+        case OpMap.LIST_APPEND -> listAppend(oparg);
+        case OpMap.UNPACK_SEQUENCE -> unpackSequence(oparg);
+        case OpMap.FORMAT_VALUE -> formatValue(oparg);
+        case OpMap.MAKE_FUNCTION -> makeFunction(oparg);
+        case OpMap.LOAD_BUILD_CLASS -> loadBuildClass();
+        case OpMap.IMPORT_NAME -> importName(oparg);
+        case OpMap.IMPORT_FROM -> importFrom(oparg);
+        case OpMap.GET_YIELD_FROM_ITER -> getYieldFromIter();
+        case OpMap.NOP -> {}
         default -> throw new PyException(
-            "not support opcode " + OpMap.instructions.get(ins.getOpcode()) + " currently", true);
+            "not support opcode " + OpMap.opNames[opcodes[idx]] + " currently", true);
       }
-      if (error != null) throw new PyException(errorMessageTip(ins));
+      if (error != null) throw new PyException(errorMessageTip(idx));
       // check top whether is PyExcStopIteration
       if (frame.getUsed() > 0 && frame.top() == BuiltIn.PyExcStopIteration) {
         throw new PyException(
-            "Execution error with op " + ins.getOpname() + " PyExcStopIteration is thrown", false);
+            "Execution error with op "
+                + OpMap.opNames[opcodes[idx]]
+                + " PyExcStopIteration is thrown",
+            false);
+      }
+      // entered or left the frame of another code object
+      if (opcodes != this.opcodes) {
+        opcodes = this.opcodes;
+        opargs = this.opargs;
+      }
+    }
+  }
+
+  /**
+   * handle the events signaled through {@link #evalBreaker}, called on backward jumps and calls only
+   * so that straight line code does not pay for it
+   */
+  private void handleEvalBreaker() {
+    InterpreterState is = ts.getIs();
+    int bits = evalBreaker.getBits();
+    if ((bits & EvalBreaker.PENDING_CALLS) != 0) is.makePendingCalls();
+    if ((bits & EvalBreaker.GIL_DROP_REQUEST) != 0) {
+      // release global interpreter lock, another thread gets it before we ask for it again
+      is.dropGIL(ts);
+      // require  global interpreter lock
+      is.takeGIL(ts);
+    }
+  }
+
+  /**
+   * make f, the frame of a call executed by the instruction idx, the frame being evaluated, error is
+   * set instead if the recursion limit is reached
+   */
+  private void enterFrame(int idx, PyFrameObject f) {
+    ts.increaseRecursionDepth();
+    if (ts.isOverFlow()) {
+      ts.decreaseRecursionDepth();
+      error = new PyException("recursion depth exceeded");
+      return;
+    }
+    frame.setLastI(idx);
+    ts.setCurrentFrame(f);
+    load(f);
+    pc = 0;
+  }
+
+  /**
+   * return to the caller of the frame being evaluated, which resumes after its call. Returns the
+   * frame which has been left.
+   */
+  private PyFrameObject leaveFrame() {
+    PyFrameObject callee = frame;
+    PyFrameObject caller = frame.getBack();
+    ts.decreaseRecursionDepth();
+    ts.setCurrentFrame(caller);
+    load(caller);
+    pc = caller.getLastI() + 1;
+    return callee;
+  }
+
+  private void importName(int oparg) throws PyException {
+    frame.pop();
+    frame.pop();
+    PyObject name = coNames.get(oparg);
+    PyObject module = ts.getIs().getModule((PyUnicodeObject) name);
+    if (module != null) {
+      frame.push(module);
+      return;
+    }
+    String moduleName = ((PyUnicodeObject) name).getData();
+    ModuleFinder.Spec spec = ts.getIs().getModuleFinder().find(moduleName);
+    if (spec == null) {
+      error = new PyException("can not find a module named " + moduleName);
+      return;
+    }
+    PyModuleObject newModule;
+    if (spec.isNative()) {
+      newModule = spec.newNativeModule((PyUnicodeObject) name);
+    } else {
+      PyCodeObject code;
+      try {
+        code = spec.loadCode();
+      } catch (IOException e) {
+        error = new PyException("can not load module " + moduleName + " from " + spec.getPyc());
+        return;
       }
+      ts.getIs().prefetchImports(code);
+      newModule = new PyModuleObject((PyUnicodeObject) name);
+      evalModule(code, newModule.getDict());
+    }
+    ts.getIs().addModule((PyUnicodeObject) name, newModule);
+    frame.push(newModule);
+  }
+
+  private void importFrom(int oparg) throws PyException {
+    var name = coNames.get(oparg);
+    PyObject top = frame.top();
+    PyObject res = Utils.loadFiled(top, (PyUnicodeObject) name);
+    if (res != null) {
+      frame.push(res);
+      return;
     }
-    if (frame.hasArgs()) return frame.pop();
+    res = Utils.loadClassMethod(top, (PyUnicodeObject) name);
+    if (res != null) {
+      frame.push(res);
+      return;
+    }
+    res = top.getAttr(name);
+    if (res != null) {
+      frame.push(res);
+      return;
+    }
+    error = new PyException("can not import " + name.repr() + " from " + top.repr());
+  }
+
+  private void storeName(int oparg) throws PyException {
+    PyObject top = frame.pop();
+    PyObject o = coNames.get(oparg);
+    frame.getLocals().put(o, top);
+  }
+
+  private void storeGlobal(int oparg) throws PyException {
+    PyObject top = frame.pop();
+    PyObject o = coNames.get(oparg);
+    globals.put(o, top);
+  }
+
+  private void loadName(int idx, int oparg) {
+    PyDictObject locals = frame.getLocals();
+    if (inlineCaches[idx] instanceof GlobalCache cache
+        && cache.localsVersion == locals.getVersion()
+        && cache.globalsVersion == globals.getVersion()
+        && cache.builtinsVersion == builtins.getVersion()) {
+      frame.push(cache.value);
+      return;
+    }
+    PyObject name = coNames.get(oparg);
+    PyObject v = locals.get(name);
+    if (null == v) {
+      loadFromGlobal(frame, globals, builtins, name);
+    } else {
+      frame.push(v);
+    }
+    if (error == null)
+      inlineCaches[idx] =
+          new GlobalCache(
+              locals.getVersion(), globals.getVersion(), builtins.getVersion(), frame.top());
+  }
+
+  private void loadGlobal(int idx, int oparg) {
+    if (inlineCaches[idx] instanceof GlobalCache cache
+        && cache.globalsVersion == globals.getVersion()
+        && cache.builtinsVersion == builtins.getVersion()) {
+      frame.push(cache.value);
+      return;
+    }
+    PyObject name = coNames.get(oparg);
+    loadFromGlobal(frame, globals, builtins, name);
+    if (error == null)
+      inlineCaches[idx] =
+          new GlobalCache(0, globals.getVersion(), builtins.getVersion(), frame.top());
+  }
+
+  private void loadAttr(int idx, int oparg) throws PyException {
+    PyObject top = frame.top();
+    var name = (PyUnicodeObject) coNames.get(oparg);
+    if (inlineCaches[idx] instanceof AttrCache cache && cache.check(top, name)) {
+      frame.setTop(1, cache.load(top));
+      return;
+    }
+    if (--counters[idx] <= 0) {
+      inlineCaches[idx] = AttrCache.create(top, name, false);
+      // a new entry is only made again after the next backoff, even if this one misses soon
+      decodedCode.backoff(idx);
+    }
+    PyObject attr = top.getAttr(name);
+    if (null != attr) {
+      frame.pop();
+      frame.push(attr);
+      return;
+    }
+    PyObject res = getClassMethod(name);
+    if (res != null) {
+      frame.pop();
+      frame.push(res);
+      return;
+    }
+    error = null;
+    PyObject object = Utils.loadFiled(top, name);
+    if (object != null) {
+      frame.pop();
+      frame.push(object);
+      return;
+    }
+    error = new PyException("can not find attribute " + name.repr() + " in " + top.repr());
+  }
+
+  private void storeAttr(int oparg) throws PyException {
+    var name = (PyUnicodeObject) coNames.get(oparg);
+    PyObject object = frame.pop();
+    object.setAttr(name, frame.pop());
+  }
+
+  /**
+   * like cpython, pushes the unbound method and self when the method can be called with self
+   * prepended to its arguments, otherwise null and the bound method. No method object is allocated
+   * in the first case.
+   */
+  private void loadMethod(int idx, int oparg) throws PyException {
+    var name = (PyUnicodeObject) coNames.get(oparg);
+    PyObject obj = frame.pop();
+    if (inlineCaches[idx] instanceof AttrCache cache && cache.check(obj, name)) {
+      switch (cache.kind) {
+        case AttrCache.BIND_FUNCTION -> {
+          frame.push(cache.value);
+          frame.push(obj);
+        }
+        case AttrCache.BIND_JAVA -> {
+          frame.push(cache.unboundMethod);
+          frame.push(obj);
+        }
+        default -> {
+          frame.push(null);
+          frame.push(cache.value);
+        }
+      }
+      return;
+    }
+    if (--counters[idx] <= 0) {
+      inlineCaches[idx] = AttrCache.create(obj, name, true);
+      decodedCode.backoff(idx);
+    }
+    PyObject method = obj.getMethod(name);
+    if (method != null && method != BuiltIn.None) {
+      frame.push(null);
+      frame.push(method);
+      return;
+    }
+    error = new PyException("object + " + obj.repr() + " not have method " + name.repr());
+  }
+
+  private void callMethod(int idx, int oparg) throws PyException {
+    int offset = frame.getUsed() - oparg;
+    PyObject unbound = frame.get(offset - 2);
+    PyObject method = frame.get(offset - 1);
+    if (unbound != null) {
+      // the slot of the bound method holds self
+      frame.decreaseStackPointer(oparg + 2);
+      if (stackless && unbound instanceof PyFunctionObject func) {
+        callPython(idx, func, offset - 1, oparg + 1);
+        return;
+      }
+      try {
+        frame.push(
+            Abstract.vectorCall(ts, unbound, frame.getStack(), offset - 1, oparg + 1, frame));
+      } catch (PyException e) {
+        error = e;
+      }
+    } else if (method instanceof PyMethodObject m) {
+      frame.decreaseStackPointer(oparg + 2);
+      try {
+        frame.push(m.vectorCall(ts, frame.getStack(), offset, oparg, frame));
+      } catch (PyException e) {
+        error = e;
+      }
+    } else if (method instanceof PyTypeType type) {
+      PyTupleObject args = getArgs(oparg);
+      frame.decreaseStackPointer(2);
+      frame.push(type.call(null, args, null));
+    } else error = new PyException("object " + method.repr() + " can not be called");
+  }
+
+  private void callFunction(int idx, int oparg) {
+    int offset = frame.getUsed() - oparg;
+    PyObject callable = frame.get(offset - 1);
+    frame.decreaseStackPointer(oparg + 1);
+    if (stackless && callable instanceof PyFunctionObject func) {
+      callPython(idx, func, offset, oparg);
+      return;
+    }
+    try {
+      PyObject object = Abstract.vectorCall(ts, callable, frame.getStack(), offset, oparg, frame);
+      assert object != null;
+      frame.push(object);
+    } catch (PyException e) {
+      e.printStackTrace();
+      error = e;
+    }
+    // other callable object to be implemented
+  }
+
+  /**
+   * call func with the arguments stack[offset, offset + nargs) of the current frame by entering its
+   * frame, generator functions just create their generator
+   */
+  private void callPython(int idx, PyFunctionObject func, int offset, int nargs) {
+    try {
+      PyFrameObject f = Abstract.newFunctionFrame(ts, func, frame.getStack(), offset, nargs, frame);
+      if (f.getCode().getArgBinding().isGenerator()) frame.push(new PyGeneratorObject(f));
+      else enterFrame(idx, f);
+    } catch (PyException e) {
+      error = e;
+    }
+  }
+
+  private void callFunctionKw(int oparg) throws PyException {
+    PyObject pop = frame.pop();
+    if (!(pop instanceof PyTupleObject tuple)) {
+      error = new PyTypeNotMatch("CALL_FUNCTION_KW stack top requires PyTupleObject");
+      return;
+    }
+    PyDictObject kwArgs = new PyDictObject();
+    for (int i = tuple.size() - 1; i >= 0; i--) {
+      kwArgs.put(tuple.get(i), frame.pop());
+    }
+    PyTupleObject args = new PyTupleObject(oparg - tuple.size());
+    for (int i = args.size() - 1; i >= 0; i--) args.set(i, frame.pop());
+    PyObject callable = frame.pop();
+    try {
+      PyObject object = Abstract.abstractCall(ts, callable, null, args, kwArgs, frame);
+      frame.push(object);
+    } catch (PyException e) {
+      error = e;
+    } catch (Exception e) {
+      e.printStackTrace();
+      error = new PyException("Java native exception occurred : " + e.getMessage(), false);
+    }
+    // other callable object to be implemented
+  }
+
+  private void buildConstKeyMap() throws PyException {
+    var keys = (PyTupleObject) frame.pop();
+    PyDictObject dict = new PyDictObject();
+    int size = keys.size();
+    for (int i = 0; i < size; i++) {
+      dict.put(keys.get(size - 1 - i), frame.pop());
+    }
+    frame.push(dict);
+  }
+
+  private void unpackSequence(int size) throws PyException {
+    PyObject top = frame.pop();
+    if (top instanceof PyTupleObject tuple) {
+      if (tuple.size() == size) {
+        for (int i = 0; i < tuple.size(); i++)
+          // push argument from right to left
+          frame.push(tuple.get(size - 1 - i));
+        return;
+      }
+    } else if (top instanceof PyListObject list) {
+      if (list.size() == size) {
+        for (int i = 0; i < list.size(); i++)
+          // push argument from right to left
+          frame.push(list.get(size - 1 - i));
+        return;
+      }
+    } else if (top instanceof TypeDoIterate itr) {
+      if (itr.size() == size) {
+        frame.increaseStackPointer(size);
+        for (int i = 0; i < size; i++) {
+          frame.setTop(i + 1, itr.next());
+        }
+        return;
+      }
+    } else if (top instanceof TypeIterable iterable) {
+      // java collection views and other iterables which are not iterators themselves
+      TypeDoIterate itr = iterable.getIterator();
+      if (itr.size() == size) {
+        frame.increaseStackPointer(size);
+        for (int i = 0; i < size; i++) {
+          frame.setTop(i + 1, itr.next());
+        }
+        return;
+      }
+    }
+    throw new PyException(top.repr() + " can not be unpacked into " + size + " objects");
+  }
+
+  private void listAppend(int oparg) {
+    PyObject top = frame.pop();
+    PyListObject list = (PyListObject) frame.top(oparg);
+    list.append(top);
+  }
+
+  private void formatValue(int oparg) {
+    boolean have_fmt_spec = (oparg & FVS_MASK) == FVS_HAVE_SPEC;
+    PyObject spec = have_fmt_spec ? frame.pop() : null;
+    PyObject val = frame.pop();
+    switch (oparg & FVC_MASK) {
+      case FVC_NONE -> frame.push(val);
+      case FVC_STR -> frame.push(val.str());
+      case FVC_REPR -> frame.push(val.repr());
+      case FVC_ASCII -> frame.push(new PyUnicodeObject(val.toString()));
+    }
+  }
+
+  private void buildString(int size) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < size; i++) {
+      PyObject object = frame.get(frame.getUsed() - size + i);
+      builder.append(object.str().getData());
+    }
+    frame.decreaseStackPointer(size);
+    frame.push(new PyUnicodeObject(builder.toString()));
+  }
+
+  private void forIter(int idx) throws PyException {
+    PyObject top = frame.top();
+    if (top instanceof TypeDoIterate itr) {
+      PyObject next = itr.next();
+      if (next != BuiltIn.PyExcStopIteration) {
+        frame.push(next);
+      } else {
+        frame.pop();
+        pc = targets[idx];
+      }
+    } else {
+      error = new PyTypeNotMatch("require an iterator on stack top");
+      error.setInternalError(true);
+    }
+  }
+
+  private void getIter() throws PyException {
+    PyObject pop = frame.pop();
+    if (pop instanceof TypeIterable itr) {
+      frame.push((PyObject) itr.getIterator());
+    } else error = new PyException(pop.repr() + " is not a iterable object");
+  }
+
+  private void binaryMultiply(int idx) throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    if (--counters[idx] == 0) Specializer.specializeBinaryMultiply(decodedCode, idx, left, right);
+    PyObject res = Abstract.multiply(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error =
+          new PyException("can not apply multiply on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryAdd(int idx) throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    if (--counters[idx] == 0) Specializer.specializeBinaryAdd(decodedCode, idx, left, right);
+    PyObject res = Abstract.add(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binarySubtract(int idx) throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    if (--counters[idx] == 0) Specializer.specializeBinarySubtract(decodedCode, idx, left, right);
+    PyObject res = Abstract.sub(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceAdd(int idx) throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    if (--counters[idx] == 0) Specializer.specializeInplaceAdd(decodedCode, idx, left, right);
+    PyObject res = Abstract.inplaceAdd(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceAnd() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceAnd(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceLshift() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceLshift(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceMultiply() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceMul(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceOr() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceOr(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceSubtract(int idx) throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    if (--counters[idx] == 0) Specializer.specializeInplaceSubtract(decodedCode, idx, left, right);
+    PyObject res = Abstract.inplaceSub(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplacePower() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplacePow(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceFloorDivide() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceFloorDiv(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceRshift() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceRshift(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceTrueDivide() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceTrueDiv(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceMatrixMultiply() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceMatrixMul(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceModulo() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceMod(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply add on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void rotTwo() {
+    PyObject o1 = frame.pop();
+    PyObject o2 = frame.pop();
+    frame.push(o1);
+    frame.push(o2);
+  }
+
+  private void rotThree() {
+    PyObject o1 = frame.pop();
+    PyObject o2 = frame.pop();
+    PyObject o3 = frame.pop();
+    frame.push(o1);
+    frame.push(o2);
+    frame.push(o3);
+  }
+
+  private void rotFour() {
+    PyObject o1 = frame.pop();
+    PyObject o2 = frame.pop();
+    PyObject o3 = frame.pop();
+    PyObject o4 = frame.pop();
+    frame.push(o1);
+    frame.push(o2);
+    frame.push(o3);
+    frame.push(o4);
+  }
+
+  private void dupTopTwo() {
+    PyObject o1 = frame.top(1);
+    PyObject o2 = frame.top(2);
+    frame.push(o2);
+    frame.push(o1);
+  }
+
+  private void unaryPositive() {
+    PyObject top = frame.pop();
+    if (top instanceof PyNumberMethods num) {
+      try {
+        frame.push(num.pos());
+      } catch (PyException e) {
+        error = e;
+      }
+    } else error = new PyTypeError(top.repr() + " not support operator +");
+  }
+
+  private void unaryNegative() {
+    PyObject top = frame.pop();
+    if (top instanceof PyNumberMethods num) {
+      try {
+        frame.push(num.neg());
+      } catch (PyException e) {
+        error = e;
+      }
+    } else error = new PyTypeError(top.repr() + " not support operator -");
+  }
+
+  private void unaryInvert() {
+    PyObject top = frame.pop();
+    if (top instanceof PyNumberMethods num) {
+      try {
+        frame.push(num.invert());
+      } catch (PyException e) {
+        error = e;
+      }
+    } else error = new PyTypeError(top.repr() + " not support operator ~");
+  }
+
+  private void unaryNot() throws PyException {
+    PyObject top = frame.pop();
+    if (Abstract.isTrue(top).isTrue()) frame.push(BuiltIn.False);
+    else frame.push(BuiltIn.True);
+  }
+
+  private void binaryPower() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.pow(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply pow on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryMatrixMultiply() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.matrixMul(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error =
+          new PyException("can not apply matrixMul on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryTrueDivide() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.trueDiv(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply trueDiv on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryFloorDivide() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.floorDiv(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error =
+          new PyException("can not apply floorDiv on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryModulo() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.mod(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply mod on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void buildSlice(int oparg) {
+    PyObject t1 = frame.pop();
+    PyObject t2 = frame.pop();
+    if (oparg == 2) {
+      PySliceObject sliceObject = new PySliceObject(t2, t1, PyLongObject.getLongObject(1));
+      frame.push(sliceObject);
+    } else if (oparg == 3) {
+      PySliceObject sliceObject = new PySliceObject(frame.pop(), t2, t1);
+      frame.push(sliceObject);
+    }
+  }
+
+  private void binarySubscr(int idx) {
+    PyObject sub = frame.pop();
+    PyObject container = frame.pop();
+    if (--counters[idx] == 0) Specializer.specializeBinarySubscr(decodedCode, idx, container, sub);
+    try {
+      PyObject item = Abstract.getItem(container, sub);
+      if (item == BuiltIn.notImplemented)
+        error =
+            new PyException("can not apply BINARY_SUBSCR on " + container + " and " + sub.repr());
+      else frame.push(item);
+    } catch (PyException e) {
+      error = e;
+    }
+  }
+
+  private void storeSubscr() throws PyException {
+    PyObject key = frame.pop();
+    PyObject obj = frame.pop();
+    PyObject val = frame.pop();
+    Abstract.assignItem(obj, key, val);
+  }
+
+  private void binaryLshift() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.lshift(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply lshift on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryRshift() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.rshift(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply rshift on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryAnd() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.and(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply and on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryXor() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.xor(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply xor on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void inplaceXor() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.inplaceXor(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error =
+          new PyException("can not apply inplaceXor on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void binaryOr() throws PyException {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    PyObject res = Abstract.or(left, right);
+    if (res == BuiltIn.notImplemented) {
+      error = new PyException("can not apply or on " + left.repr() + " and " + right.repr());
+    }
+    frame.push(res);
+  }
+
+  private void buildList(int size) {
+    PyListObject listObject = new PyListObject();
+    int used = frame.getUsed();
+    for (int i = 0; i < size; ++i) {
+      listObject.append(frame.get(used - size + i));
+    }
+    frame.decreaseStackPointer(size);
+    frame.push(listObject);
+  }
+
+  private void buildSet(int size) throws PyException {
+    PySetObject setObject = new PySetObject();
+    for (int i = 0; i < size; i++) {
+      setObject.add(frame.pop());
+    }
+    frame.push(setObject);
+  }
+
+  private void buildMap(int size) throws PyException {
+    PyDictObject dictObject = new PyDictObject();
+    for (int i = 0; i < size; i++) {
+      PyObject val = frame.pop();
+      PyObject key = frame.pop();
+      dictObject.put(key, val);
+    }
+    frame.push(dictObject);
+  }
+
+  private void popJumpIfFalse(int idx) {
+    PyObject pop = frame.pop();
+    if (pop instanceof PyBoolObject b) {
+      if (b.isFalse()) pc = targets[idx];
+    } else error = new PyException("POP_JUMP_IF_FALSE require boo on stack top");
+  }
+
+  private void popJumpIfTrue(int idx) {
+    PyObject pop = frame.pop();
+    if (pop instanceof PyBoolObject b) {
+      if (b.isTrue()) pc = targets[idx];
+    } else error = new PyException("POP_JUMP_IF_FALSE require boo on stack top");
+  }
+
+  private void jumpIfFalseOrPop(int idx) {
+    PyObject top = frame.top();
+    if (top == BuiltIn.False) pc = targets[idx];
+    else frame.pop();
+  }
+
+  private void jumpIfTrueOrPop(int idx) {
+    PyObject top = frame.top();
+    if (top == BuiltIn.True) pc = targets[idx];
+    else frame.pop();
+  }
+
+  private void compareOp(int idx, int oparg) {
+    PyObject right = frame.pop();
+    PyObject left = frame.pop();
+    if (--counters[idx] == 0)
+      Specializer.specializeCompareOp(decodedCode, idx, oparg, left, right);
+    PyObject result;
+    try {
+      switch (oparg) {
+        case TypeRichCompare.Py_LT -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.Py_LT);
+        case TypeRichCompare.Py_LE -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.Py_LE);
+        case TypeRichCompare.Py_EQ -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.Py_EQ);
+        case TypeRichCompare.Py_NE -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.Py_NE);
+        case TypeRichCompare.Py_GT -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.Py_GT);
+        case TypeRichCompare.Py_GE -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.Py_GE);
+        case TypeRichCompare.PyCmp_IN -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_IN);
+        case TypeRichCompare.PyCmp_NOT_IN -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_NOT_IN);
+        case TypeRichCompare.PyCmp_IS -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_IS);
+        case TypeRichCompare.PyCmp_IS_NOT -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_IS_NOT);
+        case TypeRichCompare.PyCmp_EXC_MATCH -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_EXC_MATCH);
+        case TypeRichCompare.PyCmp_BAD -> result =
+            Abstract.compare(left, right, TypeRichCompare.Operator.PyCmp_BAD);
+        default -> throw new PyException("Unknow COMPARE_OP operator" + oparg);
+      }
+      frame.push(result);
+    } catch (PyException e) {
+      error = e;
+    }
+  }
+
+  /*
+   * Specialized instructions written by quickening. Each one checks the exact classes of its
+   * operands, on a guard failure the instruction is deoptimized and the generic handler runs.
+   */
+
+  private void binaryAddLong(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isLong(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1, new PyLongObject(((PyLongObject) left).getData() + ((PyLongObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binaryAdd(idx);
+  }
+
+  private void binaryAddFloat(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isFloat(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1,
+          new PyFloatObject(((PyFloatObject) left).getData() + ((PyFloatObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binaryAdd(idx);
+  }
+
+  private void binaryAddUnicode(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (left.getClass() == PyUnicodeObject.class && right.getClass() == PyUnicodeObject.class) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1,
+          new PyUnicodeObject(
+              ((PyUnicodeObject) left).getData() + ((PyUnicodeObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binaryAdd(idx);
+  }
+
+  private void binarySubtractLong(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isLong(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1, new PyLongObject(((PyLongObject) left).getData() - ((PyLongObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binarySubtract(idx);
+  }
+
+  private void binarySubtractFloat(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isFloat(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1,
+          new PyFloatObject(((PyFloatObject) left).getData() - ((PyFloatObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binarySubtract(idx);
+  }
+
+  private void binaryMultiplyLong(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isLong(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1, new PyLongObject(((PyLongObject) left).getData() * ((PyLongObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binaryMultiply(idx);
+  }
+
+  private void binaryMultiplyFloat(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isFloat(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1,
+          new PyFloatObject(((PyFloatObject) left).getData() * ((PyFloatObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binaryMultiply(idx);
+  }
+
+  private void inplaceAddLong(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isLong(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1, new PyLongObject(((PyLongObject) left).getData() + ((PyLongObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    inplaceAdd(idx);
+  }
+
+  private void inplaceSubtractLong(int idx) throws PyException {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isLong(left, right)) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(
+          1, new PyLongObject(((PyLongObject) left).getData() - ((PyLongObject) right).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    inplaceSubtract(idx);
+  }
+
+  private void compareOpLong(int idx, int oparg) {
+    PyObject right = frame.top();
+    PyObject left = frame.top(2);
+    if (Specializer.isLong(left, right)) {
+      long l = ((PyLongObject) left).getData();
+      long r = ((PyLongObject) right).getData();
+      boolean res =
+          switch (oparg) {
+            case TypeRichCompare.Py_LT -> l < r;
+            case TypeRichCompare.Py_LE -> l <= r;
+            case TypeRichCompare.Py_EQ -> l == r;
+            case TypeRichCompare.Py_NE -> l != r;
+            case TypeRichCompare.Py_GT -> l > r;
+            default -> l >= r;
+          };
+      frame.decreaseStackPointer(1);
+      frame.setTop(1, res ? BuiltIn.True : BuiltIn.False);
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    compareOp(idx, oparg);
+  }
+
+  private void binarySubscrListLong(int idx) {
+    PyObject sub = frame.top();
+    PyObject container = frame.top(2);
+    if (container.getClass() == PyListObject.class && sub.getClass() == PyLongObject.class) {
+      frame.decreaseStackPointer(1);
+      frame.setTop(1, ((PyListObject) container).get((int) ((PyLongObject) sub).getData()));
+      return;
+    }
+    decodedCode.deoptimize(idx);
+    binarySubscr(idx);
+  }
+
+  private void loadBuildClass() throws PyException {
+    PyObject res =
+        builtins.get(PyUnicodeObject.getOrCreateFromInternStringPool("__build_class__", true));
+    frame.push(res);
+  }
+
+  private void makeFunction(int oparg) {
+    PyObject qualname = frame.pop();
+    if (!(qualname instanceof PyUnicodeObject)) {
+      error = new PyException("qualname require PyUnicodeObject", true);
+      return;
+    }
+    PyCodeObject codeObject = (PyCodeObject) frame.pop();
+    // just for debugging to avoid cycle reference, idea will get stuck for toString method
+    //          {
+    //            PyDictObject dict = new PyDictObject();
+    //            dict.addAll(globals);
+    //          }
+    PyFunctionObject function =
+        new PyFunctionObject(codeObject, globals, (PyUnicodeObject) qualname);
+    // Simply for compatibility with previous code
+    PyUnicodeObject module = frame.getModuleName();
+    if (module != null) {
+      function.setFuncModule(module);
+    }
+    if ((oparg & 0x08) != 0) {
+      function.setFuncClosure(frame.pop());
+    }
+    if ((oparg & 0x04) != 0) {
+      function.setAnnotation(frame.pop());
+    }
+    if ((oparg & 0x02) != 0) {
+      function.setFuncKwDefaults(frame.pop());
+    }
+    if ((oparg & 0x01) != 0) {
+      function.setFuncDefaults(frame.pop());
+    }
+    frame.push(function);
+  }
+
+  private void buildTuple(int size) {
+    PyTupleObject tuple = new PyTupleObject(size);
+    int used = frame.getUsed();
+    for (int i = 0; i < size; ++i) {
+      tuple.set(i, frame.get(used - size + i));
+    }
+    frame.decreaseStackPointer(size);
+    frame.push(tuple);
+  }
+
+  /*
+   * GET_YIELD_FROM_ITER If TOS is a generator iterator or
+   * coroutine object it is left as is.
+   * Otherwise, implements TOS = iter(TOS).
+   */
+  private void getYieldFromIter() throws PyException {
+    PyObject top = frame.top();
+    if (!(top instanceof PyGeneratorObject)) {
+      if (top instanceof TypeIterable iter) {
+        frame.setTop(1, (PyObject) iter.getIterator());
+        return;
+      }
+      error = new PyException("require a generator or coroutine or iterable object");
+    }
+  }
+
+  /**
+   * @return value yielded by the sub generator, or null if the sub generator is exhausted and the
+   *     evaluation loop should go on
+   */
+  private PyObject yieldFrom(int idx) throws PyException {
+    PyObject top = frame.pop();
+    PyObject gen = frame.top();
+    if (gen instanceof PyGeneratorObject g) {
+      frame.increaseStackPointer(1);
+      PyObject res = g.start(top);
+      if (res == BuiltIn.PyExcStopIteration) return null;
+      // execute YIELD_FROM again when the generator is resumed
+      pc = idx;
+      return res;
+    } else error = new PyException("require a generator or coroutine or iterable object");
     return null;
   }
 
-  private String errorMessageTip(Instruction ins) {
+  private String errorMessageTip(int idx) {
     return "Execution error with op "
-        + ins.getOpname()
+        + OpMap.opNames[opcodes[idx]]
         + " in module "
         + frame.getCode().getCoName()
         + ":\n"
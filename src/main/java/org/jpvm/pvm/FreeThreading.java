@@ -0,0 +1,17 @@
+package org.jpvm.pvm;
+
+/**
+ * experimental free-threaded mode, like the --disable-gil build of cpython. When it is enabled the
+ * global interpreter lock is never taken, so threads calling into the same interpreter run python
+ * code in parallel, and dict, list and set objects are backed by thread-safe java collections.
+ *
+ * <p>The mode is fixed for the whole process before the first object is created, it is read from
+ * {@code free-threading} of {@link RuntimeConfig}. Being a constant, the checks of the disabled mode
+ * are folded away by the jit.
+ */
+public final class FreeThreading {
+
+  public static final boolean ENABLED = RuntimeConfig.getBoolean("free-threading", false);
+
+  private FreeThreading() {}
+}
@@ -0,0 +1,118 @@
+package org.jpvm.pvm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jpvm.errors.PyException;
+import org.jpvm.pycParser.PyCodeObject;
+import org.jpvm.pycParser.PycReader;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+/**
+ * modules frozen into the classpath, like the frozen modules of cpython. Every {@code
+ * jpvm-frozen.yml} resource maps module names to a native module class, such as those of {@code
+ * org/jpvm/stl}, or to a pyc resource. The index is read once when the first module is imported,
+ * so importing a frozen module neither probes the search path nor touches the disk.
+ *
+ * <p>An index which can not be read and an entry naming no module class are skipped and recorded in
+ * {@link #skipped()}, such a module is looked for on the search path as if it were not frozen.
+ */
+final class FrozenModules {
+
+  private static final String INDEX = "jpvm-frozen.yml";
+
+  /** the problems found while reading the indexes, filled by {@link #load()} */
+  private static final List<String> skipped = new ArrayList<>();
+
+  private static final Map<String, ModuleFinder.Spec> specs = load();
+
+  private FrozenModules() {}
+
+  /** the frozen module named name, null if it is not frozen */
+  static ModuleFinder.Spec find(String name) {
+    return specs.get(name);
+  }
+
+  /** the indexes and entries skipped, each with the reason */
+  static List<String> skipped() {
+    return Collections.unmodifiableList(skipped);
+  }
+
+  private static Map<String, ModuleFinder.Spec> load() {
+    Map<String, ModuleFinder.Spec> res = new HashMap<>();
+    Enumeration<URL> indexes;
+    try {
+      indexes = FrozenModules.class.getClassLoader().getResources(INDEX);
+    } catch (IOException e) {
+      report("can not list " + INDEX + ": " + e);
+      return res;
+    }
+    while (indexes.hasMoreElements()) {
+      URL url = indexes.nextElement();
+      Map<?, ?> index;
+      try (InputStream in = url.openStream()) {
+        index = new Yaml().loadAs(in, Map.class);
+      } catch (IOException | YAMLException e) {
+        report("can not read " + url + ": " + e);
+        continue;
+      }
+      if (index == null) continue;
+      for (Map.Entry<?, ?> e : index.entrySet()) {
+        String name = String.valueOf(e.getKey());
+        // the first index on the classpath wins, as the first entry of a search path
+        if (res.containsKey(name)) continue;
+        ModuleFinder.Spec spec = e.getValue() == null ? null : spec(name, e.getValue().toString());
+        if (spec == null) report("frozen module " + name + " of " + url + ": no module class");
+        else res.put(name, spec);
+      }
+    }
+    return res;
+  }
+
+  /** the spec of a frozen module, null if value names no module class */
+  private static ModuleFinder.Spec spec(String name, String value) {
+    if (value.endsWith(".pyc")) {
+      String resource = value.startsWith("/") ? value.substring(1) : value;
+      return new ModuleFinder.Spec(name, resource, new Pyc(resource), null);
+    }
+    var constructor = ModuleFinder.moduleConstructor(value);
+    return constructor == null ? null : new ModuleFinder.Spec(name, null, null, constructor);
+  }
+
+  private static void report(String problem) {
+    skipped.add(problem);
+  }
+
+  /** a frozen pyc resource, read on its first import and unmarshalled on every import */
+  private static final class Pyc implements ModuleFinder.CodeLoader {
+    private final String resource;
+    private volatile byte[] bytes;
+
+    private Pyc(String resource) {
+      this.resource = resource;
+    }
+
+    @Override
+    public PyCodeObject load() throws IOException, PyException {
+      byte[] res = bytes;
+      if (res == null) {
+        try (InputStream in = FrozenModules.class.getClassLoader().getResourceAsStream(resource)) {
+          if (in == null) throw new IOException("missing frozen module resource " + resource);
+          res = in.readAllBytes();
+        }
+        bytes = res;
+      }
+      PycReader reader = new PycReader(resource);
+      reader.doParse(ByteBuffer.wrap(res));
+      return reader.getCodeObject();
+    }
+  }
+}
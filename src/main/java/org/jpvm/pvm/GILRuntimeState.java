@@ -1,15 +1,27 @@
 package org.jpvm.pvm;
 
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * the global interpreter lock, a port of the "new GIL" of cpython (Python/ceval_gil.h). A thread
+ * waiting for the lock asks the holder to drop it once the switch interval elapsed without any
+ * switch, the request reaches the holder through {@link EvalBreaker#GIL_DROP_REQUEST}. A holder
+ * dropping the lock on request waits until another thread took it (FORCE_SWITCHING), so it can not
+ * grab the lock back at once and starve the waiters.
+ */
 public class GILRuntimeState {
-  private final AtomicBoolean locked;
+  private final EvalBreaker evalBreaker;
+  /** protects locked and is signaled when the lock is dropped */
   private final ReentrantLock lock;
   private final Condition condition;
-  private long interval;
+  /** protects lastHolder and is signaled when the lock changes hands */
+  private final ReentrantLock switchLock;
+  private final Condition switchCondition;
+  /** switch interval in nanoseconds */
+  private volatile long interval;
+  private volatile boolean locked;
   private volatile boolean dropGILRequest;
   /**
    * purpose of use a1-a8/b1-b8/c1-c8 is to avoid false sharing
@@ -20,24 +32,30 @@ public class GILRuntimeState {
   private volatile long c1, c2, c3, c4, c5, c6, c7, c8;
   private volatile Thread lastHolder;
 
-  public GILRuntimeState(long interval) {
-    this.interval = interval;
+  /**
+   * @param interval switch interval in microseconds
+   */
+  public GILRuntimeState(long interval, EvalBreaker evalBreaker) {
+    this.evalBreaker = evalBreaker;
+    this.interval = TimeUnit.MICROSECONDS.toNanos(interval);
     lock = new ReentrantLock();
     condition = lock.newCondition();
+    switchLock = new ReentrantLock();
+    switchCondition = switchLock.newCondition();
     switchNumber = 0;
-    locked = new AtomicBoolean();
   }
 
+  /** switch interval in microseconds */
   public long getInterval() {
-    return interval;
+    return TimeUnit.NANOSECONDS.toMicros(interval);
   }
 
   public void setInterval(long interval) {
-    this.interval = interval;
+    this.interval = TimeUnit.MICROSECONDS.toNanos(interval);
   }
 
   public boolean isLocked() {
-    return locked.get();
+    return locked;
   }
 
   public long getSwitchNumber() {
@@ -56,46 +74,76 @@ public class GILRuntimeState {
     return dropGILRequest;
   }
 
-  public void takeGIL() {
+  /** acquire the lock for the thread of ts, the time spent waiting is added to ts */
+  public void takeGIL(ThreadState ts) {
+    long start = System.nanoTime();
+    lock.lock();
     try {
-      lock.lock();
-      for (; ; ) {
-        while (locked.get()) {
-          long saveSwitchNumber = switchNumber;
-          long start = System.currentTimeMillis();
+      while (locked) {
+        long saveSwitchNumber = switchNumber;
+        long remaining = interval;
+        // wait a whole interval, spurious wakeups and signals taken by other waiters included
+        while (locked && remaining > 0) {
           try {
-            condition.await(interval, TimeUnit.MILLISECONDS);
+            remaining = condition.awaitNanos(remaining);
           } catch (InterruptedException ignored) {
             // do nothing
           }
-          long end = System.currentTimeMillis();
-          if ((end - start) >= interval
-              && locked.get() && !dropGILRequest
-              && saveSwitchNumber == switchNumber) {
-            dropGILRequest = true;
-          }
         }
-        // many threads can reach here at the same time
-        // so below code is critical section
-        // avoid data race by using atomic operations
-        if (locked.compareAndSet(false, true)) {
-          dropGILRequest = false;
-          break;
+        if (locked && saveSwitchNumber == switchNumber && !dropGILRequest) {
+          dropGILRequest = true;
+          evalBreaker.set(EvalBreaker.GIL_DROP_REQUEST);
         }
       }
+      switchLock.lock();
+      try {
+        locked = true;
+        Thread current = Thread.currentThread();
+        if (lastHolder != current) {
+          lastHolder = current;
+          switchNumber++;
+        }
+        switchCondition.signalAll();
+      } finally {
+        switchLock.unlock();
+      }
+      if (dropGILRequest) {
+        dropGILRequest = false;
+        evalBreaker.clear(EvalBreaker.GIL_DROP_REQUEST);
+      }
     } finally {
       lock.unlock();
     }
+    ts.setHoldingGIL(true);
+    ts.addGILWait(System.nanoTime() - start);
   }
 
-  public void dropGIL() {
+  /**
+   * release the lock, if another thread requested it the caller blocks until that thread got the
+   * lock
+   */
+  public void dropGIL(ThreadState ts) {
+    ts.setHoldingGIL(false);
+    lock.lock();
     try {
-      lock.lock();
-      locked.set(false);
-      lastHolder = Thread.currentThread();
+      locked = false;
       condition.signal();
     } finally {
       lock.unlock();
     }
+    if (!dropGILRequest) return;
+    Thread current = Thread.currentThread();
+    switchLock.lock();
+    try {
+      while (lastHolder == current && dropGILRequest) {
+        try {
+          switchCondition.await();
+        } catch (InterruptedException ignored) {
+          // do nothing
+        }
+      }
+    } finally {
+      switchLock.unlock();
+    }
   }
 }
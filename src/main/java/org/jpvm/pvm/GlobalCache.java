@@ -0,0 +1,25 @@
+package org.jpvm.pvm;
+
+import org.jpvm.objects.PyObject;
+
+/**
+ * inline cache entry of a LOAD_GLOBAL or LOAD_NAME instruction. The cached value is valid while
+ * the version tags of the dicts it was looked up in are unchanged, dict version tags are unique
+ * across dicts so a hit also implies the same dicts. Entries are immutable, a miss replaces the
+ * whole entry.
+ */
+final class GlobalCache {
+
+  /** version of the locals dict, only checked by LOAD_NAME */
+  final long localsVersion;
+  final long globalsVersion;
+  final long builtinsVersion;
+  final PyObject value;
+
+  GlobalCache(long localsVersion, long globalsVersion, long builtinsVersion, PyObject value) {
+    this.localsVersion = localsVersion;
+    this.globalsVersion = globalsVersion;
+    this.builtinsVersion = builtinsVersion;
+    this.value = value;
+  }
+}
@@ -1,7 +1,12 @@
 package org.jpvm.pvm;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.jpvm.errors.PyException;
 import org.jpvm.objects.*;
+import org.jpvm.pycParser.PyCodeObject;
 
 public class InterpreterState {
 
@@ -10,17 +15,35 @@ public class InterpreterState {
    */
   private final PyDictObject modules;
   private final GILRuntimeState gil;
+  private final EvalBreaker evalBreaker;
+  /**
+   * state of each thread which entered this interpreter. Not a thread local, whose entries of
+   * pooled threads would keep a dropped interpreter and all its code alive.
+   */
+  private final Map<Thread, ThreadState> threadStates;
+  /** calls to be run by the evaluation loop, signal handlers for example */
+  private final ConcurrentLinkedQueue<Runnable> pendingCalls;
   private final PyListObject searchPath;
+  private final ModuleFinder moduleFinder;
   /**
    * the builtins module
    */
   private PyDictObject builtins;
-  private int maxRecursionDepth = 100;
+  private int maxRecursionDepth = 10000;
+  /**
+   * whether calls of python functions switch frames inside the running evaluation loop instead of
+   * recursing on the java stack
+   */
+  private boolean stackless = true;
 
   public InterpreterState(long interval) {
     modules = new PyDictObject();
-    gil = new GILRuntimeState(interval);
+    evalBreaker = new EvalBreaker();
+    pendingCalls = new ConcurrentLinkedQueue<>();
+    gil = new GILRuntimeState(interval, evalBreaker);
     searchPath = new PyListObject();
+    moduleFinder = new ModuleFinder(searchPath);
+    threadStates = Collections.synchronizedMap(new WeakHashMap<>());
   }
 
   public InterpreterState(PyDictObject builtins, long interval) {
@@ -33,10 +56,31 @@ public class InterpreterState {
     this.builtins = builtins;
   }
 
+  /** the state of the calling thread in this interpreter */
+  public ThreadState getThreadState() {
+    return threadStates.computeIfAbsent(Thread.currentThread(), t -> new ThreadState(this));
+  }
+
   public PyListObject getSearchPath() {
     return searchPath;
   }
 
+  /** finds the modules on the search path for IMPORT_NAME */
+  public ModuleFinder getModuleFinder() {
+    return moduleFinder;
+  }
+
+  /**
+   * unmarshal the modules imported by code which have not been imported yet while code starts to
+   * run, see {@link ModuleFinder#prefetch(String)}
+   */
+  public void prefetchImports(PyCodeObject code) {
+    if (!ModuleFinder.PREFETCH) return;
+    for (String name : ModuleFinder.importedNames(code)) {
+      if (modules.get(new PyUnicodeObject(name)) == null) moduleFinder.prefetch(name);
+    }
+  }
+
   public void addSearchPath(PyUnicodeObject path){
     searchPath.append(path);
   }
@@ -68,12 +112,52 @@ public class InterpreterState {
     this.maxRecursionDepth = maxRecursionDepth;
   }
 
-  public void takeGIL() {
-    gil.takeGIL();
+  public boolean isStackless() {
+    return stackless;
+  }
+
+  public void setStackless(boolean stackless) {
+    this.stackless = stackless;
   }
 
-  public void dropGIL() {
-    gil.dropGIL();
+  public EvalBreaker getEvalBreaker() {
+    return evalBreaker;
+  }
+
+  /**
+   * schedule call to be run by the thread evaluating python code, at its next backward jump or
+   * call. Any thread may add pending calls.
+   */
+  public void addPendingCall(Runnable call) {
+    pendingCalls.add(call);
+    evalBreaker.set(EvalBreaker.PENDING_CALLS);
+  }
+
+  /** run the calls added by {@link #addPendingCall(Runnable)} */
+  public void makePendingCalls() {
+    evalBreaker.clear(EvalBreaker.PENDING_CALLS);
+    Runnable call;
+    while ((call = pendingCalls.poll()) != null) call.run();
+  }
+
+  public void takeGIL(ThreadState ts) {
+    if (FreeThreading.ENABLED) return;
+    gil.takeGIL(ts);
+  }
+
+  public void dropGIL(ThreadState ts) {
+    if (FreeThreading.ENABLED) return;
+    gil.dropGIL(ts);
+  }
+
+  /**
+   * take the global interpreter lock unless the thread of ts already holds it, returns whether it
+   * has been taken and must be dropped by the caller. It is never taken in free-threaded mode.
+   */
+  public boolean ensureGIL(ThreadState ts) {
+    if (FreeThreading.ENABLED || ts.isHoldingGIL()) return false;
+    gil.takeGIL(ts);
+    return true;
   }
 
   public long getGILInterval() {
@@ -0,0 +1,334 @@
+package org.jpvm.pvm;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jpvm.bytecode.OpMap;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyBytesObject;
+import org.jpvm.objects.PyListObject;
+import org.jpvm.objects.PyModuleObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyTupleObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.pycParser.PyCodeObject;
+import org.jpvm.pycParser.PycReader;
+import org.jpvm.pycParser.ZipArchive;
+
+/**
+ * finds the module of an import on the search path of an interpreter, like the path finder of
+ * importlib. A {@code __pycache__} directory is listed once and indexed by module name, a package
+ * of native modules such as {@code org/jpvm/stl} is probed once per module name. An entry naming a
+ * zip or jar file, optionally followed by a directory inside it as in {@code app.zip/lib}, is
+ * opened once and indexed from its central directory, see {@link ZipArchive}. Results, misses
+ * included, are cached until the search path changes or {@link #invalidateCaches()} is called, so
+ * files added to an indexed directory are only found after an invalidation.
+ *
+ * <p>Frozen modules of {@link FrozenModules} are found before the search path is looked at.
+ *
+ * <p>The pyc files of the modules a module imports are unmarshalled ahead of their import on the
+ * common fork join pool, see {@link #prefetch(String)}. Only the execution of modules needs the
+ * interpreter, unmarshalling is done without the global interpreter lock.
+ */
+public class ModuleFinder {
+
+  /** unmarshal imported modules ahead of their import, {@code import-prefetch} of the config */
+  public static final boolean PREFETCH = RuntimeConfig.getBoolean("import-prefetch", true);
+
+  private static final Spec MISSING = new Spec(null, null, null, null);
+
+  private final PyListObject searchPath;
+  /** the search path the cached results were found on */
+  private PyObject[] indexedPath = new PyObject[0];
+  /** module name to spec, or MISSING */
+  private final Map<String, Spec> found = new ConcurrentHashMap<>();
+  /** search path entry to the specs found in it, by module name */
+  private final Map<String, Map<String, Spec>> entries = new ConcurrentHashMap<>();
+
+  public ModuleFinder(PyListObject searchPath) {
+    this.searchPath = searchPath;
+  }
+
+  /**
+   * the bad indexes and entries of frozen modules which have been skipped, e.g. an entry naming a
+   * class which does not exist, see {@link FrozenModules}
+   */
+  public static List<String> skippedFrozenModules() {
+    return FrozenModules.skipped();
+  }
+
+  /** the module named name, null if it is on no entry of the search path */
+  public Spec find(String name) {
+    Spec frozen = FrozenModules.find(name);
+    if (frozen != null) return frozen;
+    if (!isIndexed()) reindex();
+    Spec spec = found.get(name);
+    if (spec == null) {
+      spec = MISSING;
+      for (PyObject path : indexedPath) {
+        Spec res = findIn(((PyUnicodeObject) path).getData(), name);
+        if (res != MISSING) {
+          spec = res;
+          break;
+        }
+      }
+      found.put(name, spec);
+    }
+    return spec == MISSING ? null : spec;
+  }
+
+  /**
+   * start unmarshalling the pyc file of the module named name on the common fork join pool, the
+   * next {@link Spec#loadCode()} of its spec takes the result
+   */
+  public void prefetch(String name) {
+    Spec spec = find(name);
+    if (spec != null) spec.prefetch();
+  }
+
+  /**
+   * names of the modules imported by IMPORT_NAME of code and of its nested code objects, bodies not
+   * unmarshalled yet by a lazy marshal are not looked at
+   */
+  public static Set<String> importedNames(PyCodeObject code) {
+    Set<String> res = new LinkedHashSet<>();
+    collectImports(code, res);
+    return res;
+  }
+
+  private static void collectImports(PyCodeObject code, Set<String> names) {
+    if (code.getLazyBody() != null) return;
+    byte[] bytes = ((PyBytesObject) code.getCoCode()).getData();
+    PyTupleObject coNames = (PyTupleObject) code.getCoNames();
+    int ext = 0;
+    for (int i = 0; i + 1 < bytes.length; i += 2) {
+      int op = bytes[i] & 0xff;
+      int arg = ext | (bytes[i + 1] & 0xff);
+      ext = op == OpMap.EXTENDED_ARG ? arg << 8 : 0;
+      if (op == OpMap.IMPORT_NAME) names.add(((PyUnicodeObject) coNames.get(arg)).getData());
+    }
+    PyTupleObject consts = (PyTupleObject) code.getCoConsts();
+    for (int i = 0; i < consts.size(); i++) {
+      if (consts.get(i) instanceof PyCodeObject nested) collectImports(nested, names);
+    }
+  }
+
+  /** forget every result and listing, as importlib.invalidate_caches() */
+  public synchronized void invalidateCaches() {
+    found.clear();
+    entries.clear();
+  }
+
+  private boolean isIndexed() {
+    PyObject[] indexed = indexedPath;
+    if (indexed.length != searchPath.size()) return false;
+    for (int i = 0; i < indexed.length; i++) {
+      if (indexed[i] != searchPath.get(i)) return false;
+    }
+    return true;
+  }
+
+  private synchronized void reindex() {
+    PyObject[] path = new PyObject[searchPath.size()];
+    for (int i = 0; i < path.length; i++) path[i] = searchPath.get(i);
+    indexedPath = path;
+    // an entry in front of the others may shadow what has been found
+    found.clear();
+  }
+
+  private Spec findIn(String path, String name) {
+    if (path.endsWith("__pycache__")) {
+      return entries.computeIfAbsent(path, ModuleFinder::listPycache).getOrDefault(name, MISSING);
+    }
+    if (archiveEnd(path) > 0) {
+      return entries.computeIfAbsent(path, ModuleFinder::listArchive).getOrDefault(name, MISSING);
+    }
+    return entries
+        .computeIfAbsent(path, p -> new ConcurrentHashMap<>())
+        .computeIfAbsent(name, n -> findNative(path.replace("/", "."), n));
+  }
+
+  /** index the pyc files of dir by the module name in front of the cpython tag */
+  private static Map<String, Spec> listPycache(String dir) {
+    Map<String, Spec> res = new ConcurrentHashMap<>();
+    File[] files = new File(dir).listFiles();
+    if (files == null) return res;
+    for (File file : files) {
+      String fileName = file.getName();
+      int dot = fileName.indexOf('.');
+      if (dot <= 0 || !fileName.endsWith(".pyc")) continue;
+      String name = fileName.substring(0, dot);
+      String pyc = file.getAbsolutePath();
+      res.putIfAbsent(name, new Spec(name, pyc, () -> readPyc(pyc), null));
+    }
+    return res;
+  }
+
+  private static PyCodeObject readPyc(String pyc) throws IOException, PyException {
+    PycReader reader = new PycReader(pyc);
+    reader.doParse();
+    return reader.getCodeObject();
+  }
+
+  /** end of the name of the zip or jar file path starts with, 0 if it does not name one */
+  private static int archiveEnd(String path) {
+    for (String suffix : new String[] {".zip", ".jar"}) {
+      int end = path.indexOf(suffix);
+      while (end > 0) {
+        end += suffix.length();
+        if (end == path.length() || path.charAt(end) == '/') return end;
+        end = path.indexOf(suffix, end);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * index the pyc files of an archive by module name, those in the directory following the archive
+   * name and in its {@code __pycache__}. A missing or damaged archive has no modules.
+   */
+  private static Map<String, Spec> listArchive(String path) {
+    Map<String, Spec> res = new ConcurrentHashMap<>();
+    int end = archiveEnd(path);
+    String dir = end == path.length() ? "" : path.substring(end + 1);
+    if (dir.endsWith("/")) dir = dir.substring(0, dir.length() - 1);
+    String cache = dir.isEmpty() ? "__pycache__" : dir + "/__pycache__";
+    ZipArchive archive;
+    try {
+      archive = ZipArchive.open(Path.of(path.substring(0, end)));
+    } catch (IOException e) {
+      return res;
+    }
+    for (ZipArchive.Entry entry : archive.getEntries().values()) {
+      String entryName = entry.getName();
+      if (!entryName.endsWith(".pyc")) continue;
+      int slash = entryName.lastIndexOf('/');
+      String parent = slash < 0 ? "" : entryName.substring(0, slash);
+      if (!parent.equals(dir) && !parent.equals(cache)) continue;
+      String fileName = entryName.substring(slash + 1);
+      int dot = fileName.indexOf('.');
+      if (dot <= 0) continue;
+      String name = fileName.substring(0, dot);
+      String origin = archive.getFile() + "/" + entryName;
+      res.putIfAbsent(name, new Spec(name, origin, () -> readEntry(archive, entry, origin), null));
+    }
+    return res;
+  }
+
+  private static PyCodeObject readEntry(ZipArchive archive, ZipArchive.Entry entry, String origin)
+      throws IOException, PyException {
+    PycReader reader = new PycReader(origin);
+    reader.doParse(archive.read(entry));
+    return reader.getCodeObject();
+  }
+
+  private static Spec findNative(String pkg, String name) {
+    Constructor<? extends PyModuleObject> constructor = moduleConstructor(pkg + "." + name);
+    if (constructor == null) constructor = moduleConstructor(pkg + "." + name + ".PyModuleMain");
+    return constructor == null ? MISSING : new Spec(name, null, null, constructor);
+  }
+
+  /** the constructor of the native module class className, null if there is none */
+  static Constructor<? extends PyModuleObject> moduleConstructor(String className) {
+    try {
+      Class<?> clazz = Class.forName(className);
+      if (!PyModuleObject.class.isAssignableFrom(clazz)) return null;
+      return clazz.asSubclass(PyModuleObject.class).getDeclaredConstructor(PyUnicodeObject.class);
+    } catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /** reads the code object of a module */
+  @FunctionalInterface
+  interface CodeLoader {
+    PyCodeObject load() throws IOException, PyException;
+  }
+
+  /** where a module has been found, a pyc file, an entry of an archive or a native module class */
+  public static final class Spec {
+    private final String name;
+    private final String pyc;
+    private final CodeLoader loader;
+    private final Constructor<? extends PyModuleObject> constructor;
+    /** code unmarshalled ahead of the import, taken by the next loadCode */
+    private final AtomicReference<CompletableFuture<PyCodeObject>> prefetched =
+        new AtomicReference<>();
+
+    Spec(
+        String name,
+        String pyc,
+        CodeLoader loader,
+        Constructor<? extends PyModuleObject> constructor) {
+      this.name = name;
+      this.pyc = pyc;
+      this.loader = loader;
+      this.constructor = constructor;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isNative() {
+      return constructor != null;
+    }
+
+    /**
+     * absolute path of the pyc file, followed by the name of the entry for an archive, null for a
+     * native module
+     */
+    public String getPyc() {
+      return pyc;
+    }
+
+    public PyCodeObject loadCode() throws IOException, PyException {
+      CompletableFuture<PyCodeObject> future = prefetched.getAndSet(null);
+      if (future == null) return loader.load();
+      try {
+        return future.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) throw io;
+        if (cause instanceof PyException py) throw py;
+        if (cause instanceof RuntimeException re) throw re;
+        if (cause instanceof Error error) throw error;
+        throw e;
+      }
+    }
+
+    /** unmarshal the code on the common fork join pool unless it is already being done */
+    void prefetch() {
+      if (loader == null || prefetched.get() != null) return;
+      CompletableFuture<PyCodeObject> future = new CompletableFuture<>();
+      if (!prefetched.compareAndSet(null, future)) return;
+      ForkJoinPool.commonPool()
+          .execute(
+              () -> {
+                try {
+                  future.complete(loader.load());
+                } catch (Throwable e) {
+                  future.completeExceptionally(e);
+                }
+              });
+    }
+
+    public PyModuleObject newNativeModule(PyUnicodeObject name) throws PyException {
+      try {
+        return constructor.newInstance(name);
+      } catch (ReflectiveOperationException e) {
+        throw new PyException("can not create module " + name + ": " + e);
+      }
+    }
+  }
+}
@@ -3,14 +3,16 @@ package org.jpvm.pvm;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import org.jpvm.errors.PyException;
 import org.jpvm.errors.PyNotImplemented;
 import org.jpvm.objects.*;
 import org.jpvm.pycParser.PyCodeObject;
 import org.jpvm.pycParser.PycReader;
 import org.jpvm.python.BuiltIn;
-import org.yaml.snakeyaml.Yaml;
 
 public class PVM {
 
@@ -30,11 +32,17 @@ public class PVM {
 
   private PVM_STATE state;
 
-  /** thread state of each thread */
-  public static ThreadLocal<ThreadState> tss = new ThreadLocal<>();
-
-  /** initialize here for compatibility */
-  public static InterpreterState interpreterState = new InterpreterState(500);
+  /** current thread state of each thread, a thread has one state per interpreter it entered */
+  public static final ThreadLocal<ThreadState> tss = new ThreadLocal<>();
+
+  /** the main interpreter, replaced by {@link #exit} of one of its vms */
+  private static final AtomicReference<InterpreterState> mainInterpreter =
+      new AtomicReference<>(new InterpreterState(500));
+  /**
+   * interpreter of this vm, {@link #getMainInterpreterState} unless created by {@link
+   * #newInterpreter}
+   */
+  private final InterpreterState is;
   /** filename of the py file to be executed. */
   private final String filename;
   /** code of the py file to be executed. */
@@ -47,36 +55,80 @@ public class PVM {
   private PyModuleObject rootModule;
   private PyFrameObject rootFrame;
   private EvaluationLoop loop;
+  /** entry points resolved by {@link #getCallable(String)} */
+  private final Map<String, PyCallable> callables = new ConcurrentHashMap<>();
 
   public PVM(String filename) throws PyException, IOException {
+    this(filename, false);
+  }
+
+  private PVM(String filename, boolean subInterpreter) throws PyException, IOException {
     this.filename = filename;
     state = PVM_STATE.UNINITIALIZED;
     loadCode();
-    // init thread and vm state
-    init();
+    is = subInterpreter ? new InterpreterState(5000) : mainInterpreter.get();
     // init built-in functions
     BuiltIn.doInit();
-    // acquire builtins
-    builtins = BuiltIn.dict;
+    // acquire builtins, a sub interpreter gets its own copy
+    if (subInterpreter) {
+      builtins = new PyDictObject();
+      builtins.addAll(BuiltIn.dict);
+    } else builtins = BuiltIn.dict;
     /*
      * in main module locals and globals are the same
      */
-    initVirtualMachine();
+    ThreadState prev = enter(is.getThreadState());
+    try {
+      initVirtualMachine();
+    } finally {
+      leave(prev);
+    }
   }
 
   public static ThreadState getThreadState() {
     ThreadState res = tss.get();
     if (res != null) return res;
-    res = new ThreadState();
-    res.setIs(interpreterState);
+    res = mainInterpreter.get().getThreadState();
     tss.set(res);
     return res;
   }
 
+  /** the interpreter of the vms not created by {@link #newInterpreter} */
+  public static InterpreterState getMainInterpreterState() {
+    return mainInterpreter.get();
+  }
+
   public static PVM create(String filename) throws PyException, IOException {
     return new PVM(filename);
   }
 
+  /**
+   * create a vm running filename in a new sub interpreter. It has its own modules, builtins, search
+   * path and global interpreter lock, so vms of different interpreters run in parallel on different
+   * threads. Builtin types and interned strings are still shared.
+   */
+  public static PVM newInterpreter(String filename) throws PyException, IOException {
+    return new PVM(filename, true);
+  }
+
+  /**
+   * make the state of the calling thread in the interpreter of this vm its current state, returns
+   * the state it replaces to be given to {@link #leave}
+   */
+  private static ThreadState enter(ThreadState ts) {
+    ThreadState prev = tss.get();
+    tss.set(ts);
+    return prev;
+  }
+
+  private static void leave(ThreadState prev) {
+    tss.set(prev);
+  }
+
+  public InterpreterState getInterpreterState() {
+    return is;
+  }
+
   public static void addModule(PyUnicodeObject name, PyModuleObject module) {
     getThreadState().getIs().addModule(name, module);
   }
@@ -88,11 +140,6 @@ public class PVM {
     code = reader.getCodeObject();
   }
 
-  private void init() {
-    if (tss == null) tss = new ThreadLocal<>();
-    if (interpreterState == null) interpreterState = new InterpreterState(500);
-  }
-
   private void initVirtualMachine() throws PyNotImplemented {
     rootModule = new PyModuleObject((PyUnicodeObject) code.getCoName());
     globals = rootModule.getDict();
@@ -122,6 +169,8 @@ public class PVM {
     String base = file.getParent();
     base = Paths.get(base).toAbsolutePath().toString();
     PVM.getThreadState().getIs().addSearchPath(new PyUnicodeObject(base + "/__pycache__"));
+    // the imports of the main module are unmarshalled while it is being set up and run
+    PVM.getThreadState().getIs().prefetchImports(code);
     state = PVM_STATE.INIT;
   }
 
@@ -130,17 +179,11 @@ public class PVM {
   }
 
   private void registerInterpreterState() {
-    interpreterState.setBuiltins(builtins);
-    Yaml yaml = new Yaml();
-    var map = yaml.loadAs(this.getClass().getResourceAsStream("/jpvm-config.yml"), Map.class);
-    Object o = map.get("vm-interval");
-    if (o instanceof Integer) {
-      interpreterState.setGILInterval((Integer) o);
-    }
-    o = map.get("max-recursive-depth");
-    if (o instanceof Integer) {
-      interpreterState.setMaxRecursionDepth((Integer) o);
-    }
+    is.setBuiltins(builtins);
+    is.setGILInterval(RuntimeConfig.getInt("vm-interval", (int) is.getGILInterval()));
+    is.setMaxRecursionDepth(
+        RuntimeConfig.getInt("max-recursive-depth", is.getMaxRecursionDepth()));
+    is.setStackless(RuntimeConfig.getBoolean("stackless", is.isStackless()));
   }
 
   public String getFilename() {
@@ -150,17 +193,32 @@ public class PVM {
   public void run() throws PyException {
     state = PVM_STATE.RUNNING;
     rootFrame = new PyFrameObject(code, builtins, globals, locals);
-    ThreadState ts = PVM.getThreadState();
+    ThreadState ts = is.getThreadState();
+    ThreadState prev = enter(ts);
     ts.setCurrentFrame(rootFrame);
-    loop = new EvaluationLoop(rootFrame);
-    loop.pyEvalFrame();
+    loop = new EvaluationLoop(ts, rootFrame);
+    boolean takenGIL = is.ensureGIL(ts);
+    try {
+      loop.pyEvalFrame();
+    } finally {
+      if (takenGIL) is.dropGIL(ts);
+      leave(prev);
+    }
     state = PVM_STATE.FINISHED;
   }
 
+  /**
+   * exiting a vm of the main interpreter replaces the main interpreter by a fresh one for the vms
+   * created afterwards, sub interpreters and vms already created keep running on their own state
+   */
   public void exit() {
-    tss = null;
-    interpreterState = null; // help gc
     state = PVM_STATE.EXIT;
+    // several vms of the main interpreter exiting at once replace it only once
+    if (is != mainInterpreter.get()
+        || !mainInterpreter.compareAndSet(is, new InterpreterState(500))) return;
+    ThreadState current = tss.get();
+    // help gc, the state of this thread in the old interpreter is no longer current
+    if (current != null && current.getIs() == is) tss.remove();
   }
 
   public void close() {
@@ -188,11 +246,69 @@ public class PVM {
   public PyObject call(PyUnicodeObject name, PyTupleObject args, PyDictObject kwargs)
       throws PyException {
     ensureFinished();
-    PyObject func = rootModule.getAttr(name);
-    if (func instanceof PyFunctionObject f) {
-      return Abstract.abstractCall(f, null, args, kwargs);
+    return runLocked(
+        ts -> {
+          PyObject func = rootModule.getAttr(name);
+          if (func instanceof PyFunctionObject f) {
+            return Abstract.abstractCall(ts, f, null, args, kwargs, null);
+          }
+          throw new PyException("function" + name + " not found");
+        });
+  }
+
+  /**
+   * resolve the function name of the module once, calls through the returned handle skip the
+   * lookup done by every {@link #call}. The handle is cached, so asking again is cheap as well.
+   */
+  public PyCallable getCallable(String name) throws PyException {
+    PyCallable callable = callables.get(name);
+    if (callable != null) return callable;
+    ensureFinished();
+    PyObject func = runLocked(ts -> rootModule.getAttr(new PyUnicodeObject(name)));
+    if (!(func instanceof PyFunctionObject f)) {
+      throw new PyException("function" + name + " not found");
     }
-    throw new PyException("function" + name + " not found");
+    callable = new PyCallable(this, f);
+    PyCallable old = callables.putIfAbsent(name, callable);
+    return old == null ? callable : old;
+  }
+
+  /**
+   * call the function name once for every argument array of batch, see {@link
+   * PyCallable#callBatch(List, PyObject[])}
+   */
+  public PyObject[] callBatch(String name, List<? extends Object[]> batch) throws PyException {
+    PyObject[] results = new PyObject[batch.size()];
+    getCallable(name).callBatch(batch, results);
+    return results;
+  }
+
+  /** python code run by {@link #runLocked}, ts is the state of the calling thread */
+  @FunctionalInterface
+  interface LockedCall<T> {
+    T run(ThreadState ts) throws PyException;
+  }
+
+  /**
+   * run call on the calling thread inside the interpreter of this vm, holding its global
+   * interpreter lock
+   */
+  <T> T runLocked(LockedCall<T> call) throws PyException {
+    ThreadState ts = is.getThreadState();
+    ThreadState prev = enter(ts);
+    boolean takenGIL = is.ensureGIL(ts);
+    try {
+      return call.run(ts);
+    } finally {
+      if (takenGIL) is.dropGIL(ts);
+      leave(prev);
+    }
+  }
+
+  /** call func, a function of this vm resolved before, from the calling thread */
+  PyObject invoke(PyFunctionObject func, PyTupleObject args, PyDictObject kwargs)
+      throws PyException {
+    return runLocked(ts -> Abstract.abstractCall(ts, func, null, args, kwargs, null));
   }
 
   public PyObject call(String name, PyTupleObject args, PyDictObject kwargs) throws PyException {
@@ -203,11 +319,27 @@ public class PVM {
     return call(name, new PyTupleObject(args), null);
   }
 
+  /**
+   * call the function name with rawArgs transformed by {@link #transformToPyObject}, java lists,
+   * sets, maps and primitive arrays are copied, so changes made by python are not seen by java. See
+   * {@link #callWithViews} to share them instead.
+   */
   public PyObject call(String name, Object... rawArgs) throws PyException {
     var args = (PyTupleObject) transformToPyObject(rawArgs);
     return call(name, args, null);
   }
 
+  /**
+   * like {@link #call(String, Object...)}, but java lists, sets, maps and primitive arrays are
+   * passed as views sharing them with python, see {@link Utils#transformToPyView}. Handles of
+   * {@link #getCallable} do the same for the arguments adapted by {@link ArgAdapter#VIEW}.
+   */
+  public PyObject callWithViews(String name, Object... rawArgs) throws PyException {
+    PyObject[] args = new PyObject[rawArgs.length];
+    for (int i = 0; i < rawArgs.length; i++) args[i] = Utils.transformToPyView(rawArgs[i]);
+    return call(name, new PyTupleObject(args), null);
+  }
+
   public PyObject transformToPyObject(Object o) throws PyException {
     return Utils.transformToPyObject(o);
   }
@@ -0,0 +1,67 @@
+package org.jpvm.pvm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyObject;
+
+/**
+ * a pool of warm vms running the same py file, for embedders serving many requests. Every vm is
+ * created in its own sub interpreter and runs its module once when the pool is built, so a request
+ * only borrows a vm and calls a {@link PyCallable} resolved before, and requests on different
+ * threads do not contend for one global interpreter lock.
+ */
+public class PVMPool implements AutoCloseable {
+
+  private final List<PVM> vms;
+  private final BlockingQueue<PVM> idle;
+
+  public PVMPool(String filename, int size) throws PyException, IOException {
+    if (size <= 0) throw new IllegalArgumentException("size of pool must be positive: " + size);
+    vms = new ArrayList<>(size);
+    idle = new ArrayBlockingQueue<>(size);
+    for (int i = 0; i < size; i++) {
+      PVM pvm = PVM.newInterpreter(filename);
+      pvm.run();
+      vms.add(pvm);
+      idle.add(pvm);
+    }
+  }
+
+  public int size() {
+    return vms.size();
+  }
+
+  /** borrow a vm, waiting until one is released if all are in use */
+  public PVM acquire() throws PyException {
+    try {
+      return idle.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PyException("interrupted while waiting for a vm of the pool");
+    }
+  }
+
+  public void release(PVM pvm) {
+    idle.add(pvm);
+  }
+
+  /** call the function name of the module in a vm borrowed for the time of the call */
+  public PyObject call(String name, Object... args) throws PyException {
+    PVM pvm = acquire();
+    try {
+      return pvm.getCallable(name).call(args);
+    } finally {
+      release(pvm);
+    }
+  }
+
+  @Override
+  public void close() {
+    for (PVM pvm : vms) pvm.exit();
+    idle.clear();
+  }
+}
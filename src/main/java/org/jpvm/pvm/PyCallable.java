@@ -0,0 +1,111 @@
+package org.jpvm.pvm;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyDictObject;
+import org.jpvm.objects.PyFunctionObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyTupleObject;
+import org.jpvm.pycParser.PyCodeObject;
+
+/**
+ * a python function of a {@link PVM} resolved once by {@link PVM#getCallable(String)}, the entry
+ * point of embedders calling the same function again and again. Any thread may use a handle, the
+ * calls take the global interpreter lock of the vm like {@link PVM#call}.
+ */
+public class PyCallable {
+
+  private final PVM pvm;
+  private final PyFunctionObject func;
+  /** converters of the positional arguments, null when they go through {@link ArgAdapter#GENERIC} */
+  private final ArgAdapter<Object>[] adapters;
+
+  PyCallable(PVM pvm, PyFunctionObject func) {
+    this(pvm, func, null);
+  }
+
+  private PyCallable(PVM pvm, PyFunctionObject func, ArgAdapter<Object>[] adapters) {
+    this.pvm = pvm;
+    this.func = func;
+    this.adapters = adapters;
+  }
+
+  /**
+   * returns a handle converting the i-th argument of {@link #call(Object...)} by adapters[i], e.g.
+   * {@code pvm.getCallable("fib").withAdapters(ArgAdapter.INT)}
+   */
+  @SuppressWarnings("unchecked")
+  public PyCallable withAdapters(ArgAdapter<?>... adapters) {
+    return new PyCallable(pvm, func, (ArgAdapter<Object>[]) adapters.clone());
+  }
+
+  public PVM getPVM() {
+    return pvm;
+  }
+
+  public PyFunctionObject getFunction() {
+    return func;
+  }
+
+  public PyObject call(PyTupleObject args, PyDictObject kwargs) throws PyException {
+    return pvm.invoke(func, args, kwargs);
+  }
+
+  public PyObject call(PyObject... args) throws PyException {
+    return pvm.invoke(func, new PyTupleObject(args), null);
+  }
+
+  public PyObject call(Object... rawArgs) throws PyException {
+    PyObject[] args = new PyObject[rawArgs.length];
+    adapt(rawArgs, args);
+    return pvm.invoke(func, new PyTupleObject(args), null);
+  }
+
+  /** convert rawArgs into the first slots of args by the adapters of this handle */
+  private void adapt(Object[] rawArgs, PyObject[] args) throws PyException {
+    for (int i = 0; i < rawArgs.length; i++) {
+      ArgAdapter<Object> adapter =
+          adapters != null && i < adapters.length ? adapters[i] : ArgAdapter.GENERIC;
+      args[i] = adapter.adapt(rawArgs[i]);
+    }
+  }
+
+  /**
+   * call the function once for every argument array of batch and store the i-th result into
+   * results[i]. The whole batch runs under one acquisition of the global interpreter lock, which is
+   * still handed over to waiting threads at the usual switch interval, and the arguments are passed
+   * through one reused buffer instead of a tuple per call. Every call reuses the frame released by
+   * the previous one from the freelist of the calling thread, whichever thread that is.
+   */
+  public void callBatch(List<? extends Object[]> batch, PyObject[] results) throws PyException {
+    if (results.length < batch.size())
+      throw new IllegalArgumentException(
+          "results hold " + results.length + " items, batch has " + batch.size());
+    int[] n = new int[1];
+    callBatch(batch.iterator(), res -> results[n[0]++] = res);
+  }
+
+  /** streaming {@link #callBatch(List, PyObject[])}, every result is given to sink in order */
+  public void callBatch(Iterator<? extends Object[]> batch, Consumer<PyObject> sink)
+      throws PyException {
+    pvm.runLocked(
+        ts -> {
+          var code = (PyCodeObject) func.getFuncCode();
+          PyObject[] buffer = new PyObject[code.getArgBinding().getArgSize()];
+          try {
+            while (batch.hasNext()) {
+              Object[] rawArgs = batch.next();
+              if (rawArgs.length > buffer.length) buffer = new PyObject[rawArgs.length];
+              adapt(rawArgs, buffer);
+              sink.accept(Abstract.vectorCallFunction(ts, func, buffer, 0, rawArgs.length, null));
+            }
+          } finally {
+            Arrays.fill(buffer, null);
+          }
+          return null;
+        });
+  }
+}
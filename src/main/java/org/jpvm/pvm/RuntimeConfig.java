@@ -0,0 +1,43 @@
+package org.jpvm.pvm;
+
+import java.util.Map;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * jpvm-config.yml, read once for the whole process. Every key may be overridden by the system
+ * property {@code jpvm.<key>}, e.g. {@code -Djpvm.free-threading=true}.
+ */
+public final class RuntimeConfig {
+
+  private static final Map<?, ?> map =
+      new Yaml().loadAs(RuntimeConfig.class.getResourceAsStream("/jpvm-config.yml"), Map.class);
+
+  private RuntimeConfig() {}
+
+  private static Object get(String key) {
+    String property = System.getProperty("jpvm." + key);
+    if (property != null) return property;
+    return map == null ? null : map.get(key);
+  }
+
+  public static int getInt(String key, int defaultValue) {
+    Object o = get(key);
+    if (o instanceof Integer i) return i;
+    if (o instanceof String s) return Integer.parseInt(s.trim());
+    return defaultValue;
+  }
+
+  public static boolean getBoolean(String key, boolean defaultValue) {
+    Object o = get(key);
+    if (o instanceof Boolean b) return b;
+    if (o instanceof String s) return Boolean.parseBoolean(s.trim());
+    return defaultValue;
+  }
+
+  /** value of key, null if it is not set or empty */
+  public static String getString(String key) {
+    Object o = get(key);
+    if (o == null || o.toString().isBlank()) return null;
+    return o.toString();
+  }
+}
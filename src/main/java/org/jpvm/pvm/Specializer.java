@@ -0,0 +1,76 @@
+package org.jpvm.pvm;
+
+import org.jpvm.bytecode.DecodedCode;
+import org.jpvm.bytecode.OpMap;
+import org.jpvm.objects.PyFloatObject;
+import org.jpvm.objects.PyListObject;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.objects.pyinterface.TypeRichCompare;
+
+/**
+ * choose a specialized form for an adaptive instruction from the operands it has just seen, just
+ * like specialize.c in cpython 3.11. Guards of specialized instructions compare exact classes, so
+ * only the classes below are specialized.
+ */
+public class Specializer {
+
+  public static void specializeBinaryAdd(
+      DecodedCode code, int idx, PyObject left, PyObject right) {
+    if (isLong(left, right)) code.quicken(idx, OpMap.BINARY_ADD_LONG);
+    else if (isFloat(left, right)) code.quicken(idx, OpMap.BINARY_ADD_FLOAT);
+    else if (left.getClass() == PyUnicodeObject.class && right.getClass() == PyUnicodeObject.class)
+      code.quicken(idx, OpMap.BINARY_ADD_UNICODE);
+    else code.backoff(idx);
+  }
+
+  public static void specializeBinarySubtract(
+      DecodedCode code, int idx, PyObject left, PyObject right) {
+    if (isLong(left, right)) code.quicken(idx, OpMap.BINARY_SUBTRACT_LONG);
+    else if (isFloat(left, right)) code.quicken(idx, OpMap.BINARY_SUBTRACT_FLOAT);
+    else code.backoff(idx);
+  }
+
+  public static void specializeBinaryMultiply(
+      DecodedCode code, int idx, PyObject left, PyObject right) {
+    if (isLong(left, right)) code.quicken(idx, OpMap.BINARY_MULTIPLY_LONG);
+    else if (isFloat(left, right)) code.quicken(idx, OpMap.BINARY_MULTIPLY_FLOAT);
+    else code.backoff(idx);
+  }
+
+  public static void specializeInplaceAdd(
+      DecodedCode code, int idx, PyObject left, PyObject right) {
+    if (isLong(left, right)) code.quicken(idx, OpMap.INPLACE_ADD_LONG);
+    else code.backoff(idx);
+  }
+
+  public static void specializeInplaceSubtract(
+      DecodedCode code, int idx, PyObject left, PyObject right) {
+    if (isLong(left, right)) code.quicken(idx, OpMap.INPLACE_SUBTRACT_LONG);
+    else code.backoff(idx);
+  }
+
+  public static void specializeCompareOp(
+      DecodedCode code, int idx, int oparg, PyObject left, PyObject right) {
+    // only the six rich comparisons, identity and containment tests stay generic
+    if (oparg <= TypeRichCompare.Py_GE && isLong(left, right))
+      code.quicken(idx, OpMap.COMPARE_OP_LONG);
+    else code.backoff(idx);
+  }
+
+  public static void specializeBinarySubscr(
+      DecodedCode code, int idx, PyObject container, PyObject sub) {
+    if (container.getClass() == PyListObject.class && sub.getClass() == PyLongObject.class)
+      code.quicken(idx, OpMap.BINARY_SUBSCR_LIST_LONG);
+    else code.backoff(idx);
+  }
+
+  public static boolean isLong(PyObject left, PyObject right) {
+    return left.getClass() == PyLongObject.class && right.getClass() == PyLongObject.class;
+  }
+
+  public static boolean isFloat(PyObject left, PyObject right) {
+    return left.getClass() == PyFloatObject.class && right.getClass() == PyFloatObject.class;
+  }
+}
@@ -1,8 +1,10 @@
 package org.jpvm.pvm;
 
+import java.util.IdentityHashMap;
 import org.jpvm.objects.PyDictObject;
 import org.jpvm.objects.PyFrameObject;
 import org.jpvm.objects.PyObject;
+import org.jpvm.pycParser.PyCodeObject;
 
 public class ThreadState {
 
@@ -17,6 +19,21 @@ public class ThreadState {
 
   private PyFrameObject currentFrame;
 
+  /**
+   * code objects with frames of this thread to reuse, bounded by {@link #MAX_FREELISTS}. Living
+   * here instead of in the code object, they are dropped together with the interpreter.
+   */
+  private final IdentityHashMap<PyCodeObject, PyFrameObject.Freelist> frameFreelists =
+      new IdentityHashMap<>();
+  private static final int MAX_FREELISTS = 1024;
+
+  /** whether this thread holds the global interpreter lock */
+  private boolean holdingGIL;
+  /** statistics of the waits of this thread for the global interpreter lock */
+  private long gilAcquisitions;
+  private long gilWaitNanos;
+  private long gilMaxWaitNanos;
+
 
   public ThreadState(InterpreterState is) {
     this.is = is;
@@ -35,6 +52,7 @@ public class ThreadState {
   }
 
   public PyDictObject getBuiltins() {
+    if (builtins == null && is != null) return is.getBuiltins();
     return builtins;
   }
 
@@ -70,6 +88,46 @@ public class ThreadState {
     this.currentFrame = currentFrame;
   }
 
+  /** the frames of code this thread can reuse */
+  public PyFrameObject.Freelist getFrameFreelist(PyCodeObject code) {
+    PyFrameObject.Freelist freelist = frameFreelists.get(code);
+    if (freelist != null) return freelist;
+    // code of vms dropped long ago must not be kept alive by a long running thread
+    if (frameFreelists.size() == MAX_FREELISTS) frameFreelists.clear();
+    freelist = new PyFrameObject.Freelist();
+    frameFreelists.put(code, freelist);
+    return freelist;
+  }
+
+  public boolean isHoldingGIL() {
+    return holdingGIL;
+  }
+
+  public void setHoldingGIL(boolean holdingGIL) {
+    this.holdingGIL = holdingGIL;
+  }
+
+  /** record an acquisition of the global interpreter lock which waited waitNanos */
+  public void addGILWait(long waitNanos) {
+    gilAcquisitions++;
+    gilWaitNanos += waitNanos;
+    gilMaxWaitNanos = Math.max(gilMaxWaitNanos, waitNanos);
+  }
+
+  public long getGILAcquisitions() {
+    return gilAcquisitions;
+  }
+
+  /** total time spent waiting for the global interpreter lock */
+  public long getGILWaitNanos() {
+    return gilWaitNanos;
+  }
+
+  /** longest single wait for the global interpreter lock */
+  public long getGILMaxWaitNanos() {
+    return gilMaxWaitNanos;
+  }
+
   public PyObject getCurExcType() {
     return curExcType;
   }
@@ -0,0 +1,48 @@
+package org.jpvm.pycParser;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyTupleObject;
+
+/**
+ * argument binding metadata of a {@link PyCodeObject}: parameter names to local slots, number of
+ * parameters and code flags. It is computed once and shared by all calls of functions created from
+ * the code object, defaults are not part of it because they belong to the function object.
+ */
+public class ArgBinding {
+
+  /** number of parameters which must hold a value once arguments are bound */
+  private final int argSize;
+  private final PyTupleObject varNames;
+  private final Map<PyObject, Integer> slots;
+  private final boolean generator;
+
+  public ArgBinding(PyCodeObject code) {
+    argSize = code.getCoKwOnlyArCnt() + code.getCoPosOnlyArCnt() + code.getCoArgument();
+    varNames = (PyTupleObject) code.getCoVarNames();
+    slots = new HashMap<>();
+    for (int i = 0; i < varNames.size(); i++) {
+      slots.put(varNames.get(i), i);
+    }
+    generator = code.isGenerator();
+  }
+
+  public int getArgSize() {
+    return argSize;
+  }
+
+  public PyTupleObject getVarNames() {
+    return varNames;
+  }
+
+  /** local slot of the parameter name, -1 if the code object has no such variable */
+  public int slotOf(PyObject name) {
+    Integer slot = slots.get(name);
+    return slot == null ? -1 : slot;
+  }
+
+  public boolean isGenerator() {
+    return generator;
+  }
+}
@@ -0,0 +1,389 @@
+package org.jpvm.pycParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jpvm.bytecode.DecodedCode;
+import org.jpvm.bytecode.OpMap;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.*;
+import org.jpvm.objects.pyinterface.TypeDoIterate;
+import org.jpvm.pvm.RuntimeConfig;
+import org.jpvm.python.BuiltIn;
+
+/**
+ * persistent cache of the code objects of .pyc files in a jpvm specific format, so that a cold
+ * start maps the cache file and skips marshal decoding and the decoding of co_code into {@link
+ * DecodedCode}. It is enabled by {@code code-cache-dir} of {@link RuntimeConfig}.
+ *
+ * <p>A cache file is named after the path of its .pyc file and the hash of that path. It stores the
+ * path, the modification time and the size of the .pyc file and is only used while they match, so
+ * a rewritten .pyc file is parsed again. The header of the .pyc file, a table of the distinct
+ * strings and the objects follow, code objects carry their instruction arrays already decoded.
+ * Names of code objects are interned when they are loaded.
+ */
+public final class CodeCache {
+
+  private static final int MAGIC = 0x4a505643; // JPVC
+  private static final int VERSION = 1;
+  /** cache files of at least this size are mapped instead of read */
+  private static final int MAP_THRESHOLD = 64 * 1024;
+
+  private static final byte CODE = 'c';
+  private static final byte TUPLE = '(';
+  private static final byte FROZENSET = '>';
+  private static final byte STRING = 'u';
+  private static final byte BYTES = 's';
+  private static final byte LONG = 'i';
+  private static final byte FLOAT = 'g';
+  private static final byte COMPLEX = 'y';
+  private static final byte NONE = 'N';
+  private static final byte NULL = '0';
+  private static final byte TRUE = 'T';
+  private static final byte FALSE = 'F';
+  private static final byte ELLIPSIS = '.';
+  private static final byte STOPITER = 'S';
+
+  private static volatile Path directory = configuredDirectory();
+
+  private CodeCache() {}
+
+  private static Path configuredDirectory() {
+    String dir = RuntimeConfig.getString("code-cache-dir");
+    return dir == null ? null : Paths.get(dir);
+  }
+
+  /** directory of the cache files, null if the cache is disabled */
+  public static Path getDirectory() {
+    return directory;
+  }
+
+  public static void setDirectory(Path directory) {
+    CodeCache.directory = directory;
+  }
+
+  private static Path cacheFile(Path dir, Path pyc) {
+    String name = pyc.getFileName().toString();
+    return dir.resolve(name + "." + Integer.toHexString(pyc.toString().hashCode()) + ".jpvc");
+  }
+
+  /** a code object loaded from the cache with the header of its .pyc file */
+  public static final class Entry {
+    private final byte[] header;
+    private final PyCodeObject code;
+
+    private Entry(byte[] header, PyCodeObject code) {
+      this.header = header;
+      this.code = code;
+    }
+
+    public byte[] getHeader() {
+      return header;
+    }
+
+    public PyCodeObject getCode() {
+      return code;
+    }
+  }
+
+  /**
+   * code object of the .pyc file pyc, null if the cache is disabled or holds no valid entry. The
+   * .pyc file itself is not opened, its header comes from the cache as well.
+   */
+  public static Entry load(String pyc) {
+    Path dir = directory;
+    if (dir == null) return null;
+    Path file = Paths.get(pyc).toAbsolutePath();
+    try (FileChannel channel = FileChannel.open(cacheFile(dir, file), StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer buffer;
+      if (size >= MAP_THRESHOLD) buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      else {
+        // mapping costs more than reading for small files
+        buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+        buffer.flip();
+      }
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+      if (!file.toString().equals(readString(buffer))) return null;
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      if (buffer.getLong() != attributes.lastModifiedTime().toMillis()) return null;
+      if (buffer.getLong() != attributes.size()) return null;
+      byte[] header = new byte[buffer.getInt()];
+      buffer.get(header);
+      return new Entry(header, new Reader(buffer).readCode());
+    } catch (IOException | PyException | RuntimeException e) {
+      // a missing, damaged or foreign file is a miss, it is rewritten by the next store
+      return null;
+    }
+  }
+
+  /** store code, the code object just read from the .pyc file pyc, if the cache is enabled */
+  public static void store(String pyc, byte[] header, PyCodeObject code) {
+    Path dir = directory;
+    if (dir == null) return;
+    Path file = Paths.get(pyc).toAbsolutePath();
+    Path cache = cacheFile(dir, file);
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      Writer writer = new Writer();
+      writer.writeObject(code);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeString(out, file.toString());
+      out.writeLong(attributes.lastModifiedTime().toMillis());
+      out.writeLong(attributes.size());
+      out.writeInt(header.length);
+      out.write(header);
+      writer.writeTo(out);
+      out.flush();
+      Files.createDirectories(dir);
+      // write aside and move, so that a concurrent load never sees a partial file
+      Path tmp = Files.createTempFile(dir, cache.getFileName().toString(), ".tmp");
+      Files.write(tmp, bytes.toByteArray());
+      try {
+        Files.move(
+            tmp, cache, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException | PyException | IllegalArgumentException ignore) {
+      // the cache is an optimization only, code which can not be stored is parsed every time
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeInts(DataOutputStream out, int[] array) throws IOException {
+    for (int i : array) out.writeInt(i);
+  }
+
+  private static int[] readInts(ByteBuffer buffer, int size) {
+    int[] res = new int[size];
+    buffer.asIntBuffer().get(res);
+    buffer.position(buffer.position() + size * Integer.BYTES);
+    return res;
+  }
+
+  /** serializes an object graph, strings go to a table written before the objects */
+  private static class Writer {
+    private final Map<String, Integer> strings = new LinkedHashMap<>();
+    private final ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(objectBytes);
+
+    void writeTo(DataOutputStream dst) throws IOException {
+      dst.writeInt(strings.size());
+      for (String s : strings.keySet()) writeString(dst, s);
+      out.flush();
+      objectBytes.writeTo(dst);
+    }
+
+    void writeObject(PyObject o) throws IOException, PyException {
+      if (o == null || o == BuiltIn.NULL) out.writeByte(NULL);
+      else if (o == BuiltIn.None) out.writeByte(NONE);
+      else if (o == BuiltIn.True) out.writeByte(TRUE);
+      else if (o == BuiltIn.False) out.writeByte(FALSE);
+      else if (o == BuiltIn.ELLIPSIS) out.writeByte(ELLIPSIS);
+      else if (o == BuiltIn.PyExcStopIteration) out.writeByte(STOPITER);
+      else if (o instanceof PyCodeObject code) writeCode(code);
+      else if (o instanceof PyUnicodeObject u) {
+        out.writeByte(STRING);
+        out.writeInt(strings.computeIfAbsent(u.getData(), k -> strings.size()));
+      } else if (o instanceof PyTupleObject t) {
+        out.writeByte(TUPLE);
+        out.writeInt(t.size());
+        for (int i = 0; i < t.size(); i++) writeObject(t.get(i));
+      } else if (o.getClass() == PyLongObject.class) {
+        out.writeByte(LONG);
+        out.writeLong(((PyLongObject) o).getData());
+      } else if (o.getClass() == PyFloatObject.class) {
+        out.writeByte(FLOAT);
+        out.writeDouble(((PyFloatObject) o).getData());
+      } else if (o instanceof PyComplexObject c) {
+        out.writeByte(COMPLEX);
+        out.writeDouble(c.getReal().getData());
+        out.writeDouble(c.getImage().getData());
+      } else if (o instanceof PyBytesObject b) {
+        out.writeByte(BYTES);
+        out.writeInt(b.getData().length);
+        out.write(b.getData());
+      } else if (o instanceof PySetObject s && s.isFrozen()) {
+        List<PyObject> items = new ArrayList<>();
+        TypeDoIterate iterator = s.getIterator();
+        while (iterator.hasNext()) items.add(iterator.next());
+        out.writeByte(FROZENSET);
+        out.writeInt(items.size());
+        for (PyObject item : items) writeObject(item);
+      } else throw new IllegalArgumentException("can not cache " + o.getClass().getName());
+    }
+
+    private void writeCode(PyCodeObject code) throws IOException, PyException {
+      out.writeByte(CODE);
+      out.writeInt(code.getCoArgument());
+      out.writeInt(code.getCoPosOnlyArCnt());
+      out.writeInt(code.getCoKwOnlyArCnt());
+      out.writeInt(code.getCoNLocals());
+      out.writeInt(code.getCoStackSize());
+      out.writeInt(code.getCoFlags());
+      out.writeInt(code.getCoFirstLineNo());
+      writeObject(code.getCoCode());
+      writeObject(code.getCoConsts());
+      writeObject(code.getCoNames());
+      writeObject(code.getCoVarNames());
+      writeObject(code.getCoFreeVars());
+      writeObject(code.getCoCellVars());
+      writeObject(code.getCoFileName());
+      writeObject(code.getCoName());
+      writeObject(code.getColnotab());
+      DecodedCode decoded = code.getDecodedCode();
+      int[] opcodes = decoded.getOpcodes().clone();
+      // specialized instructions depend on the inline caches of this run, store the base ones
+      for (int i = 0; i < opcodes.length; i++) opcodes[i] = OpMap.baseOpcodes[opcodes[i]];
+      out.writeInt(opcodes.length);
+      for (int opcode : opcodes) out.writeByte(opcode);
+      writeInts(out, decoded.getOpargs());
+      writeInts(out, decoded.getTargets());
+      writeInts(out, decoded.getPositions());
+    }
+  }
+
+  /** rebuilds the object graph written by {@link Writer} */
+  private static class Reader {
+    private final ByteBuffer buffer;
+    private final PyUnicodeObject[] strings;
+    private final boolean[] interned;
+
+    Reader(ByteBuffer buffer) {
+      this.buffer = buffer;
+      strings = new PyUnicodeObject[buffer.getInt()];
+      interned = new boolean[strings.length];
+      for (int i = 0; i < strings.length; i++) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        strings[i] = new PyUnicodeObject(bytes);
+      }
+    }
+
+    PyCodeObject readCode() throws PyException {
+      if (!(readObject(false) instanceof PyCodeObject code))
+        throw new IllegalStateException("cache file does not hold a code object");
+      return code;
+    }
+
+    /** a string of the table, shared by all its uses and taken from the intern pool for names */
+    private PyUnicodeObject string(int idx, boolean intern) {
+      PyUnicodeObject res = strings[idx];
+      if (intern && !interned[idx]) {
+        PyUnicodeObject pooled = PyUnicodeObject.internStr.get(res.getData());
+        if (pooled == null) pooled = PyUnicodeObject.internStr.putIfAbsent(res.getData(), res);
+        if (pooled != null) res = strings[idx] = pooled;
+        interned[idx] = true;
+      }
+      return res;
+    }
+
+    private PyObject readObject(boolean intern) throws PyException {
+      byte tag = buffer.get();
+      switch (tag) {
+        case NULL:
+          return BuiltIn.NULL;
+        case NONE:
+          return BuiltIn.None;
+        case TRUE:
+          return BuiltIn.True;
+        case FALSE:
+          return BuiltIn.False;
+        case ELLIPSIS:
+          return BuiltIn.ELLIPSIS;
+        case STOPITER:
+          return BuiltIn.PyExcStopIteration;
+        case STRING:
+          return string(buffer.getInt(), intern);
+        case LONG:
+          return new PyLongObject(buffer.getLong());
+        case FLOAT:
+          return new PyFloatObject(buffer.getDouble());
+        case COMPLEX:
+          return new PyComplexObject(
+              new PyFloatObject(buffer.getDouble()), new PyFloatObject(buffer.getDouble()));
+        case BYTES:
+          {
+            byte[] data = new byte[buffer.getInt()];
+            buffer.get(data);
+            return new PyBytesObject(data);
+          }
+        case TUPLE:
+          {
+            PyTupleObject tuple = new PyTupleObject(buffer.getInt());
+            for (int i = 0; i < tuple.size(); i++) tuple.set(i, readObject(intern));
+            return tuple;
+          }
+        case FROZENSET:
+          {
+            int size = buffer.getInt();
+            if (size == 0) return BuiltIn.FROZENSET;
+            PySetObject set = new PySetObject(true);
+            for (int i = 0; i < size; i++) set.put(readObject(intern));
+            return set;
+          }
+        case CODE:
+          return readCodeObject();
+        default:
+          throw new IllegalStateException("unexpected tag " + tag + " in cache file");
+      }
+    }
+
+    private PyCodeObject readCodeObject() throws PyException {
+      PyCodeObject code = new PyCodeObject();
+      code.setCoArgument(buffer.getInt());
+      code.setCoPosOnlyArCnt(buffer.getInt());
+      code.setCoKwOnlyArCnt(buffer.getInt());
+      code.setCoNLocals(buffer.getInt());
+      code.setCoStackSize(buffer.getInt());
+      code.setCoFlags(buffer.getInt());
+      code.setCoFirstLineNo(buffer.getInt());
+      code.setCoCode(readObject(false));
+      code.setCoConsts(readObject(false));
+      code.setCoNames(readObject(true));
+      code.setCoVarNames(readObject(true));
+      code.setCoFreeVars(readObject(true));
+      code.setCoCellVars(readObject(true));
+      code.setCoFileName(readObject(false));
+      code.setCoName(readObject(true));
+      code.setColnotab(readObject(false));
+      int size = buffer.getInt();
+      int[] opcodes = new int[size];
+      for (int i = 0; i < size; i++) opcodes[i] = buffer.get() & 0xff;
+      int[] opargs = readInts(buffer, size);
+      int[] targets = readInts(buffer, size);
+      int[] positions = readInts(buffer, size);
+      code.setDecodedCode(new DecodedCode(opcodes, opargs, targets, positions));
+      return code;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.jpvm.pycParser;
 
+import org.jpvm.bytecode.DecodedCode;
 import org.jpvm.module.Marshal;
 import org.jpvm.objects.PyObject;
 import org.jpvm.objects.PyTupleObject;
@@ -62,6 +63,14 @@ public class PyCodeObject extends PyObject {
   private PyObject coZombieFrame;
   private PyObject coWeakRefList;
   private PyObject coExtra;
+  /**
+   * {@link PyCodeObject#coCode} decoded once and shared by all frames executing this code object
+   */
+  private DecodedCode decodedCode;
+  /** argument binding metadata, computed on the first call */
+  private ArgBinding argBinding;
+  /** coCode and coConsts not unmarshalled yet, null once they are */
+  private volatile Marshal.LazyBody lazyBody;
 
   public int getCoArgument() {
     return coArgument;
@@ -88,6 +97,7 @@ public class PyCodeObject extends PyObject {
   }
 
   public PyObject getCoConsts() {
+    if (lazyBody != null) loadLazyBody();
     return coConsts;
   }
 
@@ -136,11 +146,40 @@ public class PyCodeObject extends PyObject {
   }
 
   public PyObject getCoCode() {
+    if (lazyBody != null) loadLazyBody();
     return coCode;
   }
 
   public void setCoCode(PyObject coCode) {
     this.coCode = coCode;
+    decodedCode = null;
+  }
+
+  public DecodedCode getDecodedCode() {
+    if (decodedCode == null) decodedCode = new DecodedCode(this);
+    return decodedCode;
+  }
+
+  public void setDecodedCode(DecodedCode decodedCode) {
+    this.decodedCode = decodedCode;
+  }
+
+  public Marshal.LazyBody getLazyBody() {
+    return lazyBody;
+  }
+
+  public void setLazyBody(Marshal.LazyBody lazyBody) {
+    this.lazyBody = lazyBody;
+  }
+
+  private void loadLazyBody() {
+    Marshal.LazyBody body = lazyBody;
+    if (body != null) body.load(this);
+  }
+
+  public ArgBinding getArgBinding() {
+    if (argBinding == null) argBinding = new ArgBinding(this);
+    return argBinding;
   }
 
   public PyObject getCoNames() {
@@ -225,8 +264,8 @@ public class PyCodeObject extends PyObject {
         ", coStackSize=" + coStackSize +
         ", coFlags=" + coFlags +
         ", coFirstLineNo=" + coFirstLineNo +
-        ", coCode=" + coCode +
-        ", coConsts=" + coConsts +
+        ", coCode=" + getCoCode() +
+        ", coConsts=" + getCoConsts() +
         ", coNames=" + coNames +
         ", coVarNames=" + coVarNames +
         ", coFreeVars=" + coFreeVars +
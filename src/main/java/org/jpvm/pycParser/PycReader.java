@@ -2,8 +2,11 @@ package org.jpvm.pycParser;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.jpvm.errors.PyException;
 import org.jpvm.module.Marshal;
+import org.jpvm.pvm.RuntimeConfig;
 
 /**
  * .pyc file structure +----------------+ | Magic Number | 4 bytes | Bit Field | 4 bytes | Modified
@@ -11,6 +14,10 @@ import org.jpvm.module.Marshal;
  */
 public class PycReader {
 
+  private static final int HEADER_SIZE = 16;
+  /** unmarshal functions on their first call, see {@link Marshal#Marshal(boolean)} */
+  private static final boolean LAZY = RuntimeConfig.getBoolean("lazy-code", false);
+
   private final String pyc;
   private int timestamp;
   private int magicNumber;
@@ -23,17 +30,39 @@ public class PycReader {
   }
 
   public void doParse() throws IOException, PyException {
+    CodeCache.Entry entry = CodeCache.load(pyc);
+    if (entry != null) {
+      readHeader(entry.getHeader());
+      pyCodeObject = entry.getCode();
+      return;
+    }
     var stream = new FileInputStream(pyc);
-    magicNumber = BinaryUtil.nextInt(stream);
-    bitFiled = BinaryUtil.nextInt(stream);
-    timestamp = BinaryUtil.nextInt(stream);
-    mappingPyFileSize = BinaryUtil.nextInt(stream);
-    Marshal marshal = new Marshal();
+    byte[] header = stream.readNBytes(HEADER_SIZE);
+    readHeader(header);
+    Marshal marshal = new Marshal(LAZY);
     pyCodeObject = (PyCodeObject) marshal.loadPyObject(stream);
+    CodeCache.store(pyc, header, pyCodeObject);
     // release resources
     stream.close();
   }
 
+  /** parse a pyc file held in buffer, from an archive for example, the code cache is not used */
+  public void doParse(ByteBuffer buffer) throws PyException {
+    byte[] header = new byte[HEADER_SIZE];
+    buffer.get(header);
+    readHeader(header);
+    Marshal marshal = new Marshal(LAZY);
+    pyCodeObject = (PyCodeObject) marshal.loadPyObject(buffer.order(ByteOrder.LITTLE_ENDIAN));
+  }
+
+  private void readHeader(byte[] header) {
+    ByteBuffer buffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+    magicNumber = buffer.getInt();
+    bitFiled = buffer.getInt();
+    timestamp = buffer.getInt();
+    mappingPyFileSize = buffer.getInt();
+  }
+
   public PyCodeObject getCodeObject() {
     return pyCodeObject;
   }
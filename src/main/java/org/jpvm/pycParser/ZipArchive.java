@@ -0,0 +1,164 @@
+package org.jpvm.pycParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * a zip or jar file mapped into memory, like zipimport of cpython. The central directory is read
+ * once when the archive is opened, stored entries are then sliced out of the mapping without any
+ * copy and deflated ones are inflated from it. Zip64 archives are not supported.
+ */
+public final class ZipArchive {
+
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int CENTRAL_SIGNATURE = 0x02014b50;
+  private static final int LOCAL_SIGNATURE = 0x04034b50;
+  private static final int END_SIZE = 22;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  private final Path file;
+  private final ByteBuffer mapping;
+  /** entries by their name in the archive, in central directory order */
+  private final Map<String, Entry> entries;
+
+  private ZipArchive(Path file, ByteBuffer mapping, Map<String, Entry> entries) {
+    this.file = file;
+    this.mapping = mapping;
+    this.entries = entries;
+  }
+
+  public static ZipArchive open(Path file) throws IOException {
+    ByteBuffer mapping;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // the mapping stays valid once the channel is closed
+      mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    mapping.order(ByteOrder.LITTLE_ENDIAN);
+    int end = findEnd(mapping);
+    if (end < 0) throw new IOException(file + " is not a zip file");
+    int count = mapping.getShort(end + 10) & 0xffff;
+    long offset = mapping.getInt(end + 16) & 0xffffffffL;
+    if (count == 0xffff || offset == 0xffffffffL)
+      throw new IOException("zip64 archive " + file + " is not supported");
+    Map<String, Entry> entries = new LinkedHashMap<>();
+    int pos = (int) offset;
+    for (int i = 0; i < count; i++) {
+      if (mapping.getInt(pos) != CENTRAL_SIGNATURE)
+        throw new IOException("bad central directory of " + file);
+      int flags = mapping.getShort(pos + 8) & 0xffff;
+      int method = mapping.getShort(pos + 10) & 0xffff;
+      int compressedSize = mapping.getInt(pos + 20);
+      int size = mapping.getInt(pos + 24);
+      int nameLength = mapping.getShort(pos + 28) & 0xffff;
+      int extraLength = mapping.getShort(pos + 30) & 0xffff;
+      int commentLength = mapping.getShort(pos + 32) & 0xffff;
+      int localOffset = mapping.getInt(pos + 42);
+      byte[] name = new byte[nameLength];
+      mapping.get(pos + 46, name);
+      // encrypted entries can not be read
+      if ((flags & 1) == 0) {
+        Entry entry =
+            new Entry(
+                new String(name, StandardCharsets.UTF_8),
+                method,
+                compressedSize,
+                size,
+                localOffset);
+        entries.put(entry.name, entry);
+      }
+      pos += 46 + nameLength + extraLength + commentLength;
+    }
+    return new ZipArchive(file, mapping, Collections.unmodifiableMap(entries));
+  }
+
+  /** offset of the end of central directory record, -1 if there is none */
+  private static int findEnd(ByteBuffer mapping) {
+    int last = mapping.limit() - END_SIZE;
+    // the record is followed by a comment of at most 64k
+    int first = Math.max(0, last - 0xffff);
+    for (int pos = last; pos >= first; pos--) {
+      if (mapping.getInt(pos) == END_SIGNATURE) return pos;
+    }
+    return -1;
+  }
+
+  public Path getFile() {
+    return file;
+  }
+
+  public Map<String, Entry> getEntries() {
+    return entries;
+  }
+
+  /** the content of entry, a slice of the mapping if it is stored */
+  public ByteBuffer read(Entry entry) throws IOException {
+    int pos = entry.localOffset;
+    if (mapping.getInt(pos) != LOCAL_SIGNATURE)
+      throw new IOException("bad local header of " + entry.name + " in " + file);
+    int data =
+        pos + 30 + (mapping.getShort(pos + 26) & 0xffff) + (mapping.getShort(pos + 28) & 0xffff);
+    ByteBuffer compressed = mapping.slice(data, entry.compressedSize);
+    switch (entry.method) {
+      case STORED -> {
+        return compressed.order(ByteOrder.LITTLE_ENDIAN);
+      }
+      case DEFLATED -> {
+        byte[] res = new byte[entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+          inflater.setInput(compressed);
+          int n = 0;
+          while (n < res.length && !inflater.finished()) {
+            int read = inflater.inflate(res, n, res.length - n);
+            if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+            n += read;
+          }
+          if (n != res.length) throw new IOException("truncated entry " + entry.name);
+        } catch (DataFormatException e) {
+          throw new IOException("bad entry " + entry.name + " in " + file, e);
+        } finally {
+          inflater.end();
+        }
+        return ByteBuffer.wrap(res).order(ByteOrder.LITTLE_ENDIAN);
+      }
+      default -> throw new IOException(
+          "compression method " + entry.method + " of " + entry.name + " is not supported");
+    }
+  }
+
+  /** an entry of the central directory */
+  public static final class Entry {
+    private final String name;
+    private final int method;
+    private final int compressedSize;
+    private final int size;
+    private final int localOffset;
+
+    private Entry(String name, int method, int compressedSize, int size, int localOffset) {
+      this.name = name;
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localOffset = localOffset;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getSize() {
+      return size;
+    }
+  }
+}
@@ -74,7 +74,7 @@ public class BuiltIn {
     }
   }
 
-  public static void doInit() {
+  public static synchronized void doInit() {
     try {
       // load builtin function & object into builtin dict
       registerBuiltinFunction("print");
@@ -266,7 +266,7 @@ public class BuiltIn {
     }
     PyDictObject locals = new PyDictObject();
     ThreadState ts = PVM.getThreadState();
-    Abstract.abstractCall(function, null, null, null, ts.getCurrentFrame(), locals);
+    Abstract.abstractCall(ts, function, null, null, null, ts.getCurrentFrame(), locals);
     args = new PyTupleObject(3);
     args.set(0, name);
     args.set(1, bases);
@@ -1,13 +1,29 @@
 package org.jpvm;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.jpvm.errors.PyException;
 import org.jpvm.module.Marshal;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyTupleObject;
+import org.jpvm.pvm.PVM;
+import org.jpvm.pycParser.CodeCache;
 import org.jpvm.pycParser.PyCodeObject;
 import org.jpvm.pycParser.PycReader;
 import org.junit.Test;
@@ -48,6 +64,61 @@ public class PycParserTest {
     stream.close();
   }
 
+  @Test
+  public void testMarshalMapped() throws IOException, PyException {
+    String filename = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+    PyCodeObject read;
+    try (FileInputStream stream = new FileInputStream(filename)) {
+      stream.skipNBytes(16);
+      read = new Marshal().loadCodeObject(stream);
+    }
+    // trailing bytes make the file large enough to be mapped
+    Path large = Files.createTempFile("jpvm-marshal", ".pyc");
+    try {
+      Files.write(large, Files.readAllBytes(Path.of(filename)));
+      Files.write(large, new byte[64 * 1024], StandardOpenOption.APPEND);
+      PyCodeObject mapped;
+      try (FileInputStream stream = new FileInputStream(large.toFile())) {
+        stream.skipNBytes(16);
+        mapped = new Marshal().loadCodeObject(stream);
+      }
+      assertEquals(read.getCoConsts().toString(), mapped.getCoConsts().toString());
+      // interned names of both loads come from the intern pool
+      assertSame(read.getCoName(), mapped.getCoName());
+      assertSame(
+          ((PyTupleObject) read.getCoNames()).get(0), ((PyTupleObject) mapped.getCoNames()).get(0));
+    } finally {
+      Files.delete(large);
+    }
+  }
+
+  @Test
+  public void testLazyMarshal() throws IOException, PyException {
+    String filename = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+    PyCodeObject lazy;
+    try (FileInputStream stream = new FileInputStream(filename)) {
+      stream.skipNBytes(16);
+      lazy = new Marshal(true).loadCodeObject(stream);
+    }
+    PyCodeObject fib = (PyCodeObject) ((PyTupleObject) lazy.getCoConsts()).get(0);
+    assertNotNull(fib.getLazyBody());
+    assertEquals("fib", fib.getCoName().toString());
+    fib.getDecodedCode();
+    assertNull(fib.getLazyBody());
+
+    // every object of a lazy load matches the eager one, references into skipped ranges included
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(Path.of("src/test/resources"))) {
+      files = walk.filter(p -> p.toString().endsWith(".pyc")).collect(Collectors.toList());
+    }
+    for (Path file : files) {
+      byte[] bytes = Files.readAllBytes(file);
+      byte[] code = Arrays.copyOfRange(bytes, 16, bytes.length);
+      String eager = new Marshal().loadCodeObject(code).toString();
+      assertEquals(file.toString(), eager, new Marshal(true).loadCodeObject(code).toString());
+    }
+  }
+
   @Test
   public void syntaxTest() {
     byte c = (byte) 0xe3;
@@ -60,4 +131,41 @@ public class PycParserTest {
     wrap.get(bytes1);
     System.out.println(wrap.position());
   }
+
+  @Test
+  public void testCodeCache() throws Exception {
+    String filename = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+    Path dir = Files.createTempDirectory("jpvm-code-cache");
+    Path old = CodeCache.getDirectory();
+    CodeCache.setDirectory(dir);
+    try {
+      PycReader reader = new PycReader(filename);
+      reader.doParse();
+      PyCodeObject parsed = reader.getCodeObject();
+      assertEquals(1, Files.list(dir).count());
+
+      reader = new PycReader(filename);
+      reader.doParse();
+      PyCodeObject cached = reader.getCodeObject();
+      assertNotSame(parsed, cached);
+      assertEquals(parsed.getCoNames().toString(), cached.getCoNames().toString());
+      assertEquals(parsed.getCoConsts().toString(), cached.getCoConsts().toString());
+      PyCodeObject fib = (PyCodeObject) ((PyTupleObject) cached.getCoConsts()).get(0);
+      assertArrayEquals(
+          ((PyCodeObject) ((PyTupleObject) parsed.getCoConsts()).get(0))
+              .getDecodedCode()
+              .getOpcodes(),
+          fib.getDecodedCode().getOpcodes());
+
+      assertEquals(0xa0d0d55, reader.getMagicNumber());
+      // an entry is only used for the pyc file it was stored for
+      assertNull(CodeCache.load("src/test/resources/pys/__pycache__/add.cpython-38.pyc"));
+
+      PVM pvm = new PVM(filename);
+      pvm.run();
+      assertEquals(55, ((PyLongObject) pvm.call("fib", (Object) 10)).getData());
+    } finally {
+      CodeCache.setDirectory(old);
+    }
+  }
 }
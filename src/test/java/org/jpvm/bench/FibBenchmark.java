@@ -0,0 +1,32 @@
+package org.jpvm.bench;
+
+import org.jpvm.objects.PyObject;
+import org.jpvm.pvm.PVM;
+
+/**
+ * Micro benchmark of the evaluation loop based on syntax/fib.py, it is a plain main class and is not
+ * picked up by surefire. Run it with {@code -XX:+PrintCompilation} and grep for
+ * {@code EvaluationLoop::evalFrames} to check that the dispatch loop gets compiled by C2 (level 4):
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -XX:+PrintCompilation -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     org.jpvm.bench.FibBenchmark | grep EvaluationLoop::evalFrames
+ * </pre>
+ */
+public class FibBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    String filename = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    PVM pvm = new PVM(filename);
+    pvm.run();
+    for (int i = 0; i < rounds; i++) {
+      long start = System.nanoTime();
+      PyObject res = pvm.call("fib", (Object) n);
+      long end = System.nanoTime();
+      System.out.printf("round %d fib(%d) = %s %.3f ms%n", i, n, res, (end - start) / 1e6);
+    }
+  }
+}
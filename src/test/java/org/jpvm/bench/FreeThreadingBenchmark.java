@@ -0,0 +1,56 @@
+package org.jpvm.bench;
+
+import org.jpvm.pvm.FreeThreading;
+import org.jpvm.pvm.PVM;
+
+/**
+ * Scaling benchmark of fib from syntax/fib.py called by 1, 2, 4 and 8 threads sharing one
+ * interpreter. Run it once with the gil and once without, the calls per second only grow with the
+ * threads in free-threaded mode:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     org.jpvm.bench.FreeThreadingBenchmark
+ * java -Djpvm.free-threading=true -cp target/classes:target/test-classes:$(cat cp.txt) \
+ *     org.jpvm.bench.FreeThreadingBenchmark
+ * </pre>
+ */
+public class FreeThreadingBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    String filename = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    int calls = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    PVM pvm = new PVM(filename);
+    pvm.run();
+    // warm up so that the dispatch loop is compiled before measuring
+    run(pvm, 1, n, calls);
+    System.out.printf("free-threading %s, fib(%d)%n", FreeThreading.ENABLED, n);
+    for (int threads = 1; threads <= 8; threads *= 2) {
+      long nanos = run(pvm, threads, n, calls);
+      System.out.printf(
+          "threads %d %d calls %.3f ms %.1f calls/s%n",
+          threads, threads * calls, nanos / 1e6, threads * calls / (nanos / 1e9));
+    }
+  }
+
+  private static long run(PVM pvm, int threads, int n, int calls) throws Exception {
+    Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] =
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < calls; j++) pvm.call("fib", (Object) n);
+                } catch (Exception e) {
+                  throw new RuntimeException(e);
+                }
+              });
+    }
+    long start = System.nanoTime();
+    for (Thread t : workers) t.start();
+    for (Thread t : workers) t.join();
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,94 @@
+package org.jpvm.bench;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.NativeCall;
+import org.jpvm.objects.PyDictObject;
+import org.jpvm.objects.PyListObject;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyTupleObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.objects.Utils;
+import org.jpvm.python.BuiltIn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH comparison of reflective {@link Method#invoke} and linked {@link NativeCall} calls of
+ * the builtin {@code len} and the class method {@code dict.get}:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) org.openjdk.jmh.Main NativeCallBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeCallBenchmark {
+
+  private Method builtinLen;
+  private NativeCall linkedBuiltinLen;
+  private Method dictGet;
+  private NativeCall linkedDictGet;
+  private PyListObject list;
+  private PyDictObject dict;
+  private PyTupleObject lenArgs;
+  private PyTupleObject getArgs;
+
+  @Setup
+  public void setup() throws Exception {
+    BuiltIn.doInit();
+    list = new PyListObject();
+    for (int i = 0; i < 8; i++) list.add(new PyLongObject(i));
+    lenArgs = new PyTupleObject(1);
+    lenArgs.set(0, list);
+    dict = new PyDictObject();
+    PyUnicodeObject key = new PyUnicodeObject("key");
+    dict.put(key, list);
+    getArgs = new PyTupleObject(1);
+    getArgs.set(0, key);
+    builtinLen = BuiltIn.class.getMethod("len", PyObject.parameterTypes);
+    linkedBuiltinLen = Utils.linkNativeCall(builtinLen);
+    dictGet = PyDictObject.class.getMethod("get", PyObject.parameterTypes);
+    linkedDictGet = Utils.linkNativeCall(dictGet);
+  }
+
+  @Benchmark
+  public Object reflectBuiltin() throws Exception {
+    return builtinLen.invoke(null, lenArgs, null);
+  }
+
+  @Benchmark
+  public Object linkedBuiltin() throws Throwable {
+    return linkedBuiltinLen.call(null, lenArgs, null);
+  }
+
+  @Benchmark
+  public Object reflectClassMethod() throws Exception {
+    return dictGet.invoke(dict, getArgs, null);
+  }
+
+  @Benchmark
+  public Object linkedClassMethod() throws Throwable {
+    return linkedDictGet.call(dict, getArgs, null);
+  }
+
+  @Benchmark
+  public Object directClassMethod() throws PyException {
+    return dict.get(getArgs, null);
+  }
+}
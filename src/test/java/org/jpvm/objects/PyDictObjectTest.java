@@ -0,0 +1,33 @@
+package org.jpvm.objects;
+
+import org.jpvm.errors.PyException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PyDictObjectTest {
+
+  @Test
+  public void testVersion() throws PyException {
+    PyDictObject d1 = new PyDictObject();
+    PyDictObject d2 = new PyDictObject();
+    Assert.assertNotEquals(d1.getVersion(), d2.getVersion());
+    PyUnicodeObject key = new PyUnicodeObject("key");
+
+    long version = d1.getVersion();
+    d1.put(key, new PyLongObject(1));
+    Assert.assertNotEquals(version, d1.getVersion());
+
+    version = d1.getVersion();
+    d1.get(key);
+    d1.containKey(key);
+    Assert.assertEquals(version, d1.getVersion());
+
+    d1.mpAssSubscript(key, null);
+    Assert.assertNotEquals(version, d1.getVersion());
+
+    version = d1.getVersion();
+    d1.clear(null, null);
+    Assert.assertNotEquals(version, d1.getVersion());
+    System.out.println("\u001B[32m version tag of PyDictObject pass\u001B[0m");
+  }
+}
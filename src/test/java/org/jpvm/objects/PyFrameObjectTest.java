@@ -0,0 +1,75 @@
+package org.jpvm.objects;
+
+import org.jpvm.pvm.PVM;
+import org.jpvm.pvm.ThreadState;
+import org.jpvm.pycParser.PyCodeObject;
+import org.jpvm.python.BuiltIn;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PyFrameObjectTest {
+
+  private static final String FIB = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+
+  @Test
+  public void testFreelist() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    PyFunctionObject fib = (PyFunctionObject) pvm.getGlobals().get(new PyUnicodeObject("fib"));
+    PyCodeObject code = (PyCodeObject) fib.getFuncCode();
+    PyDictObject globals = (PyDictObject) fib.getFuncGlobals();
+    ThreadState ts = pvm.getInterpreterState().getThreadState();
+
+    PyFrameObject f = PyFrameObject.newFrame(ts, fib, code, BuiltIn.dict, globals, null, null);
+    f.setLocal(0, new PyLongObject(1));
+    f.push(new PyLongObject(2));
+    f.release(ts);
+    PyFrameObject g = PyFrameObject.newFrame(ts, fib, code, BuiltIn.dict, globals, null, null);
+    Assert.assertSame(f, g);
+    Assert.assertNull(g.getLocal(0));
+    Assert.assertEquals(0, g.getUsed());
+    Assert.assertSame(globals, g.getGlobals());
+
+    // frames left by the calls of fib are reused as well
+    pvm.call("fib", (Object) 10);
+    PyFrameObject h = PyFrameObject.newFrame(ts, fib, code, BuiltIn.dict, globals, null, null);
+    Assert.assertNotSame(g, h);
+    Assert.assertNull(h.getLocal(0));
+    System.out.println(" frame freelist pass");
+  }
+
+  @Test
+  public void testFreelistOfOtherThread() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    PyFunctionObject fib = (PyFunctionObject) pvm.getGlobals().get(new PyUnicodeObject("fib"));
+    PyCodeObject code = (PyCodeObject) fib.getFuncCode();
+    PyDictObject globals = (PyDictObject) fib.getFuncGlobals();
+    ThreadState ts = pvm.getInterpreterState().getThreadState();
+    // the code object has been created and called on this thread
+    PyFrameObject mine = PyFrameObject.newFrame(ts, fib, code, BuiltIn.dict, globals, null, null);
+    mine.release(ts);
+
+    PyFrameObject[] frames = new PyFrameObject[3];
+    Thread thread =
+        new Thread(
+            () -> {
+              ThreadState other = pvm.getInterpreterState().getThreadState();
+              frames[0] =
+                  PyFrameObject.newFrame(other, fib, code, BuiltIn.dict, globals, null, null);
+              frames[0].release(other);
+              frames[1] =
+                  PyFrameObject.newFrame(other, fib, code, BuiltIn.dict, globals, null, null);
+              frames[2] =
+                  PyFrameObject.newFrame(other, fib, code, BuiltIn.dict, globals, null, null);
+            });
+    thread.start();
+    thread.join();
+    // frames of this thread are not handed to the other one, its own ones are recycled
+    Assert.assertNotSame(mine, frames[0]);
+    Assert.assertSame(frames[0], frames[1]);
+    Assert.assertNotSame(frames[1], frames[2]);
+    Assert.assertSame(
+        mine, PyFrameObject.newFrame(ts, fib, code, BuiltIn.dict, globals, null, null));
+  }
+}
@@ -1,5 +1,9 @@
 package org.jpvm.objects;
 
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.types.MethodCache;
+import org.jpvm.objects.types.PyPythonType;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class PyTypeTest {
@@ -10,4 +14,54 @@ public class PyTypeTest {
     System.out.println(object.getType().getTypeName());
     System.out.println(PyTupleObject.check(PyTupleObject.type));
   }
+
+  private static PyPythonType newType(String name, PyObject... bases) throws PyException {
+    PyDictObject dict = new PyDictObject();
+    dict.put(new PyUnicodeObject("__module__"), new PyUnicodeObject("test"));
+    PyTupleObject tuple = new PyTupleObject(bases.length);
+    for (int i = 0; i < bases.length; i++) tuple.set(i, bases[i]);
+    return new PyPythonType(new PyUnicodeObject(name), tuple, dict);
+  }
+
+  @Test
+  public void testVersionTag() throws PyException {
+    PyPythonType base = newType("Base");
+    PyPythonType sub = newType("Sub", base);
+    PyUnicodeObject name = new PyUnicodeObject("attr");
+    long tag = sub.getVersionTag();
+    Assert.assertEquals(tag, sub.getVersionTag());
+    Assert.assertNotEquals(tag, base.getVersionTag());
+    Assert.assertNull(MethodCache.lookup(sub, name));
+
+    PyLongObject value = new PyLongObject(1);
+    base.setAttr(name, value);
+    Assert.assertNotEquals(tag, sub.getVersionTag());
+    Assert.assertSame(value, MethodCache.lookup(sub, name));
+    System.out.println("\u001B[32m version tag of PyTypeType pass\u001B[0m");
+  }
+
+  @Test
+  public void testVersionTagPushDown() throws PyException {
+    PyPythonType base = newType("Base");
+    PyPythonType sub = newType("Sub", base);
+    PyPythonType leaf = newType("Leaf", sub);
+    PyPythonType other = newType("Other");
+    long tag = leaf.getVersionTag();
+    long otherTag = other.getVersionTag();
+
+    // mutating the dict of a base drops the tags below it, other types keep theirs
+    base.getDict().put(new PyUnicodeObject("attr"), new PyLongObject(1));
+    Assert.assertNotEquals(tag, leaf.getVersionTag());
+    Assert.assertEquals(otherTag, other.getVersionTag());
+
+    tag = leaf.getVersionTag();
+    long subTag = sub.getVersionTag();
+    leaf.getDict().put(new PyUnicodeObject("attr"), new PyLongObject(2));
+    Assert.assertNotEquals(tag, leaf.getVersionTag());
+    Assert.assertEquals(subTag, sub.getVersionTag());
+
+    tag = leaf.getVersionTag();
+    sub.setDict(new PyDictObject());
+    Assert.assertNotEquals(tag, leaf.getVersionTag());
+  }
 }
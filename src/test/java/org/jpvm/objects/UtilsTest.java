@@ -0,0 +1,120 @@
+package org.jpvm.objects;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jpvm.errors.PyException;
+import org.jpvm.pvm.Abstract;
+import org.jpvm.python.BuiltIn;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UtilsTest {
+
+  private static PyTupleObject args(PyObject... args) {
+    return new PyTupleObject(args);
+  }
+
+  @Test
+  public void testCopyByDefault() throws PyException {
+    List<Integer> list = new ArrayList<>(List.of(1, 2));
+    PyObject copy = Utils.transformToPyObject(list);
+    Assert.assertTrue(copy instanceof PyListObject);
+    ((PyListObject) copy).append(new PyLongObject(3));
+    Assert.assertEquals(2, list.size());
+    Assert.assertTrue(Utils.transformToPyObject(new int[] {1}) instanceof PyListObject);
+    Assert.assertTrue(Utils.transformToPyObject(Map.of("a", 1)) instanceof PyDictObject);
+    Assert.assertTrue(Utils.transformToPyObject(Set.of(1)) instanceof PySetObject);
+  }
+
+  @Test
+  public void testListView() throws PyException {
+    List<Integer> list = new ArrayList<>();
+    for (int i = 0; i < 1_000_000; i++) list.add(i);
+    PyObject view = Utils.transformToPyView(list);
+    Assert.assertTrue(view instanceof PyJavaListObject);
+    Assert.assertSame(list, Utils.transformFromPyObject(view));
+    Assert.assertEquals(1_000_000, ((PyLongObject) BuiltIn.len(args(view), null)).getData());
+    Assert.assertEquals(7, ((PyLongObject) Abstract.getItem(view, new PyLongObject(7))).getData());
+    Assert.assertEquals(
+        999_999, ((PyLongObject) Abstract.getItem(view, new PyLongObject(-1))).getData());
+
+    // writes go through to the java list and keep its element type
+    Abstract.assignItem(view, new PyLongObject(0), new PyLongObject(42));
+    Assert.assertEquals(Integer.valueOf(42), list.get(0));
+    ((PyJavaListObject) view).append(args(new PyLongObject(5)), null);
+    Assert.assertEquals(Integer.valueOf(5), list.get(list.size() - 1));
+    PyObject popped = ((PyJavaListObject) view).pop(args(), null);
+    Assert.assertEquals(5, ((PyLongObject) popped).getData());
+    Assert.assertEquals(1_000_000, list.size());
+  }
+
+  @Test
+  public void testFixedSizeView() throws PyException {
+    PyJavaListObject view = (PyJavaListObject) Utils.transformToPyView(List.of(1, 2));
+    Assert.assertThrows(
+        PyException.class, () -> Abstract.assignItem(view, new PyLongObject(0), new PyLongObject(3)));
+    Assert.assertThrows(PyException.class, () -> view.append(args(new PyLongObject(3)), null));
+  }
+
+  @Test
+  public void testArrayView() throws PyException {
+    double[] array = {1.5, 2.5};
+    PyObject view = Utils.transformToPyView(array);
+    PyObject sum = BuiltIn.sum(args(view), null);
+    Assert.assertEquals(4.0, ((PyFloatObject) sum).getData(), 0);
+    Abstract.assignItem(view, new PyLongObject(1), new PyFloatObject(3.0));
+    Assert.assertEquals(3.0, array[1], 0);
+  }
+
+  @Test
+  public void testMapView() throws PyException {
+    Map<String, Integer> map = new HashMap<>();
+    map.put("a", 1);
+    PyObject view = Utils.transformToPyView(map);
+    Assert.assertSame(map, Utils.transformFromPyObject(view));
+    PyUnicodeObject a = new PyUnicodeObject("a");
+    Assert.assertEquals(1, ((PyLongObject) Abstract.getItem(view, a)).getData());
+    Abstract.assignItem(view, new PyUnicodeObject("b"), new PyLongObject(2));
+    Assert.assertEquals(Integer.valueOf(2), map.get("b"));
+    Assert.assertSame(BuiltIn.True, ((PyJavaMapObject) view).sqContain(a));
+    PyObject missing = ((PyJavaMapObject) view).get(args(new PyUnicodeObject("c")), null);
+    Assert.assertSame(BuiltIn.None, missing);
+  }
+
+  @Test
+  public void testSetView() throws PyException {
+    Set<Long> set = new HashSet<>(List.of(1L, 2L));
+    PyObject view = Utils.transformToPyView(set);
+    Assert.assertSame(BuiltIn.True, ((PyJavaSetObject) view).sqContain(new PyLongObject(2)));
+    ((PyJavaSetObject) view).add(args(new PyLongObject(3)), null);
+    Assert.assertTrue(set.contains(3L));
+    Assert.assertEquals(3, ((PyLongObject) BuiltIn.len(args(view), null)).getData());
+  }
+
+  @Test
+  public void testViewRepr() throws PyException {
+    List<Object> list = new ArrayList<>(List.of("a", 1, List.of(2.5)));
+    list.add(null);
+    PyObject listView = Utils.transformToPyView(list);
+    Assert.assertEquals("['a', 1, [2.5], None]", listView.repr().toString());
+    Assert.assertEquals(listView.repr().toString(), listView.str().toString());
+    Assert.assertEquals("[]", Utils.transformToPyView(new ArrayList<>()).repr().toString());
+
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", null);
+    PyObject mapView = Utils.transformToPyView(map);
+    Assert.assertEquals("{'a': 1, 'b': None}", mapView.repr().toString());
+    Assert.assertEquals("{'a': 1, 'b': None}", mapView.toString());
+
+    PyObject setView = Utils.transformToPyView(new LinkedHashSet<>(List.of("x", "y")));
+    Assert.assertEquals("{'x', 'y'}", setView.repr().toString());
+    Assert.assertEquals("set()", Utils.transformToPyView(new HashSet<>()).repr().toString());
+  }
+}
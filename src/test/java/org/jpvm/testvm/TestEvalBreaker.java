@@ -0,0 +1,28 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.pvm.InterpreterState;
+import org.jpvm.pvm.PVM;
+import org.junit.Test;
+
+public class TestEvalBreaker {
+
+  @Test
+  public void testPendingCalls() throws Exception {
+    PVM pvm = new PVM("src/test/resources/syntax/__pycache__/fib.cpython-38.pyc");
+    pvm.run();
+    InterpreterState is = PVM.getThreadState().getIs();
+    AtomicInteger calls = new AtomicInteger();
+    is.addPendingCall(calls::incrementAndGet);
+    is.addPendingCall(calls::incrementAndGet);
+    PyObject res = pvm.call("fib", (Object) 10);
+    assertEquals(55, ((PyLongObject) res).getData());
+    assertEquals(2, calls.get());
+    assertFalse(is.getEvalBreaker().isTripped());
+  }
+}
@@ -0,0 +1,88 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jpvm.objects.PyListObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyTupleObject;
+import org.jpvm.objects.pyinterface.TypeDoIterate;
+import org.jpvm.pvm.FreeThreading;
+import org.jpvm.pvm.PVM;
+import org.jpvm.pvm.ThreadState;
+import org.jpvm.python.BuiltIn;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestFreeThreading {
+
+  /** run it with -Djpvm.free-threading=true to check the mode without the gil */
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    PVM pvm = new PVM("src/test/resources/syntax/__pycache__/fib.cpython-38.pyc");
+    pvm.run();
+    int n = 4;
+    long[] acquisitions = new long[n];
+    Throwable[] errors = new Throwable[n];
+    Thread[] threads = new Thread[n];
+    for (int i = 0; i < n; i++) {
+      int id = i;
+      threads[i] =
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < 5; j++) {
+                    var res = (PyLongObject) pvm.call("fib", (Object) 18);
+                    assertEquals(2584, res.getData());
+                  }
+                  ThreadState ts = PVM.getThreadState();
+                  acquisitions[id] = ts.getGILAcquisitions();
+                } catch (Throwable e) {
+                  e.printStackTrace();
+                  errors[id] = e;
+                }
+              });
+    }
+    for (Thread t : threads) t.start();
+    for (Thread t : threads) t.join();
+    for (int i = 0; i < n; i++) {
+      if (errors[i] != null) throw new AssertionError(errors[i]);
+      if (FreeThreading.ENABLED) assertEquals(0, acquisitions[i]);
+    }
+    System.out.printf(" concurrent calls pass, free-threading %s%n", FreeThreading.ENABLED);
+  }
+
+  @Test
+  public void testAppendWhileIterating() throws Exception {
+    // without free-threading lists are guarded by the gil instead
+    Assume.assumeTrue(FreeThreading.ENABLED);
+    PyListObject list = new PyListObject();
+    for (int i = 0; i < 1000; i++) list.append(new PyLongObject(i));
+    int n = 20_000;
+    Throwable[] error = new Throwable[1];
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < n; i++) {
+                list.append(new PyLongObject(i));
+                if (i % 3 == 0) list.pop();
+              }
+            });
+    writer.start();
+    try {
+      while (writer.isAlive()) {
+        list.str();
+        list.sqContain(new PyLongObject(-1));
+        list.count(new PyTupleObject(new PyLongObject[] {new PyLongObject(0)}), null);
+        list.richCompare(list, PyObject.Operator.Py_EQ);
+        TypeDoIterate iterator = list.getIterator();
+        while (iterator.next() != BuiltIn.PyExcStopIteration) {}
+      }
+    } catch (Throwable e) {
+      error[0] = e;
+    }
+    writer.join();
+    if (error[0] != null) throw new AssertionError(error[0]);
+    assertEquals(1000 + n - (n + 2) / 3, list.size());
+  }
+}
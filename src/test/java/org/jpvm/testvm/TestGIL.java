@@ -0,0 +1,65 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.pvm.FreeThreading;
+import org.jpvm.pvm.InterpreterState;
+import org.jpvm.pvm.PVM;
+import org.jpvm.pvm.ThreadState;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestGIL {
+
+  @Test
+  public void testForcedSwitching() throws Exception {
+    Assume.assumeFalse(FreeThreading.ENABLED);
+    PVM pvm = new PVM("src/test/resources/syntax/__pycache__/fib.cpython-38.pyc");
+    pvm.run();
+    InterpreterState is = PVM.getThreadState().getIs();
+    long interval = is.getGILInterval();
+    is.setGILInterval(1000);
+    long switches = is.getSwitchNumber();
+    int n = 4;
+    long[] maxWaits = new long[n];
+    long[] acquisitions = new long[n];
+    Throwable[] errors = new Throwable[n];
+    Thread[] threads = new Thread[n];
+    for (int i = 0; i < n; i++) {
+      int id = i;
+      threads[i] =
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < 3; j++) {
+                    var res = (PyLongObject) pvm.call("fib", (Object) 18);
+                    assertEquals(2584, res.getData());
+                  }
+                  ThreadState ts = PVM.getThreadState();
+                  maxWaits[id] = ts.getGILMaxWaitNanos();
+                  acquisitions[id] = ts.getGILAcquisitions();
+                } catch (Throwable e) {
+                  e.printStackTrace();
+                  errors[id] = e;
+                }
+              });
+    }
+    for (Thread t : threads) t.start();
+    for (Thread t : threads) t.join();
+    is.setGILInterval(interval);
+    for (int i = 0; i < n; i++) {
+      if (errors[i] != null) throw new AssertionError(errors[i]);
+      assertTrue(acquisitions[i] >= 3);
+      // no thread is starved for anything close to the old multi-second waits
+      assertTrue(maxWaits[i] < TimeUnit.SECONDS.toNanos(2));
+      System.out.printf(
+          " thread %d acquired the gil %d times, waited at most %.3f ms%n",
+          i, acquisitions[i], maxWaits[i] / 1e6);
+    }
+    assertTrue(is.getSwitchNumber() > switches);
+    assertTrue(!is.isLocked());
+  }
+}
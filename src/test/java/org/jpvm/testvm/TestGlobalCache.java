@@ -0,0 +1,78 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.pvm.PVM;
+import org.junit.Test;
+
+/** the inline caches of LOAD_GLOBAL and LOAD_NAME see every rebinding of globals and builtins */
+public class TestGlobalCache {
+
+  private static final String PYC =
+      "src/test/resources/testpy/__pycache__/globalcache.cpython-38.pyc";
+
+  private static final PyUnicodeObject LEN = new PyUnicodeObject("len");
+
+  /** a sub interpreter, so that the builtins rebound here are its own copy */
+  private static PVM newVM() throws Exception {
+    PVM pvm = PVM.newInterpreter(PYC);
+    pvm.run();
+    return pvm;
+  }
+
+  private static long call(PVM pvm, String name, Object... args) throws PyException {
+    return ((PyLongObject) pvm.call(name, args)).getData();
+  }
+
+  @Test
+  public void testRebindGlobal() throws Exception {
+    PVM pvm = newVM();
+    assertEquals(1, call(pvm, "get_x"));
+    // the second call hits the cache filled by the first one
+    assertEquals(1, call(pvm, "get_x"));
+    pvm.call("bump");
+    assertEquals(2, call(pvm, "get_x"));
+    pvm.getGlobals().put(new PyUnicodeObject("x"), new PyLongObject(10));
+    assertEquals(10, call(pvm, "get_x"));
+  }
+
+  @Test
+  public void testRebindInLoop() throws Exception {
+    PVM pvm = newVM();
+    // x is read from the cache and rebound by bump in every iteration, 1 + 2 + 3 + 4
+    assertEquals(10, call(pvm, "global_loop", 4));
+    // x is 5 now, 5 + 6 + 7 + 8
+    assertEquals(26, call(pvm, "name_loop", 4));
+    assertEquals(9, call(pvm, "get_x"));
+  }
+
+  @Test
+  public void testShadowBuiltin() throws Exception {
+    PVM pvm = newVM();
+    PyObject len = pvm.getBuiltins().get(LEN);
+    assertSame(len, pvm.call("get_len"));
+    assertSame(len, pvm.call("get_len"));
+    pvm.call("shadow_len", 5);
+    assertEquals(5, call(pvm, "get_len"));
+    // deleting the global uncovers the builtin again
+    pvm.getGlobals().mpAssSubscript(LEN, null);
+    assertSame(len, pvm.call("get_len"));
+  }
+
+  @Test
+  public void testRebindBuiltin() throws Exception {
+    PVM pvm = newVM();
+    PyObject len = pvm.getBuiltins().get(LEN);
+    assertSame(len, pvm.call("get_len"));
+    pvm.getBuiltins().put(LEN, new PyLongObject(7));
+    assertEquals(7, call(pvm, "get_len"));
+    pvm.getBuiltins().mpAssSubscript(LEN, null);
+    assertThrows(PyException.class, () -> pvm.call("get_len"));
+  }
+}
@@ -1,10 +1,28 @@
 package org.jpvm.testvm;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 import org.jpvm.errors.PyException;
+import org.jpvm.objects.PyListObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.pvm.ModuleFinder;
 import org.jpvm.pvm.PVM;
+import org.jpvm.pycParser.PyCodeObject;
+import org.jpvm.pycParser.PycReader;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class TestImport {
 
@@ -25,4 +43,119 @@ public class TestImport {
     String filename = "src/test/resources/obsy/__pycache__/test07.cpython-38.pyc";
     new PVM(filename).run();
   }
+
+  @Test
+  public void testModuleFinder() throws IOException {
+    Path dir = Files.createTempDirectory("jpvm-finder").resolve("__pycache__");
+    Files.createDirectory(dir);
+    Path add = Path.of("src/test/resources/pys/__pycache__/add.cpython-38.pyc");
+    Files.copy(add, dir.resolve("add.cpython-38.pyc"));
+    PyListObject searchPath = new PyListObject();
+    searchPath.app1(new PyUnicodeObject("org/jpvm/stl"));
+    searchPath.app1(new PyUnicodeObject(dir.toString()));
+    ModuleFinder finder = new ModuleFinder(searchPath);
+
+    assertTrue(finder.find("math").isNative());
+    assertTrue(finder.find("random").isNative());
+    ModuleFinder.Spec spec = finder.find("add");
+    assertFalse(spec.isNative());
+    assertEquals(dir.resolve("add.cpython-38.pyc").toString(), spec.getPyc());
+    assertSame(spec, finder.find("add"));
+    // module names are matched exactly, not as prefixes of file names
+    assertNull(finder.find("ad"));
+
+    // the directory is listed once, new files are found after an invalidation
+    Files.copy(add, dir.resolve("sub.cpython-38.pyc"));
+    assertNull(finder.find("sub"));
+    finder.invalidateCaches();
+    assertEquals("sub", finder.find("sub").getName());
+
+    // a changed search path is picked up without an invalidation
+    Path other = Files.createTempDirectory("jpvm-finder").resolve("__pycache__");
+    Files.createDirectory(other);
+    Files.copy(add, other.resolve("mul.cpython-38.pyc"));
+    assertNull(finder.find("mul"));
+    searchPath.app1(new PyUnicodeObject(other.toString()));
+    assertEquals(other.resolve("mul.cpython-38.pyc").toString(), finder.find("mul").getPyc());
+  }
+
+  @Test
+  public void testZipImport() throws IOException, PyException {
+    Path add = Path.of("src/test/resources/pys/__pycache__/add.cpython-38.pyc");
+    Path fib = Path.of("src/test/resources/syntax/__pycache__/fib.cpython-38.pyc");
+    Path jar = Files.createTempDirectory("jpvm-finder").resolve("app.jar");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+      out.putNextEntry(new ZipEntry("lib/__pycache__/add.cpython-38.pyc"));
+      out.write(Files.readAllBytes(add));
+      byte[] bytes = Files.readAllBytes(fib);
+      ZipEntry stored = new ZipEntry("lib/fib.pyc");
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(bytes.length);
+      CRC32 crc = new CRC32();
+      crc.update(bytes);
+      stored.setCrc(crc.getValue());
+      out.putNextEntry(stored);
+      out.write(bytes);
+      out.putNextEntry(new ZipEntry("other/__pycache__/sub.cpython-38.pyc"));
+      out.write(Files.readAllBytes(add));
+    }
+    PyListObject searchPath = new PyListObject();
+    searchPath.app1(new PyUnicodeObject(jar + "/lib"));
+    ModuleFinder finder = new ModuleFinder(searchPath);
+
+    // deflated and stored entries are unmarshalled from the archive
+    assertEquals(read(add), finder.find("add").loadCode().toString());
+    assertEquals(jar + "/lib/fib.pyc", finder.find("fib").getPyc());
+    assertEquals(read(fib), finder.find("fib").loadCode().toString());
+    // only the directory named after the archive is searched
+    assertNull(finder.find("sub"));
+  }
+
+  private static String read(Path pyc) throws IOException, PyException {
+    PycReader reader = new PycReader(pyc.toString());
+    reader.doParse();
+    return reader.getCodeObject().toString();
+  }
+
+  @Test
+  public void testFrozenModules() throws IOException, PyException {
+    // frozen modules are found without any search path
+    ModuleFinder finder = new ModuleFinder(new PyListObject());
+    assertTrue(finder.find("math").isNative());
+    assertTrue(finder.find("random").isNative());
+    ModuleFinder.Spec spec = finder.find("frozen_add");
+    assertEquals("pys/__pycache__/add.cpython-38.pyc", spec.getPyc());
+    Path add = Path.of("src/test/resources/pys/__pycache__/add.cpython-38.pyc");
+    assertEquals(read(add), spec.loadCode().toString());
+    assertNull(finder.find("add"));
+    // a bad entry of an index is skipped instead of failing every import
+    assertNull(finder.find("frozen_missing"));
+    List<String> skipped = ModuleFinder.skippedFrozenModules();
+    assertEquals(1, skipped.size());
+    assertTrue(skipped.get(0).startsWith("frozen module frozen_missing of "));
+  }
+
+  @Test
+  public void testPrefetch() throws IOException, PyException {
+    Path pycparser = Path.of("src/test/resources/pys/__pycache__/pycparser.cpython-38.pyc");
+    PycReader reader = new PycReader(pycparser.toString());
+    reader.doParse();
+    assertEquals(
+        List.of("marshal", "dis", "struct", "time", "types", "binascii", "sys"),
+        List.copyOf(ModuleFinder.importedNames(reader.getCodeObject())));
+
+    Path dir = Files.createTempDirectory("jpvm-finder").resolve("__pycache__");
+    Files.createDirectory(dir);
+    Path add = Path.of("src/test/resources/pys/__pycache__/add.cpython-38.pyc");
+    Files.copy(add, dir.resolve("add.cpython-38.pyc"));
+    PyListObject searchPath = new PyListObject();
+    searchPath.app1(new PyUnicodeObject(dir.toString()));
+    ModuleFinder finder = new ModuleFinder(searchPath);
+    finder.prefetch("add");
+    finder.prefetch("missing");
+    PyCodeObject prefetched = finder.find("add").loadCode();
+    assertEquals(read(add), prefetched.toString());
+    // a prefetched code object is only handed out once
+    assertNotSame(prefetched, finder.find("add").loadCode());
+  }
 }
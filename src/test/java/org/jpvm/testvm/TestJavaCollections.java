@@ -0,0 +1,70 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.pvm.ArgAdapter;
+import org.jpvm.pvm.PVM;
+import org.junit.Test;
+
+public class TestJavaCollections {
+
+  private static final String PYC =
+      "src/test/resources/testpy/__pycache__/javacollections.cpython-38.pyc";
+
+  private static long value(PyObject o) {
+    return ((PyLongObject) o).getData();
+  }
+
+  @Test
+  public void testCopies() throws Exception {
+    PVM pvm = new PVM(PYC);
+    pvm.run();
+    List<Integer> list = new ArrayList<>(List.of(1, 2));
+    assertEquals(4, value(pvm.getCallable("pop_extend").call(list, List.of(3, 4))));
+    assertEquals(List.of(1, 2), list);
+    assertEquals(0, value(pvm.getCallable("insert_index").call(list)));
+    assertEquals(3, value(pvm.getCallable("unpack").call(list)));
+    Map<String, Integer> map = new HashMap<>(Map.of("a", 1));
+    assertEquals(3, value(pvm.getCallable("update_values").call(map, "b", 2)));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void testViews() throws Exception {
+    PVM pvm = new PVM(PYC);
+    pvm.run();
+    List<Integer> list = new ArrayList<>(List.of(1, 2));
+    var popExtend = pvm.getCallable("pop_extend").withAdapters(ArgAdapter.VIEW, ArgAdapter.VIEW);
+    assertEquals(4, value(popExtend.call(list, List.of(3, 4))));
+    assertEquals(List.of(1, 2, 3), list);
+    var insertIndex = pvm.getCallable("insert_index").withAdapters(ArgAdapter.VIEW);
+    assertEquals(0, value(insertIndex.call(list)));
+    assertEquals(List.of(7, 1, 2, 3), list);
+    var unpack = pvm.getCallable("unpack").withAdapters(ArgAdapter.VIEW);
+    assertEquals(3, value(unpack.call(List.of(1, 2))));
+
+    Map<String, Integer> map = new HashMap<>(Map.of("a", 1));
+    var updateValues =
+        pvm.getCallable("update_values")
+            .withAdapters(ArgAdapter.VIEW, ArgAdapter.STRING, ArgAdapter.INT);
+    assertEquals(3, value(updateValues.call(map, "b", 2)));
+    assertEquals(Integer.valueOf(2), map.get("b"));
+
+    Set<Long> set = new HashSet<>(Set.of(1L, 2L));
+    var removeLen = pvm.getCallable("remove_len").withAdapters(ArgAdapter.VIEW, ArgAdapter.LONG);
+    assertEquals(1, value(removeLen.call(set, 2L)));
+    assertEquals(Set.of(1L), set);
+
+    // the same without a handle
+    assertEquals(0, value(pvm.callWithViews("insert_index", list)));
+    assertEquals(List.of(7, 7, 1, 2, 3), list);
+  }
+}
@@ -0,0 +1,151 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.pvm.ArgAdapter;
+import org.jpvm.pvm.PVM;
+import org.jpvm.pvm.PVMPool;
+import org.jpvm.pvm.PyCallable;
+import org.jpvm.pycParser.PyCodeObject;
+import org.junit.Test;
+
+public class TestPVMPool {
+
+  private static final String FIB = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+
+  @Test
+  public void testCallable() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    PyCallable fib = pvm.getCallable("fib");
+    assertSame(fib, pvm.getCallable("fib"));
+    assertEquals(55, ((PyLongObject) fib.call((Object) 10)).getData());
+    PyCallable typed = fib.withAdapters(ArgAdapter.INT);
+    assertEquals(6765, ((PyLongObject) typed.call((Object) 20)).getData());
+    long start = System.nanoTime();
+    int calls = 1000;
+    for (int i = 0; i < calls; i++) typed.call((Object) 1);
+    System.out.printf(
+        " prebound call takes %.3f us%n", (System.nanoTime() - start) / 1e3 / calls);
+  }
+
+  @Test
+  public void testCallBatch() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    List<Object[]> batch = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) batch.add(new Object[] {i % 15});
+    PyObject[] results = pvm.callBatch("fib", batch);
+    assertEquals(1000, results.length);
+    assertEquals(377, ((PyLongObject) results[14]).getData());
+    assertEquals(1, ((PyLongObject) results[1]).getData());
+
+    PyCallable fib = pvm.getCallable("fib").withAdapters(ArgAdapter.INT);
+    List<PyObject> streamed = new ArrayList<>();
+    fib.callBatch(batch.iterator(), streamed::add);
+    assertEquals(1000, streamed.size());
+    assertEquals(377, ((PyLongObject) streamed.get(14)).getData());
+  }
+
+  @Test
+  public void testCallBatchOnOtherThread() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    PyCallable fib = pvm.getCallable("fib").withAdapters(ArgAdapter.INT);
+    var code = (PyCodeObject) fib.getFunction().getFuncCode();
+    List<Object[]> batch = new ArrayList<>();
+    for (int i = 0; i < 100; i++) batch.add(new Object[] {i % 15});
+    PyObject[] results = new PyObject[batch.size()];
+    int[] recycled = new int[1];
+    Throwable[] error = new Throwable[1];
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                fib.callBatch(batch, results);
+                recycled[0] =
+                    pvm.getInterpreterState().getThreadState().getFrameFreelist(code).size();
+              } catch (Throwable e) {
+                error[0] = e;
+              }
+            });
+    thread.start();
+    thread.join();
+    if (error[0] != null) throw new AssertionError(error[0]);
+    assertEquals(377, ((PyLongObject) results[14]).getData());
+    // the frames of the batch went back to the freelist of the thread which ran it
+    assertTrue(recycled[0] > 0);
+  }
+
+  @Test
+  public void testDroppedVmIsCollected() throws Exception {
+    ExecutorService worker = Executors.newSingleThreadExecutor();
+    try {
+      WeakReference<PyCodeObject> code = runAndDrop(worker);
+      for (int i = 0; i < 50 && code.get() != null; i++) {
+        System.gc();
+        Thread.sleep(20);
+      }
+      // the worker outlives the vm, neither it nor this thread keep the code of the vm alive
+      assertNull(code.get());
+    } finally {
+      worker.shutdown();
+    }
+  }
+
+  private static WeakReference<PyCodeObject> runAndDrop(ExecutorService worker) throws Exception {
+    PVM pvm = PVM.newInterpreter(FIB);
+    pvm.run();
+    assertEquals(55, ((PyLongObject) pvm.call("fib", (Object) 10)).getData());
+    PyCallable fib = pvm.getCallable("fib");
+    Future<PyObject> res = worker.submit(() -> fib.call((Object) 10));
+    assertEquals(55, ((PyLongObject) res.get()).getData());
+    return new WeakReference<>((PyCodeObject) fib.getFunction().getFuncCode());
+  }
+
+  @Test
+  public void testPool() throws Exception {
+    try (PVMPool pool = new PVMPool(FIB, 2)) {
+      PVM a = pool.acquire();
+      PVM b = pool.acquire();
+      assertNotSame(a, b);
+      assertNotSame(a.getInterpreterState(), b.getInterpreterState());
+      pool.release(a);
+      pool.release(b);
+      int n = 4;
+      Throwable[] errors = new Throwable[n];
+      Thread[] threads = new Thread[n];
+      for (int i = 0; i < n; i++) {
+        int id = i;
+        threads[i] =
+            new Thread(
+                () -> {
+                  try {
+                    for (int j = 0; j < 5; j++) {
+                      var res = (PyLongObject) pool.call("fib", 15);
+                      assertEquals(610, res.getData());
+                    }
+                  } catch (Throwable e) {
+                    e.printStackTrace();
+                    errors[id] = e;
+                  }
+                });
+      }
+      for (Thread t : threads) t.start();
+      for (Thread t : threads) t.join();
+      for (Throwable e : errors) if (e != null) throw new AssertionError(e);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.jpvm.bytecode.DecodedCode;
+import org.jpvm.bytecode.OpMap;
+import org.jpvm.objects.PyFunctionObject;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.pvm.PVM;
+import org.jpvm.pycParser.PyCodeObject;
+import org.junit.Test;
+
+public class TestQuickening {
+
+  private static final String FIB = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+
+  private static int[] fibOpcodes(PVM pvm) throws Exception {
+    PyFunctionObject fib = (PyFunctionObject) pvm.getGlobals().get(new PyUnicodeObject("fib"));
+    return ((PyCodeObject) fib.getFuncCode()).getDecodedCode().getOpcodes();
+  }
+
+  private static boolean contains(int[] opcodes, int opcode) {
+    return Arrays.stream(opcodes).anyMatch(op -> op == opcode);
+  }
+
+  @Test
+  public void testSpecialize() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    PyObject res = pvm.call("fib", (Object) 15);
+    assertEquals(610, ((PyLongObject) res).getData());
+    int[] opcodes = fibOpcodes(pvm);
+    assertTrue(contains(opcodes, OpMap.COMPARE_OP_LONG));
+    assertTrue(contains(opcodes, OpMap.BINARY_SUBTRACT_LONG));
+    assertTrue(contains(opcodes, OpMap.BINARY_ADD_LONG));
+  }
+
+  @Test
+  public void testDeoptimize() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    pvm.call("fib", (Object) 15);
+    PyFunctionObject fib = (PyFunctionObject) pvm.getGlobals().get(new PyUnicodeObject("fib"));
+    DecodedCode code = ((PyCodeObject) fib.getFuncCode()).getDecodedCode();
+    int idx = 0;
+    while (code.getOpcodes()[idx] != OpMap.BINARY_ADD_LONG) idx++;
+    code.deoptimize(idx);
+    assertEquals(OpMap.BINARY_ADD, code.getOpcodes()[idx]);
+    assertEquals(DecodedCode.ADAPTIVE_BACKOFF, code.getCounters()[idx]);
+    PyObject res = pvm.call("fib", (Object) 10);
+    assertEquals(55, ((PyLongObject) res).getData());
+    assertEquals(OpMap.BINARY_ADD_LONG, code.getOpcodes()[idx]);
+  }
+}
@@ -0,0 +1,56 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jpvm.bytecode.Instruction;
+import org.jpvm.bytecode.OpMap;
+import org.jpvm.objects.PyBytesObject;
+import org.jpvm.objects.PyFunctionObject;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyObject;
+import org.jpvm.objects.PyTupleObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.pvm.PVM;
+import org.jpvm.pycParser.PyCodeObject;
+import org.junit.Test;
+
+public class TestStackless {
+
+  private static final String FIB = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+
+  /**
+   * rewrite the second call of fib, fib(n - 2), into the constant 1, so that fib(n) = fib(n - 1) + 1
+   * recurses n levels deep in linear time
+   */
+  private static void linearize(PyCodeObject code) {
+    byte[] co = ((PyBytesObject) code.getCoCode()).getData().clone();
+    PyTupleObject consts = (PyTupleObject) code.getCoConsts();
+    int one = 0;
+    while (!(consts.get(one) instanceof PyLongObject l && l.getData() == 1)) one++;
+    int calls = 0;
+    for (int i = 0; i < co.length; i += Instruction.sizeofByteCode) {
+      if ((co[i] & 0xff) == OpMap.LOAD_GLOBAL && ++calls == 2) {
+        co[i] = (byte) OpMap.LOAD_CONST;
+        co[i + 1] = (byte) one;
+        // LOAD_FAST n, LOAD_CONST 2, BINARY_SUBTRACT, CALL_FUNCTION 1
+        for (int j = 1; j <= 4; j++) {
+          co[i + j * Instruction.sizeofByteCode] = (byte) OpMap.NOP;
+          co[i + j * Instruction.sizeofByteCode + 1] = 0;
+        }
+        break;
+      }
+    }
+    code.setCoCode(new PyBytesObject(co));
+  }
+
+  @Test
+  public void testDeepRecursion() throws Exception {
+    PVM pvm = new PVM(FIB);
+    pvm.run();
+    PyFunctionObject fib = (PyFunctionObject) pvm.getGlobals().get(new PyUnicodeObject("fib"));
+    linearize((PyCodeObject) fib.getFuncCode());
+    PyObject res = pvm.call("fib", (Object) 5000);
+    assertEquals(5000, ((PyLongObject) res).getData());
+    assertEquals(0, PVM.getThreadState().getRecursionDepth());
+  }
+}
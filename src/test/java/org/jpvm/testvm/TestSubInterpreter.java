@@ -0,0 +1,86 @@
+package org.jpvm.testvm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.jpvm.objects.PyLongObject;
+import org.jpvm.objects.PyUnicodeObject;
+import org.jpvm.pvm.PVM;
+import org.junit.Test;
+
+public class TestSubInterpreter {
+
+  private static final String FIB = "src/test/resources/syntax/__pycache__/fib.cpython-38.pyc";
+
+  @Test
+  public void testIsolation() throws Exception {
+    PVM main = new PVM(FIB);
+    PVM sub = PVM.newInterpreter(FIB);
+    assertSame(PVM.getMainInterpreterState(), main.getInterpreterState());
+    assertNotSame(main.getInterpreterState(), sub.getInterpreterState());
+    assertNotSame(main.getBuiltins(), sub.getBuiltins());
+    PyUnicodeObject name = new PyUnicodeObject("__main__");
+    assertSame(main.getRootModule(), main.getInterpreterState().getModule(name));
+    assertSame(sub.getRootModule(), sub.getInterpreterState().getModule(name));
+    // entering a sub interpreter does not change the current interpreter of the thread
+    sub.run();
+    assertSame(main.getInterpreterState(), PVM.getThreadState().getIs());
+  }
+
+  @Test
+  public void testExitMain() throws Exception {
+    PVM main = new PVM(FIB);
+    main.run();
+    PVM sub = PVM.newInterpreter(FIB);
+    sub.run();
+    main.exit();
+    assertNotSame(main.getInterpreterState(), PVM.getMainInterpreterState());
+    assertEquals(55, ((PyLongObject) sub.call("fib", (Object) 10)).getData());
+    assertEquals(55, ((PyLongObject) sub.getCallable("fib").call((Object) 10)).getData());
+    assertSame(PVM.getMainInterpreterState(), PVM.getThreadState().getIs());
+    PVM next = new PVM(FIB);
+    next.run();
+    assertSame(PVM.getMainInterpreterState(), next.getInterpreterState());
+    assertEquals(55, ((PyLongObject) next.call("fib", (Object) 10)).getData());
+  }
+
+  @Test
+  public void testParallel() throws Exception {
+    int n = 2;
+    PVM[] vms = new PVM[n];
+    for (int i = 0; i < n; i++) {
+      vms[i] = PVM.newInterpreter(FIB);
+      vms[i].run();
+    }
+    long[] results = new long[n];
+    long[] waits = new long[n];
+    Throwable[] errors = new Throwable[n];
+    Thread[] threads = new Thread[n];
+    for (int i = 0; i < n; i++) {
+      int id = i;
+      threads[i] =
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < 3; j++)
+                    results[id] = ((PyLongObject) vms[id].call("fib", (Object) 20)).getData();
+                  waits[id] = vms[id].getInterpreterState().getThreadState().getGILMaxWaitNanos();
+                } catch (Throwable e) {
+                  errors[id] = e;
+                }
+              });
+    }
+    for (Thread t : threads) t.start();
+    for (Thread t : threads) t.join();
+    for (int i = 0; i < n; i++) {
+      if (errors[i] != null) throw new AssertionError(errors[i]);
+      assertEquals(6765, results[i]);
+      // each interpreter has its own lock, nobody waited a switch interval for it
+      long interval = TimeUnit.MICROSECONDS.toNanos(vms[i].getInterpreterState().getGILInterval());
+      assertTrue(waits[i] < interval);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+x = 1
+
+
+def bump():
+    global x
+    x = x + 1
+
+
+def get_x():
+    return x
+
+
+def get_len():
+    return len
+
+
+def shadow_len(v):
+    global len
+    len = v
+
+
+def global_loop(n):
+    t = 0
+    for i in range(n):
+        t = t + x
+        bump()
+    return t
+
+
+# assembled with LOAD_NAME for x, as in a class body or module level code
+def name_loop(n):
+    t = 0
+    for i in range(n):
+        t = t + x
+        bump()
+    return t
@@ -0,0 +1,23 @@
+def pop_extend(l, o):
+    l.extend(o)
+    return l.pop()
+
+
+def insert_index(l):
+    l.insert(0, 7)
+    return l.index(7)
+
+
+def unpack(l):
+    a, b = l
+    return a + b
+
+
+def update_values(d, k, v):
+    d.update({k: v})
+    return sum(d.values())
+
+
+def remove_len(s, x):
+    s.remove(x)
+    return len(s)